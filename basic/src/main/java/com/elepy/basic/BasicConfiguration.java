@@ -0,0 +1,44 @@
+package com.elepy.basic;
+
+import com.elepy.Configuration;
+import com.elepy.ElepyPostConfiguration;
+import com.elepy.ElepyPreConfiguration;
+
+import java.nio.file.Path;
+
+public class BasicConfiguration implements Configuration {
+
+    private final LogStore logStore;
+
+    public BasicConfiguration(LogStore logStore) {
+        this.logStore = logStore;
+    }
+
+    public static BasicConfiguration inMemory() {
+        return new BasicConfiguration(null);
+    }
+
+    public static BasicConfiguration persistent(Path directory) {
+        return persistent(new LogStore(directory));
+    }
+
+    public static BasicConfiguration persistent(LogStore logStore) {
+        return new BasicConfiguration(logStore);
+    }
+
+    @Override
+    public void preConfig(ElepyPreConfiguration elepy) {
+        if (logStore == null) {
+            elepy.withDefaultCrudFactory(BasicCrudFactory.class);
+        } else {
+            elepy.registerDependency(LogStore.class, logStore);
+            elepy.withDefaultCrudFactory(LogStructuredCrudFactory.class);
+            elepy.onStop(logStore::close);
+        }
+    }
+
+    @Override
+    public void postConfig(ElepyPostConfiguration elepy) {
+
+    }
+}
@@ -0,0 +1,410 @@
+package com.elepy.basic;
+
+import com.elepy.annotations.Searchable;
+import com.elepy.dao.*;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.models.FieldType;
+import com.elepy.models.Model;
+import com.elepy.utils.MapperUtils;
+import com.elepy.utils.ReflectionUtils;
+import com.elepy.utils.StringUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A concurrent, in-memory {@link Crud}. Items are kept in a hash index on their id and every
+ * {@link com.elepy.annotations.Unique}, {@link Searchable} and default sort property gets a sorted secondary index.
+ * <p>
+ * Filters, searches and sorts on indexed properties are resolved with index lookups, everything else falls back
+ * to a scan of the candidate items.
+ * <p>
+ * Items are stored by reference, changes to an item only become visible to the indexes after an {@link #update(Object)}.
+ *
+ * @param <T> The type of the Model
+ */
+public class BasicCrud<T> implements Crud<T> {
+
+    private final Model<T> model;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Serializable, T> items;
+    private final Map<String, PropertyIndex> indexes;
+    private final List<Field> searchableFields;
+    private final Field idField;
+
+    private final ReadWriteLock lock;
+
+    public BasicCrud(Model<T> model, ObjectMapper objectMapper) {
+        this.model = model;
+        this.objectMapper = objectMapper;
+        this.items = new ConcurrentHashMap<>();
+        this.indexes = new HashMap<>();
+        this.lock = new ReentrantReadWriteLock();
+        this.idField = ReflectionUtils.getIdField(getType()).orElseThrow(() -> new ElepyException("No id field", 500));
+
+        this.searchableFields = ReflectionUtils.searchForFieldsWithAnnotation(getType(), Searchable.class);
+        this.searchableFields.addAll(ReflectionUtils.getUniqueFields(getType()));
+
+        searchableFields.forEach(this::addIndex);
+        Optional.ofNullable(ReflectionUtils.getPropertyField(getType(), model.getDefaultSortField())).ifPresent(this::addIndex);
+    }
+
+    private static Serializable idKey(Serializable id) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        return id;
+    }
+
+    private void addIndex(Field field) {
+        indexes.putIfAbsent(ReflectionUtils.getPropertyName(field), new PropertyIndex(field));
+    }
+
+    @Override
+    public Page<T> search(Query query, PageSettings settings) {
+        lock.readLock().lock();
+        try {
+            final Set<Serializable> matchingIds = findMatchingIds(query);
+
+            final long amountOfResultsWithThatQuery = matchingIds == null ? items.size() : matchingIds.size();
+
+            // Counting is free here, so every count mode gets an exact count
+            return Page.fromLookAhead(this, find(matchingIds, settings.lookAhead()), settings, amountOfResultsWithThatQuery);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Stream<T> stream(Query query, PageSettings settings) {
+        lock.readLock().lock();
+        try {
+            return find(findMatchingIds(query), settings).stream();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<T> find(Set<Serializable> matchingIds, PageSettings settings) {
+        Stream<Serializable> ids = sorted(matchingIds, settings.getPropertySortList());
+        if (settings.hasCursor()) {
+            final List<Object> cursorValues = Cursor.decode(settings.getAfter())
+                    .values(getType(), settings.getPropertySortList(), idField.getType(), objectMapper);
+            ids = ids.dropWhile(isAfter(settings.getPropertySortList(), cursorValues).negate());
+        } else {
+            ids = ids.skip((settings.getPageNumber() - 1) * settings.getPageSize());
+        }
+
+        return ids
+                .limit(settings.getLimit())
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id) {
+        return Optional.ofNullable(items.get(idKey(id)));
+    }
+
+    @Override
+    public List<T> getByIds(Iterable<Serializable> ids) {
+        final List<T> found = new ArrayList<>();
+        for (Serializable id : ids) {
+            getById(id).ifPresent(found::add);
+        }
+        return found;
+    }
+
+    @Override
+    public List<T> searchInField(Field field, String qry) {
+        final PropertyIndex index = indexes.get(ReflectionUtils.getPropertyName(field));
+        final Comparable key = keyFromString(field, qry);
+
+        lock.readLock().lock();
+        try {
+            if (index != null) {
+                return index.equalTo(key).stream().map(items::get).filter(Objects::nonNull).collect(Collectors.toList());
+            }
+            field.setAccessible(true);
+            return items.values().stream()
+                    .filter(item -> PropertyIndex.compare(PropertyIndex.toKey(PropertyIndex.valueOf(field, item)), key) == 0)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void update(T item) {
+        update(Collections.singletonList(item));
+    }
+
+    @Override
+    public void update(Iterable<T> items) {
+        lock.writeLock().lock();
+        try {
+            for (T item : items) {
+                final Serializable id = idKey(getId(item));
+
+                if (this.items.containsKey(id)) {
+                    unindex(id);
+                    this.items.put(id, item);
+                    index(id, item);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void create(T item) {
+        create(Collections.singletonList(item));
+    }
+
+    @Override
+    public void create(Iterable<T> items) {
+        lock.writeLock().lock();
+        try {
+            for (T item : items) {
+                final Serializable id = idKey(getId(item));
+
+                if (this.items.putIfAbsent(id, item) != null) {
+                    throw new ElepyException("Duplicate ID's", 400);
+                }
+                index(id, item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<T> getAll() {
+        return new ArrayList<>(items.values());
+    }
+
+    @Override
+    public void deleteById(Serializable id) {
+        delete(Collections.singletonList(id));
+    }
+
+    @Override
+    public void delete(Iterable<Serializable> ids) {
+        lock.writeLock().lock();
+        try {
+            for (Serializable id : ids) {
+                final Serializable key = idKey(id);
+                if (items.remove(key) != null) {
+                    unindex(key);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long count(String query) {
+        if (StringUtils.isEmpty(query)) {
+            return items.size();
+        }
+        lock.readLock().lock();
+        try {
+            return searchIds(query).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long count(Query query) {
+        lock.readLock().lock();
+        try {
+            final Set<Serializable> matchingIds = findMatchingIds(query);
+            return matchingIds == null ? items.size() : matchingIds.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Model<T> getModel() {
+        return model;
+    }
+
+    @Override
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+
+    private void index(Serializable id, T item) {
+        indexes.values().forEach(index -> index.add(id, item));
+    }
+
+    private void unindex(Serializable id) {
+        indexes.values().forEach(index -> index.remove(id));
+    }
+
+    /**
+     * @return the ids that match the query, or null if every item matches
+     */
+    private Set<Serializable> findMatchingIds(Query query) {
+        Set<Serializable> matchingIds = null;
+        final List<Filter> unindexedFilters = new ArrayList<>();
+
+        for (Filter filter : query.getFilters()) {
+            final PropertyIndex index = indexes.get(filter.getFilterableField().getName());
+
+            if (index == null) {
+                unindexedFilters.add(filter);
+            } else {
+                final Comparable key = keyFromString(filter.getFilterableField().getField(), filter.getFilterValue());
+                matchingIds = intersect(matchingIds, index.lookup(filter.getFilterType(), key, filter.getFilterValue()));
+            }
+        }
+
+        if (!StringUtils.isEmpty(query.getSearchQuery())) {
+            matchingIds = intersect(matchingIds, searchIds(query.getSearchQuery()));
+        }
+
+        if (!unindexedFilters.isEmpty()) {
+            final Stream<Serializable> candidates = matchingIds == null ? items.keySet().stream() : matchingIds.stream();
+
+            matchingIds = candidates
+                    .filter(id -> unindexedFilters.stream().allMatch(filter -> matches(items.get(id), filter)))
+                    .collect(Collectors.toSet());
+        }
+        return matchingIds;
+    }
+
+    private Set<Serializable> searchIds(String term) {
+        final Set<Serializable> found = new HashSet<>();
+
+        for (Field field : searchableFields) {
+            final PropertyIndex index = indexes.get(ReflectionUtils.getPropertyName(field));
+            found.addAll(index.containing(term));
+        }
+        return found;
+    }
+
+    private Set<Serializable> intersect(Set<Serializable> matchingIds, Set<Serializable> ids) {
+        if (matchingIds == null) {
+            return ids;
+        }
+        matchingIds.retainAll(ids);
+        return matchingIds;
+    }
+
+    private Stream<Serializable> sorted(Set<Serializable> matchingIds, List<PropertySort> propertySorts) {
+        if (propertySorts.size() == 1 && matchingIds == null) {
+            final PropertySort sort = propertySorts.get(0);
+            final PropertyIndex index = indexes.get(sort.getProperty());
+
+            // Walking the index of the sort is cheaper than sorting everything
+            if (index != null) {
+                return index.idsInOrder(sort.getSortOption());
+            }
+        }
+
+        // Sorting on the id last gives every item a unique position, which cursors rely on
+        Comparator<Serializable> comparator = (a, b) -> 0;
+        for (PropertySort propertySort : propertySorts) {
+            comparator = comparator.thenComparing(comparatorFor(propertySort));
+        }
+
+        return (matchingIds == null ? items.keySet().stream() : matchingIds.stream())
+                .sorted(comparator.thenComparing((a, b) -> PropertyIndex.compare((Comparable) a, (Comparable) b)));
+    }
+
+    private Comparator<Serializable> comparatorFor(PropertySort propertySort) {
+        final Function<Serializable, Comparable> sortKey = sortKey(propertySort.getProperty());
+        final Comparator<Serializable> comparator = (a, b) -> PropertyIndex.compare(sortKey.apply(a), sortKey.apply(b));
+
+        return propertySort.getSortOption().equals(SortOption.DESCENDING) ? comparator.reversed() : comparator;
+    }
+
+    private Function<Serializable, Comparable> sortKey(String property) {
+        final PropertyIndex index = indexes.get(property);
+
+        if (index != null) {
+            return index::keyOf;
+        }
+        final Field field = ReflectionUtils.getPropertyField(getType(), property);
+        if (field == null) {
+            throw new ElepyException(String.format("No properties titled '%s'", property));
+        }
+        return id -> PropertyIndex.toKey(PropertyIndex.valueOf(field, items.get(id)));
+    }
+
+    /**
+     * @return a predicate that tells whether an item comes after the position of a cursor
+     */
+    private Predicate<Serializable> isAfter(List<PropertySort> propertySorts, List<Object> cursorValues) {
+        final List<Function<Serializable, Comparable>> sortKeys = propertySorts.stream()
+                .map(propertySort -> sortKey(propertySort.getProperty()))
+                .collect(Collectors.toList());
+        final Comparable cursorId = (Comparable) idKey((Serializable) cursorValues.get(propertySorts.size()));
+
+        return id -> {
+            for (int i = 0; i < propertySorts.size(); i++) {
+                final int comparison = PropertyIndex.compare(sortKeys.get(i).apply(id), PropertyIndex.toKey(cursorValues.get(i)));
+
+                if (comparison != 0) {
+                    return propertySorts.get(i).getSortOption().equals(SortOption.DESCENDING) ? comparison < 0 : comparison > 0;
+                }
+            }
+            return PropertyIndex.compare((Comparable) id, cursorId) > 0;
+        };
+    }
+
+    private boolean matches(T item, Filter filter) {
+        if (item == null) {
+            return false;
+        }
+        final Field field = filter.getFilterableField().getField();
+        final Object value = PropertyIndex.valueOf(field, item);
+
+        if (filter.getFilterType().equals(FilterType.CONTAINS)) {
+            return value != null && value.toString().toLowerCase().contains(filter.getFilterValue().toLowerCase());
+        }
+
+        final int comparison = PropertyIndex.compare(PropertyIndex.toKey(value), keyFromString(field, filter.getFilterValue()));
+
+        switch (filter.getFilterType()) {
+            case EQUALS:
+                return comparison == 0;
+            case NOT_EQUALS:
+                return comparison != 0;
+            case GREATER_THAN:
+                return comparison > 0;
+            case GREATER_THAN_OR_EQUALS:
+                return comparison >= 0;
+            case LESSER_THAN:
+                return comparison < 0;
+            case LESSER_THAN_OR_EQUALS:
+                return comparison <= 0;
+            default:
+                throw new ElepyException("The in-memory crud does not support: " + filter.getFilterType().getName());
+        }
+    }
+
+    private Comparable keyFromString(Field field, String value) {
+        try {
+            return PropertyIndex.toKey(MapperUtils.toValueFromString(field, FieldType.guessType(field), value));
+        } catch (RuntimeException e) {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.elepy.basic;
+
+import com.elepy.annotations.Inject;
+import com.elepy.dao.Crud;
+import com.elepy.dao.CrudFactory;
+import com.elepy.models.Model;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A {@link CrudFactory} that keeps every model in memory with a {@link BasicCrud}.
+ * Useful for small reference-data models that don't need a database round trip.
+ */
+public class BasicCrudFactory implements CrudFactory {
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Override
+    public <T> Crud<T> crudFor(Model<T> model) {
+        return new BasicCrud<>(model, objectMapper);
+    }
+}
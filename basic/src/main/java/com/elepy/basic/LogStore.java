@@ -0,0 +1,93 @@
+package com.elepy.basic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The directory that {@link LogStructuredCrud}'s persist their models in. Every model gets its own
+ * {@link SegmentLog} in a sub-directory named after the model's slug.
+ * <p>
+ * The store compacts its logs on a single background thread.
+ */
+public class LogStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(LogStore.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+    public static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofMinutes(1);
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+    private final double compactionThreshold;
+
+    private final List<SegmentLog> logs;
+    private final ScheduledExecutorService compactor;
+
+    /**
+     * @param directory           the directory to store the segment logs in
+     * @param segmentSize         the size in bytes of a segment file, records larger than this get a segment of their own
+     * @param syncOnWrite         whether every write should be flushed to disk before returning
+     * @param compactionThreshold the ratio of dead bytes in the sealed segments of a log that triggers a compaction
+     * @param compactionInterval  how often logs are checked for compaction
+     */
+    public LogStore(Path directory, int segmentSize, boolean syncOnWrite, double compactionThreshold, Duration compactionInterval) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnWrite = syncOnWrite;
+        this.compactionThreshold = compactionThreshold;
+        this.logs = new CopyOnWriteArrayList<>();
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "elepy-log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.compactor.scheduleWithFixedDelay(this::compact, compactionInterval.toMillis(), compactionInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public LogStore(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, false, DEFAULT_COMPACTION_THRESHOLD, DEFAULT_COMPACTION_INTERVAL);
+    }
+
+    SegmentLog logFor(String slug) {
+        final SegmentLog log = new SegmentLog(directory.resolve(slug.replaceAll("[^A-Za-z0-9_-]", "")), segmentSize, syncOnWrite);
+        logs.add(log);
+        return log;
+    }
+
+    /**
+     * Compacts every log whose sealed segments have too many dead records.
+     */
+    public void compact() {
+        for (SegmentLog log : logs) {
+            try {
+                log.compact(compactionThreshold);
+            } catch (RuntimeException e) {
+                logger.error("Failed to compact a segment log", e);
+            }
+        }
+    }
+
+    /**
+     * Stops compacting and flushes every log to disk.
+     */
+    public void close() {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logs.forEach(SegmentLog::close);
+    }
+}
@@ -0,0 +1,179 @@
+package com.elepy.basic;
+
+import com.elepy.dao.Crud;
+import com.elepy.dao.Page;
+import com.elepy.dao.PageSettings;
+import com.elepy.dao.Query;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.models.Model;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A persistent {@link Crud} that needs no external database. Every write is appended to a {@link SegmentLog} before
+ * it is applied to an in-memory {@link BasicCrud}, which answers all the reads.
+ * <p>
+ * On startup the log is replayed: only the latest version of every item is deserialized, in parallel, and loaded
+ * into memory in bulk.
+ *
+ * @param <T> The type of the Model
+ */
+public class LogStructuredCrud<T> implements Crud<T> {
+
+    private final BasicCrud<T> memory;
+    private final SegmentLog log;
+
+    private final Object writeLock = new Object();
+
+    LogStructuredCrud(Model<T> model, ObjectMapper objectMapper, SegmentLog log) {
+        this.memory = new BasicCrud<>(model, objectMapper);
+        this.log = log;
+
+        memory.create(log.values().parallelStream().map(this::deserialize).collect(Collectors.toList()));
+    }
+
+    private static String keyOf(Serializable id) {
+        if (id instanceof Number) {
+            return String.valueOf(((Number) id).longValue());
+        }
+        return String.valueOf(id);
+    }
+
+    @Override
+    public Page<T> search(Query query, PageSettings settings) {
+        return memory.search(query, settings);
+    }
+
+    @Override
+    public Stream<T> stream(Query query, PageSettings settings) {
+        return memory.stream(query, settings);
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id) {
+        return memory.getById(id);
+    }
+
+    @Override
+    public List<T> getByIds(Iterable<Serializable> ids) {
+        return memory.getByIds(ids);
+    }
+
+    @Override
+    public List<T> searchInField(Field field, String qry) {
+        return memory.searchInField(field, qry);
+    }
+
+    @Override
+    public void update(T item) {
+        update(Collections.singletonList(item));
+    }
+
+    @Override
+    public void update(Iterable<T> items) {
+        synchronized (writeLock) {
+            final List<T> existing = new ArrayList<>();
+            for (T item : items) {
+                if (memory.getById(getId(item)).isPresent()) {
+                    existing.add(item);
+                }
+            }
+            log.put(serialize(existing));
+            memory.update(existing);
+        }
+    }
+
+    @Override
+    public void create(T item) {
+        create(Collections.singletonList(item));
+    }
+
+    @Override
+    public void create(Iterable<T> items) {
+        synchronized (writeLock) {
+            final Map<String, byte[]> records = new LinkedHashMap<>();
+            final List<T> toCreate = new ArrayList<>();
+
+            for (T item : items) {
+                final Serializable id = getId(item);
+                if (memory.getById(id).isPresent() || records.containsKey(keyOf(id))) {
+                    throw new ElepyException("Duplicate ID's", 400);
+                }
+                records.put(keyOf(id), serialize(item));
+                toCreate.add(item);
+            }
+            log.put(records);
+            memory.create(toCreate);
+        }
+    }
+
+    @Override
+    public List<T> getAll() {
+        return memory.getAll();
+    }
+
+    @Override
+    public void deleteById(Serializable id) {
+        delete(Collections.singletonList(id));
+    }
+
+    @Override
+    public void delete(Iterable<Serializable> ids) {
+        synchronized (writeLock) {
+            final List<Serializable> toDelete = new ArrayList<>();
+            ids.forEach(toDelete::add);
+
+            log.delete(toDelete.stream().map(LogStructuredCrud::keyOf).collect(Collectors.toList()));
+            memory.delete(toDelete);
+        }
+    }
+
+    @Override
+    public long count(String query) {
+        return memory.count(query);
+    }
+
+    @Override
+    public long count(Query query) {
+        return memory.count(query);
+    }
+
+    @Override
+    public Model<T> getModel() {
+        return memory.getModel();
+    }
+
+    @Override
+    public ObjectMapper getObjectMapper() {
+        return memory.getObjectMapper();
+    }
+
+    private Map<String, byte[]> serialize(List<T> items) {
+        final Map<String, byte[]> records = new LinkedHashMap<>();
+        items.forEach(item -> records.put(keyOf(getId(item)), serialize(item)));
+        return records;
+    }
+
+    private byte[] serialize(T item) {
+        try {
+            return getObjectMapper().writeValueAsBytes(item);
+        } catch (JsonProcessingException e) {
+            throw new ElepyException("Failed to serialize " + getModel().getName(), 500, e);
+        }
+    }
+
+    private T deserialize(byte[] value) {
+        try {
+            return getObjectMapper().readValue(value, getType());
+        } catch (IOException e) {
+            throw new ElepyException("Failed to read a stored " + getModel().getName(), 500, e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.elepy.basic;
+
+import com.elepy.annotations.Inject;
+import com.elepy.dao.Crud;
+import com.elepy.dao.CrudFactory;
+import com.elepy.models.Model;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * A {@link CrudFactory} that persists every model in a {@link LogStore} with a {@link LogStructuredCrud}.
+ */
+public class LogStructuredCrudFactory implements CrudFactory {
+
+    @Inject
+    private LogStore logStore;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Override
+    public <T> Crud<T> crudFor(Model<T> model) {
+        return new LogStructuredCrud<>(model, objectMapper, logStore.logFor(model.getSlug()));
+    }
+}
@@ -0,0 +1,189 @@
+package com.elepy.basic;
+
+import com.elepy.dao.FilterType;
+import com.elepy.dao.SortOption;
+import com.elepy.exceptions.ElepyException;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A sorted secondary index on a single property of a model. Maps every distinct (normalized) value of the
+ * property to the ids of the items that hold it.
+ * <p>
+ * This class is not thread-safe on its own, {@link BasicCrud} guards it with a read/write lock.
+ */
+class PropertyIndex {
+
+    private final Field field;
+
+    private final NavigableMap<Comparable, Set<Serializable>> index;
+    private final Set<Serializable> nullValues;
+    private final Map<Serializable, Comparable> keysById;
+
+    PropertyIndex(Field field) {
+        this.field = field;
+        this.field.setAccessible(true);
+        this.index = new TreeMap<>();
+        this.nullValues = new TreeSet<>();
+        this.keysById = new HashMap<>();
+    }
+
+    /**
+     * Normalizes a property value into a key that can be compared with keys of the same property.
+     * Numbers are compared by value regardless of their type, enums by name.
+     */
+    static Comparable toKey(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            try {
+                return new BigDecimal(value.toString());
+            } catch (NumberFormatException e) {
+                return value.toString();
+            }
+        }
+        if (value instanceof Enum) {
+            return ((Enum) value).name();
+        }
+        if (value instanceof Comparable) {
+            return (Comparable) value;
+        }
+        return String.valueOf(value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static int compare(Comparable a, Comparable b) {
+        if (a == null || b == null) {
+            return a == null ? (b == null ? 0 : -1) : 1;
+        }
+        if (!a.getClass().equals(b.getClass())) {
+            return a.toString().compareTo(b.toString());
+        }
+        return a.compareTo(b);
+    }
+
+    static Object valueOf(Field field, Object item) {
+        try {
+            return field.get(item);
+        } catch (IllegalAccessException e) {
+            throw new ElepyException("Can't reflectively access " + field.getName(), 500, e);
+        }
+    }
+
+    void add(Serializable id, Object item) {
+        final Comparable key = toKey(valueOf(field, item));
+
+        keysById.put(id, key);
+        if (key == null) {
+            nullValues.add(id);
+        } else {
+            // Ids are kept sorted, so that items with equal values are always walked in the same order
+            index.computeIfAbsent(key, k -> new TreeSet<>()).add(id);
+        }
+    }
+
+    void remove(Serializable id) {
+        if (!keysById.containsKey(id)) {
+            return;
+        }
+        final Comparable key = keysById.remove(id);
+
+        if (key == null) {
+            nullValues.remove(id);
+        } else {
+            final Set<Serializable> ids = index.get(key);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                index.remove(key);
+            }
+        }
+    }
+
+    Comparable keyOf(Serializable id) {
+        return keysById.get(id);
+    }
+
+    Set<Serializable> equalTo(Comparable key) {
+        if (key == null) {
+            return new HashSet<>(nullValues);
+        }
+        if (!isComparableWithKeys(key)) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(index.getOrDefault(key, Collections.emptySet()));
+    }
+
+    Set<Serializable> containing(String term) {
+        final String lowerCaseTerm = term.toLowerCase();
+
+        return index.entrySet().stream()
+                .filter(entry -> entry.getKey().toString().toLowerCase().contains(lowerCaseTerm))
+                .flatMap(entry -> entry.getValue().stream())
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Resolves a filter against this index.
+     *
+     * @return the matching ids
+     */
+    Set<Serializable> lookup(FilterType filterType, Comparable key, String rawValue) {
+        switch (filterType) {
+            case EQUALS:
+                return equalTo(key);
+            case NOT_EQUALS:
+                final Set<Serializable> notEqual = new HashSet<>(keysById.keySet());
+                notEqual.removeAll(equalTo(key));
+                return notEqual;
+            case CONTAINS:
+                return containing(rawValue);
+            default:
+                return range(filterType, key);
+        }
+    }
+
+    private Set<Serializable> range(FilterType filterType, Comparable key) {
+        if (key == null || !isComparableWithKeys(key)) {
+            return new HashSet<>();
+        }
+        final NavigableMap<Comparable, Set<Serializable>> subMap;
+        switch (filterType) {
+            case GREATER_THAN:
+                subMap = index.tailMap(key, false);
+                break;
+            case GREATER_THAN_OR_EQUALS:
+                subMap = index.tailMap(key, true);
+                break;
+            case LESSER_THAN:
+                subMap = index.headMap(key, false);
+                break;
+            case LESSER_THAN_OR_EQUALS:
+                subMap = index.headMap(key, true);
+                break;
+            default:
+                throw new ElepyException("The in-memory index does not support: " + filterType.getName());
+        }
+        return subMap.values().stream().flatMap(Set::stream).collect(Collectors.toSet());
+    }
+
+    /**
+     * @return all the ids in this index, ordered by the value of the property and then by id. Null values come first
+     * when ascending.
+     */
+    Stream<Serializable> idsInOrder(SortOption sortOption) {
+        if (sortOption.equals(SortOption.DESCENDING)) {
+            return Stream.concat(index.descendingMap().values().stream().flatMap(Set::stream), nullValues.stream());
+        }
+        return Stream.concat(nullValues.stream(), index.values().stream().flatMap(Set::stream));
+    }
+
+    private boolean isComparableWithKeys(Comparable key) {
+        return index.isEmpty() || index.firstKey().getClass().equals(key.getClass());
+    }
+}
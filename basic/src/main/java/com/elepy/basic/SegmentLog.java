@@ -0,0 +1,446 @@
+package com.elepy.basic;
+
+import com.elepy.exceptions.ElepyException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only log of key/value records spread over memory-mapped segment files. Only the last segment is written
+ * to, older segments are sealed and get merged by {@link #compact(double)} once enough of their records are dead.
+ * <p>
+ * Every record is laid out as {@code [length][crc32][type][key length][key][value]}. A record with a zero length or a
+ * bad checksum marks the end of a segment, so a write that was torn by a crash is simply ignored on the next replay.
+ * <p>
+ * Records are written to the mapped pages, which survive a crash of the process. Set {@code syncOnWrite} to also
+ * survive a crash of the operating system, at the cost of a disk flush per write.
+ */
+class SegmentLog {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String COMPACTION_SUFFIX = ".compact";
+    private static final String MANIFEST = "compaction.manifest";
+    private static final String MANIFEST_TEMP = MANIFEST + ".tmp";
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+
+    // crc + type + key length
+    private static final int RECORD_OVERHEAD = Integer.BYTES + Byte.BYTES + Short.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final boolean syncOnWrite;
+
+    private final List<Segment> segments;
+    private final Map<String, Location> offsetIndex;
+    private final ReentrantLock lock;
+
+    /**
+     * Runs after the merged segment took the place of the oldest sealed segment, before the other sealed segments are
+     * deleted. Only tests set it, to crash a compaction there.
+     */
+    Runnable afterSwap = () -> {
+    };
+
+    SegmentLog(Path directory, int segmentSize, boolean syncOnWrite) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.syncOnWrite = syncOnWrite;
+        this.segments = new ArrayList<>();
+        this.offsetIndex = new HashMap<>();
+        this.lock = new ReentrantLock();
+
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new ElepyException("Can't open the segment log in " + directory, 500, e);
+        }
+    }
+
+    /**
+     * Scans every segment once, in order, and rebuilds the offset index. Values are not read here, only the record
+     * headers and keys, so values that were overwritten later on are never looked at.
+     */
+    private void open() throws IOException {
+        finishCompaction();
+
+        try (Stream<Path> leftovers = Files.list(directory)) {
+            for (Path leftover : leftovers.filter(path -> path.toString().endsWith(COMPACTION_SUFFIX)).collect(Collectors.toList())) {
+                Files.delete(leftover);
+            }
+        }
+
+        final List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(path -> path.toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingLong(SegmentLog::segmentId))
+                    .collect(Collectors.toList());
+        }
+
+        for (Path path : paths) {
+            final Segment segment = Segment.map(segmentId(path), path, Files.size(path));
+            segments.add(segment);
+            replay(segment);
+        }
+
+        if (segments.isEmpty()) {
+            roll(segmentSize);
+        }
+    }
+
+    /**
+     * Finishes a compaction that was interrupted after its manifest was written. The manifest is written once the
+     * merged segment is complete, and names the segment the merged one replaces and the sealed segments it makes
+     * obsolete. Replaying those sealed segments would bring back values the merged segment had overwritten.
+     * <p>
+     * A compaction that was interrupted before its manifest was written left only a '.compact' file, which is deleted.
+     */
+    private void finishCompaction() throws IOException {
+        Files.deleteIfExists(directory.resolve(MANIFEST_TEMP));
+
+        final Path manifestPath = directory.resolve(MANIFEST);
+        if (!Files.exists(manifestPath)) {
+            return;
+        }
+        final List<String> manifest = Files.readAllLines(manifestPath, StandardCharsets.UTF_8);
+        final long mergedId = Long.parseLong(manifest.get(0).trim());
+
+        final Path compactionPath = directory.resolve(mergedId + COMPACTION_SUFFIX);
+        if (Files.exists(compactionPath)) {
+            Files.move(compactionPath, directory.resolve(mergedId + SEGMENT_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        for (String obsolete : manifest.get(1).trim().split(" ")) {
+            if (!obsolete.isEmpty()) {
+                Files.deleteIfExists(directory.resolve(obsolete + SEGMENT_SUFFIX));
+            }
+        }
+        Files.delete(manifestPath);
+    }
+
+    /**
+     * Writes the manifest of a compaction atomically, it is the point from which the compaction has to be finished.
+     */
+    private void writeManifest(long mergedId, List<Segment> obsolete) throws IOException {
+        final Path temp = directory.resolve(MANIFEST_TEMP);
+        final String manifest = mergedId + "\n" + obsolete.stream().map(segment -> String.valueOf(segment.id)).collect(Collectors.joining(" ")) + "\n";
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(manifest.getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void replay(Segment segment) {
+        final ByteBuffer buffer = segment.buffer.duplicate();
+
+        int position = 0;
+        while (position + Integer.BYTES <= buffer.capacity()) {
+            final int length = buffer.getInt(position);
+
+            if (length < RECORD_OVERHEAD || position + Integer.BYTES + length > buffer.capacity()) {
+                break;
+            }
+
+            final int crc = buffer.getInt(position + Integer.BYTES);
+            if (crc != checksum(buffer, position + 2 * Integer.BYTES, length - Integer.BYTES)) {
+                break;
+            }
+
+            final Location location = new Location(segment, position, Integer.BYTES + length);
+            final byte type = buffer.get(location.typePosition());
+            final String key = location.readKey();
+
+            if (type == PUT) {
+                supersede(offsetIndex.put(key, location));
+            } else {
+                supersede(offsetIndex.remove(key));
+                segment.deadBytes += location.size;
+            }
+            position += location.size;
+        }
+        segment.writePosition = position;
+    }
+
+    /**
+     * @return the values of every live record, in no particular order
+     */
+    List<byte[]> values() {
+        lock.lock();
+        try {
+            return offsetIndex.values().stream().map(Location::readValue).collect(Collectors.toList());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void put(Map<String, byte[]> records) {
+        lock.lock();
+        try {
+            records.forEach((key, value) -> supersede(offsetIndex.put(key, append(PUT, key, value))));
+            sync();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void delete(Collection<String> keys) {
+        lock.lock();
+        try {
+            for (String key : keys) {
+                final Location location = offsetIndex.remove(key);
+                if (location != null) {
+                    supersede(location);
+
+                    // Tombstones are dropped by the next compaction
+                    final Location tombstone = append(DELETE, key, new byte[0]);
+                    tombstone.segment.deadBytes += tombstone.size;
+                }
+            }
+            sync();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Location append(byte type, String key, byte[] value) {
+        final byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > 0xFFFF) {
+            throw new ElepyException("ID is too long to be stored", 400);
+        }
+        final int length = RECORD_OVERHEAD + keyBytes.length + value.length;
+        final int size = Integer.BYTES + length;
+
+        Segment active = segments.get(segments.size() - 1);
+        if (active.remaining() < size) {
+            active = roll(Math.max(segmentSize, size));
+        }
+
+        final int position = active.writePosition;
+        final ByteBuffer buffer = active.buffer.duplicate();
+        buffer.position(position + 2 * Integer.BYTES);
+        buffer.put(type);
+        buffer.putShort((short) keyBytes.length);
+        buffer.put(keyBytes);
+        buffer.put(value);
+
+        buffer.putInt(position + Integer.BYTES, checksum(buffer, position + 2 * Integer.BYTES, length - Integer.BYTES));
+        // The length goes in last, a record without one is never replayed
+        buffer.putInt(position, length);
+
+        active.writePosition += size;
+        return new Location(active, position, size);
+    }
+
+    private Segment roll(int capacity) {
+        final long id = segments.isEmpty() ? 1 : segments.get(segments.size() - 1).id + 1;
+        try {
+            final Segment segment = Segment.map(id, directory.resolve(id + SEGMENT_SUFFIX), capacity);
+            segments.add(segment);
+            return segment;
+        } catch (IOException e) {
+            throw new ElepyException("Can't create a new log segment in " + directory, 500, e);
+        }
+    }
+
+    private void supersede(Location previous) {
+        if (previous != null) {
+            previous.segment.deadBytes += previous.size;
+        }
+    }
+
+    private void sync() {
+        if (syncOnWrite) {
+            segments.get(segments.size() - 1).buffer.force();
+        }
+    }
+
+    /**
+     * Merges the live records of all sealed segments into a single segment, when the ratio of dead bytes in the sealed
+     * segments exceeds the threshold. Writes can continue while the live records are copied, only the final swap of
+     * the segment files holds the lock.
+     * <p>
+     * The merged segment takes the place of the oldest sealed segment, so it is always replayed before anything that
+     * was written during the compaction. A manifest is written before the segment files are swapped, so that a crash
+     * during the swap is finished on the next open instead of replaying stale sealed segments.
+     *
+     * @return true if the log was compacted
+     */
+    boolean compact(double threshold) {
+        final List<Segment> sealed;
+        final Map<String, Location> live;
+
+        lock.lock();
+        try {
+            sealed = new ArrayList<>(segments.subList(0, segments.size() - 1));
+
+            final long written = sealed.stream().mapToLong(segment -> segment.writePosition).sum();
+            final long dead = sealed.stream().mapToLong(segment -> segment.deadBytes).sum();
+
+            if (sealed.isEmpty() || written == 0 || (double) dead / written < threshold) {
+                return false;
+            }
+
+            final Set<Segment> sealedSet = new HashSet<>(sealed);
+            live = offsetIndex.entrySet().stream()
+                    .filter(entry -> sealedSet.contains(entry.getValue().segment))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            final Segment first = sealed.get(0);
+            final Path compactionPath = directory.resolve(first.id + COMPACTION_SUFFIX);
+            final int capacity = Math.max(1, live.values().stream().mapToInt(location -> location.size).sum());
+
+            final Segment merged = Segment.map(first.id, compactionPath, capacity);
+            final Map<String, Location> moved = new HashMap<>();
+
+            // Sealed segments are never written to again, so they can be read without the lock
+            for (Map.Entry<String, Location> entry : live.entrySet()) {
+                final Location from = entry.getValue();
+                final ByteBuffer source = from.segment.buffer.duplicate();
+                source.position(from.position).limit(from.position + from.size);
+
+                final ByteBuffer target = merged.buffer.duplicate();
+                target.position(merged.writePosition);
+                target.put(source);
+
+                moved.put(entry.getKey(), new Location(merged, merged.writePosition, from.size));
+                merged.writePosition += from.size;
+            }
+            merged.buffer.force();
+
+            lock.lock();
+            try {
+                moved.forEach((key, location) -> {
+                    if (offsetIndex.get(key) == live.get(key)) {
+                        offsetIndex.put(key, location);
+                    } else {
+                        // Overwritten or deleted while compacting
+                        merged.deadBytes += location.size;
+                    }
+                });
+
+                final List<Segment> obsolete = sealed.subList(1, sealed.size());
+                writeManifest(first.id, obsolete);
+
+                Files.move(compactionPath, first.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                merged.path = first.path;
+                afterSwap.run();
+
+                for (Segment segment : obsolete) {
+                    Files.deleteIfExists(segment.path);
+                }
+                Files.delete(directory.resolve(MANIFEST));
+
+                segments.removeAll(sealed);
+                segments.add(0, merged);
+            } finally {
+                lock.unlock();
+            }
+            return true;
+        } catch (IOException e) {
+            throw new ElepyException("Failed to compact the segment log in " + directory, 500, e);
+        }
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            segments.forEach(segment -> segment.buffer.force());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long segmentId(Path path) {
+        final String fileName = path.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.indexOf('.')));
+    }
+
+    private static int checksum(ByteBuffer buffer, int position, int length) {
+        final ByteBuffer slice = buffer.duplicate();
+        slice.position(position).limit(position + length);
+
+        final CRC32 crc32 = new CRC32();
+        crc32.update(slice);
+        return (int) crc32.getValue();
+    }
+
+    private static class Segment {
+        private final long id;
+        private final MappedByteBuffer buffer;
+        private Path path;
+        private int writePosition;
+        private long deadBytes;
+
+        private Segment(long id, Path path, MappedByteBuffer buffer) {
+            this.id = id;
+            this.path = path;
+            this.buffer = buffer;
+        }
+
+        private static Segment map(long id, Path path, long capacity) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return new Segment(id, path, channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity));
+            }
+        }
+
+        private int remaining() {
+            return buffer.capacity() - writePosition;
+        }
+    }
+
+    private static class Location {
+        private final Segment segment;
+        private final int position;
+        private final int size;
+
+        private Location(Segment segment, int position, int size) {
+            this.segment = segment;
+            this.position = position;
+            this.size = size;
+        }
+
+        private int typePosition() {
+            return position + 2 * Integer.BYTES;
+        }
+
+        private int keyLength() {
+            return segment.buffer.getShort(typePosition() + Byte.BYTES) & 0xFFFF;
+        }
+
+        private int keyPosition() {
+            return typePosition() + Byte.BYTES + Short.BYTES;
+        }
+
+        private String readKey() {
+            final byte[] key = new byte[keyLength()];
+            segment.buffer.duplicate().position(keyPosition()).get(key);
+            return new String(key, StandardCharsets.UTF_8);
+        }
+
+        private byte[] readValue() {
+            final int valuePosition = keyPosition() + keyLength();
+            final byte[] value = new byte[position + size - valuePosition];
+            segment.buffer.duplicate().position(valuePosition).get(value);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.elepy.basic;
+
+import com.elepy.tests.basic.BasicFunctionalityTest;
+
+public class BasicCrudFunctionalityTest extends BasicFunctionalityTest {
+    public BasicCrudFunctionalityTest() {
+        super(BasicConfiguration.inMemory());
+    }
+}
@@ -0,0 +1,12 @@
+package com.elepy.basic;
+
+import com.elepy.tests.basic.BasicFunctionalityTest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+
+public class LogStructuredCrudFunctionalityTest extends BasicFunctionalityTest {
+    public LogStructuredCrudFunctionalityTest() throws IOException {
+        super(BasicConfiguration.persistent(Files.createTempDirectory("elepy-log-store")));
+    }
+}
@@ -0,0 +1,106 @@
+package com.elepy.basic;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentLogTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("elepy-segment-log");
+    }
+
+    @Test
+    void can_ReplayLatestValues_after_Reopening() {
+        final SegmentLog log = new SegmentLog(directory, 128, false);
+
+        log.put(Map.of("1", bytes("first"), "2", bytes("second")));
+        log.put(Map.of("1", bytes("first-updated")));
+        log.delete(List.of("2"));
+        log.close();
+
+        assertEquals(List.of("first-updated"), values(new SegmentLog(directory, 128, false)));
+    }
+
+    @Test
+    void can_RollSegments_when_SegmentIsFull() throws IOException {
+        final SegmentLog log = new SegmentLog(directory, 64, false);
+
+        for (int i = 0; i < 10; i++) {
+            log.put(Map.of(String.valueOf(i), bytes("value-" + i)));
+        }
+
+        assertTrue(segmentFiles().size() > 1);
+        assertEquals(10, values(new SegmentLog(directory, 64, false)).size());
+    }
+
+    @Test
+    void can_CompactDeadRecords_without_LosingLiveOnes() throws IOException {
+        final SegmentLog log = new SegmentLog(directory, 64, false);
+
+        for (int i = 0; i < 10; i++) {
+            log.put(Map.of("key", bytes("value-" + i)));
+        }
+        log.put(Map.of("other", bytes("other")));
+        final int segmentsBefore = segmentFiles().size();
+
+        assertTrue(log.compact(0.5));
+        assertTrue(segmentFiles().size() < segmentsBefore);
+        assertFalse(log.compact(0.5));
+
+        log.put(Map.of("key", bytes("after-compaction")));
+        log.close();
+
+        assertEquals(List.of("after-compaction", "other"), values(new SegmentLog(directory, 64, false)));
+    }
+
+    @Test
+    void can_FinishCompaction_after_CrashDuringSwap() {
+        final SegmentLog log = new SegmentLog(directory, 64, false);
+
+        for (int i = 0; i < 10; i++) {
+            log.put(Map.of("key", bytes("value-" + i)));
+        }
+        log.put(Map.of("deleted", bytes("deleted")));
+        log.delete(List.of("deleted"));
+        log.put(Map.of("other", bytes("other")));
+
+        // The merged segment replaced the oldest one, the other sealed segments are still there
+        log.afterSwap = () -> {
+            throw new IllegalStateException("crash");
+        };
+        assertThrows(IllegalStateException.class, () -> log.compact(0.5));
+
+        assertEquals(List.of("other", "value-9"), values(new SegmentLog(directory, 64, false)));
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static List<String> values(SegmentLog log) {
+        return log.values().stream().map(value -> new String(value, StandardCharsets.UTF_8)).sorted().collect(Collectors.toList());
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -8,15 +8,18 @@ import com.elepy.auth.UserLoginService;
 import com.elepy.auth.methods.BasicAuthenticationMethod;
 import com.elepy.auth.methods.TokenAuthenticationMethod;
 import com.elepy.dao.CrudFactory;
+import com.elepy.dao.ExecutorAsyncCrud;
 import com.elepy.di.ContextKey;
 import com.elepy.di.DefaultElepyContext;
 import com.elepy.di.ElepyContext;
 import com.elepy.evaluators.DefaultObjectEvaluator;
+import com.elepy.events.ChangeEventBus;
 import com.elepy.evaluators.ObjectEvaluator;
 import com.elepy.exceptions.ElepyConfigException;
 import com.elepy.exceptions.ElepyErrorMessage;
 import com.elepy.exceptions.ErrorMessageBuilder;
 import com.elepy.exceptions.Message;
+import com.elepy.http.Compression;
 import com.elepy.http.HttpService;
 import com.elepy.http.MultiFilter;
 import com.elepy.http.Route;
@@ -39,6 +42,7 @@ import spark.Service;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 
 /**
  * The base Elepy class. Call {@link #start()} to start the configuration and execution of
@@ -65,6 +69,9 @@ public class Elepy implements ElepyContext {
 
     private List<Configuration> configurations;
     private List<EventHandler> stopEventHandlers;
+    private ExecutorService asyncExecutor;
+    private boolean ownsAsyncExecutor;
+    private final ChangeEventBus changeEvents;
 
     public Elepy() {
         this(Service.ignite().port(1337));
@@ -90,6 +97,8 @@ public class Elepy implements ElepyContext {
 
         withBaseEvaluator(new DefaultObjectEvaluator());
         registerDependency(ObjectMapper.class, new ObjectMapper());
+        this.changeEvents = new ChangeEventBus();
+        registerDependency(ChangeEventBus.class, changeEvents);
         withFileService(new DefaultFileService());
         objectMapper()
                 .enable(DeserializationFeature.READ_UNKNOWN_ENUM_VALUES_USING_DEFAULT_VALUE)
@@ -116,6 +125,11 @@ public class Elepy implements ElepyContext {
     public final void stop() {
         http.stop();
         stopEventHandlers.forEach(EventHandler::handle);
+
+        if (ownsAsyncExecutor) {
+            asyncExecutor.shutdown();
+        }
+        changeEvents.close();
     }
 
     /**
@@ -447,6 +461,40 @@ public class Elepy implements ElepyContext {
         return this;
     }
 
+    /**
+     * Changes the executor that blocking Crud calls run on when they are used asynchronously. By default this is a
+     * {@link ExecutorAsyncCrud#boundedExecutor(int, int) bounded executor} that Elepy shuts down when it stops.
+     *
+     * @param asyncExecutor the executor
+     * @return The {@link com.elepy.Elepy} instance
+     * @see com.elepy.dao.AsyncCrud
+     */
+    public Elepy withAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        this.ownsAsyncExecutor = false;
+        return this;
+    }
+
+    /**
+     * @return The executor that blocking Crud calls run on when they are used asynchronously
+     * @see #withAsyncExecutor(ExecutorService)
+     */
+    public ExecutorService asyncExecutor() {
+        if (asyncExecutor == null) {
+            asyncExecutor = ExecutorAsyncCrud.boundedExecutor(ExecutorAsyncCrud.DEFAULT_THREADS, ExecutorAsyncCrud.DEFAULT_QUEUE_SIZE);
+            ownsAsyncExecutor = true;
+        }
+        return asyncExecutor;
+    }
+
+    /**
+     * @return The bus that the writes to all models are published on
+     * @see ChangeEventBus
+     */
+    public ChangeEventBus changeEvents() {
+        return changeEvents;
+    }
+
     /**
      * @return The Default CrudFactory of Elepy. The Default CrudFactory is what creates Crud's for Elepy's models.
      */
@@ -461,6 +509,18 @@ public class Elepy implements ElepyContext {
         return defaultCrudFactoryImplementation;
     }
 
+    /**
+     * Compresses responses with gzip for clients that accept it, see {@link Compression} for the options.
+     *
+     * @param compression the compression, like Compression.gzip().minSize(2048)
+     * @return The {@link com.elepy.Elepy} instance
+     */
+    public Elepy withCompression(Compression compression) {
+        checkConfig();
+        http.compression(compression);
+        return this;
+    }
+
     /**
      * Changes the IP address of the Elepy instance.
      *
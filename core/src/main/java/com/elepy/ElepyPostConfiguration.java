@@ -4,6 +4,7 @@ import com.elepy.annotations.RestModel;
 import com.elepy.dao.Crud;
 import com.elepy.di.ElepyContext;
 import com.elepy.evaluators.ObjectEvaluator;
+import com.elepy.events.ChangeEventBus;
 import com.elepy.http.Route;
 import com.elepy.models.Model;
 import com.elepy.models.ModelChange;
@@ -42,6 +43,13 @@ public class ElepyPostConfiguration {
         return elepy.objectMapper();
     }
 
+    /**
+     * @return The bus that the writes to all models are published on
+     */
+    public ChangeEventBus getChangeEvents() {
+        return elepy.changeEvents();
+    }
+
     /**
      * Attaches a context object to the void instance. This object would then later be used
      * in Elepy. An example can be an EmailService, or a SessionFactory. The most important
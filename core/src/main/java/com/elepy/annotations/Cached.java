@@ -0,0 +1,29 @@
+package com.elepy.annotations;
+
+import com.elepy.dao.CachingCrud;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Wraps the Crud of this {@link RestModel} in a {@link CachingCrud}, so that reads are served from memory until the
+ * model changes. Writes must go through Elepy for the cache to stay fresh.
+ *
+ * @see CachingCrud
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface Cached {
+
+    /**
+     * @return How long an item or search result can be served from the cache, in seconds
+     */
+    long expireAfterSeconds() default 60;
+
+    /**
+     * @return The maximum amount of model items to hold in memory. Every item of a cached page counts.
+     */
+    long maximumSize() default 10_000;
+}
@@ -0,0 +1,21 @@
+package com.elepy.annotations;
+
+import com.elepy.evaluators.IntegrityMode;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sets how the uniqueness of the items of this {@link RestModel} is guarded. Models without this annotation are
+ * {@link IntegrityMode#CHECKED}.
+ *
+ * @see IntegrityMode
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface Integrity {
+
+    IntegrityMode value();
+}
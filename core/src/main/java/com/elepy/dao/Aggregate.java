@@ -0,0 +1,77 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+
+import java.util.Objects;
+
+/**
+ * A value that is computed for every group of an {@link Aggregation}, like the amount of items or the sum of a
+ * property.
+ */
+public class Aggregate {
+
+    private final AggregateFunction function;
+    private final String property;
+
+    public Aggregate(AggregateFunction function, String property) {
+        if (function.needsProperty() && (property == null || property.isEmpty())) {
+            throw new ElepyException(String.format("%s needs a property", function.name().toLowerCase()), 400);
+        }
+        this.function = function;
+        this.property = function.needsProperty() ? property : null;
+    }
+
+    public static Aggregate count() {
+        return new Aggregate(AggregateFunction.COUNT, null);
+    }
+
+    public static Aggregate of(AggregateFunction function, String property) {
+        return new Aggregate(function, property);
+    }
+
+    /**
+     * Parses an aggregate like 'count' or 'sum:price'.
+     */
+    public static Aggregate parse(String s) {
+        final String[] split = s.split(":", 2);
+
+        return new Aggregate(AggregateFunction.get(split[0].trim()), split.length > 1 ? split[1].trim() : null);
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    /**
+     * @return the aggregated property, or null for {@link AggregateFunction#COUNT}
+     */
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * @return the name of the value in an {@link AggregationBucket}, like 'count' or 'sum_price'
+     */
+    public String getName() {
+        final String name = function.name().toLowerCase();
+        return property == null ? name : name + "_" + property;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Aggregate aggregate = (Aggregate) o;
+        return function == aggregate.function && Objects.equals(property, aggregate.property);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(function, property);
+    }
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+}
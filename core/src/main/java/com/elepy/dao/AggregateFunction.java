@@ -0,0 +1,37 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+
+/**
+ * The functions that an {@link Aggregate} can compute over a group of items.
+ */
+public enum AggregateFunction {
+    /**
+     * The amount of items, this needs no property.
+     */
+    COUNT,
+    SUM,
+    AVG,
+    MIN,
+    MAX;
+
+    public boolean needsProperty() {
+        return this != COUNT;
+    }
+
+    /**
+     * @return whether the function only makes sense for numbers
+     */
+    public boolean isNumeric() {
+        return this == SUM || this == AVG;
+    }
+
+    public static AggregateFunction get(String s) {
+        for (AggregateFunction function : values()) {
+            if (function.name().equalsIgnoreCase(s)) {
+                return function;
+            }
+        }
+        throw new ElepyException(String.format("Unknown aggregate function '%s'", s), 400);
+    }
+}
@@ -0,0 +1,209 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+import com.elepy.utils.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Aggregates the items that match a {@link Query}, optionally grouped by a property. A grouped date property can be
+ * put into {@link DateBucket}'s for a histogram.
+ * <p>
+ * The buckets are sorted by their key, and every bucket has the value of every {@link Aggregate}.
+ *
+ * @see Crud#aggregate(Aggregation)
+ */
+public class Aggregation {
+
+    private final Query query;
+    private final String groupBy;
+    private final DateBucket dateBucket;
+    private final List<Aggregate> aggregates;
+
+    /**
+     * @param groupBy    the property to group by, or null to aggregate all items at once
+     * @param dateBucket the buckets of the grouped date property, or null to group by the exact value
+     */
+    public Aggregation(Query query, String groupBy, DateBucket dateBucket, List<Aggregate> aggregates) {
+        if (dateBucket != null && groupBy == null) {
+            throw new ElepyException("A date bucket needs a property to group by", 400);
+        }
+        this.query = query;
+        this.groupBy = groupBy;
+        this.dateBucket = dateBucket;
+        this.aggregates = aggregates.isEmpty() ? List.of(Aggregate.count()) : aggregates.stream().distinct().collect(Collectors.toList());
+    }
+
+    public Query getQuery() {
+        return query;
+    }
+
+    public String getGroupBy() {
+        return groupBy;
+    }
+
+    public boolean hasGroupBy() {
+        return groupBy != null;
+    }
+
+    public DateBucket getDateBucket() {
+        return dateBucket;
+    }
+
+    public List<Aggregate> getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * Checks that the properties exist on the model, and that they can be aggregated the way they are asked to.
+     *
+     * @throws ElepyException with status 400 otherwise
+     */
+    public void validate(Class<?> cls) {
+        if (groupBy != null) {
+            final Field field = field(cls, groupBy);
+            if (dateBucket != null && !Date.class.isAssignableFrom(field.getType())) {
+                throw new ElepyException(String.format("'%s' is not a date", groupBy), 400);
+            }
+        }
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.getProperty() == null) {
+                continue;
+            }
+            final Field field = field(cls, aggregate.getProperty());
+            if (aggregate.getFunction().isNumeric() && !isNumeric(field.getType())) {
+                throw new ElepyException(String.format("Can't %s '%s', it is not a number", aggregate.getFunction().name().toLowerCase(), aggregate.getProperty()), 400);
+            }
+        }
+    }
+
+    private static Field field(Class<?> cls, String property) {
+        final Field field = ReflectionUtils.getPropertyField(cls, property);
+        if (field == null) {
+            throw new ElepyException(String.format("No properties titled '%s'", property), 400);
+        }
+        return field;
+    }
+
+    private static boolean isNumeric(Class<?> type) {
+        return Number.class.isAssignableFrom(type) || (type.isPrimitive() && !type.equals(boolean.class) && !type.equals(char.class));
+    }
+
+    /**
+     * Aggregates in memory, for Crud's that can't let the database do it.
+     *
+     * @param cls   the type of the items
+     * @param items the items that match the query
+     * @return the buckets
+     */
+    public <T> List<AggregationBucket> aggregate(Class<T> cls, Stream<T> items) {
+        final Field groupField = groupBy == null ? null : accessible(field(cls, groupBy));
+        final List<Field> fields = aggregates.stream()
+                .map(aggregate -> aggregate.getProperty() == null ? null : accessible(field(cls, aggregate.getProperty())))
+                .collect(Collectors.toList());
+
+        final Map<Object, List<Accumulator>> groups = new TreeMap<>(Comparator.nullsFirst(Aggregation::compareKeys));
+        items.forEach(item -> {
+            final Object key = groupField == null ? null : key(read(groupField, item));
+            final List<Accumulator> accumulators = groups.computeIfAbsent(key, k -> aggregates.stream().map(Accumulator::new).collect(Collectors.toList()));
+
+            for (int i = 0; i < aggregates.size(); i++) {
+                accumulators.get(i).add(fields.get(i) == null ? null : read(fields.get(i), item));
+            }
+        });
+
+        // Without grouping there is always a bucket, like a count of 0
+        if (groupField == null && groups.isEmpty()) {
+            groups.put(null, aggregates.stream().map(Accumulator::new).collect(Collectors.toList()));
+        }
+
+        return groups.entrySet().stream()
+                .map(group -> {
+                    final Map<String, Object> values = new LinkedHashMap<>();
+                    group.getValue().forEach(accumulator -> values.put(accumulator.aggregate.getName(), accumulator.result()));
+                    return new AggregationBucket(group.getKey(), values);
+                })
+                .collect(Collectors.toList());
+    }
+
+    private Object key(Object value) {
+        if (dateBucket != null) {
+            return dateBucket.key((Date) value);
+        }
+        return value instanceof Enum ? ((Enum<?>) value).name() : value;
+    }
+
+    private static Field accessible(Field field) {
+        field.setAccessible(true);
+        return field;
+    }
+
+    private static Object read(Field field, Object item) {
+        try {
+            return field.get(item);
+        } catch (IllegalAccessException e) {
+            throw new ElepyException(e.getMessage(), 500, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareKeys(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        if (a instanceof Comparable && a.getClass().equals(b.getClass())) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static class Accumulator {
+        private final Aggregate aggregate;
+        private long count;
+        private BigDecimal sum = BigDecimal.ZERO;
+        private Object extreme;
+
+        private Accumulator(Aggregate aggregate) {
+            this.aggregate = aggregate;
+        }
+
+        private void add(Object value) {
+            if (aggregate.getFunction() == AggregateFunction.COUNT) {
+                count++;
+                return;
+            }
+            if (value == null) {
+                return;
+            }
+            count++;
+            switch (aggregate.getFunction()) {
+                case SUM:
+                case AVG:
+                    sum = sum.add(new BigDecimal(value.toString()));
+                    break;
+                case MIN:
+                    extreme = extreme == null || compareKeys(value, extreme) < 0 ? value : extreme;
+                    break;
+                default:
+                    extreme = extreme == null || compareKeys(value, extreme) > 0 ? value : extreme;
+            }
+        }
+
+        private Object result() {
+            switch (aggregate.getFunction()) {
+                case COUNT:
+                    return count;
+                case SUM:
+                    return sum;
+                case AVG:
+                    return count == 0 ? null : sum.doubleValue() / count;
+                default:
+                    return extreme;
+            }
+        }
+    }
+}
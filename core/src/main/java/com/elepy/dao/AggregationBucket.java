@@ -0,0 +1,29 @@
+package com.elepy.dao;
+
+import java.util.Map;
+
+/**
+ * The aggregates of one group of an {@link Aggregation}.
+ */
+public class AggregationBucket {
+
+    private final Object key;
+    private final Map<String, Object> values;
+
+    /**
+     * @param key    the value of the grouped property, the date bucket, or null when nothing is grouped
+     * @param values the aggregates, by {@link Aggregate#getName()}
+     */
+    public AggregationBucket(Object key, Map<String, Object> values) {
+        this.key = key;
+        this.values = values;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public Map<String, Object> getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,109 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+import com.elepy.models.Model;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * The non-blocking companion of {@link Crud}. Every operation returns right away with a future that completes when
+ * the database has answered, so that a thread isn't parked per database call.
+ * <p>
+ * Every Crud can be used asynchronously through {@link Crud#async(java.util.concurrent.Executor)}, which by default
+ * runs the blocking calls on a bounded executor. Crud's with a non-blocking database driver can return a native
+ * implementation instead.
+ *
+ * @param <T> The type of the Model
+ * @see ExecutorAsyncCrud
+ */
+public interface AsyncCrud<T> {
+
+    /**
+     * Waits for a future, unwrapping the exception it failed with. For the edges of an application that can't be
+     * asynchronous themselves.
+     *
+     * @return the result of the future
+     */
+    static <R> R await(CompletableFuture<R> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new ElepyException(e.getMessage(), 500, e.getCause());
+        }
+    }
+
+    /**
+     * @see Crud#getById(Serializable)
+     */
+    CompletableFuture<Optional<T>> getByIdAsync(Serializable id);
+
+    /**
+     * The default implementation loads the whole item.
+     *
+     * @see Crud#getById(Serializable, List)
+     */
+    default CompletableFuture<Optional<T>> getByIdAsync(Serializable id, List<String> fields) {
+        return getByIdAsync(id);
+    }
+
+    /**
+     * @see Crud#getByIds(Iterable)
+     */
+    CompletableFuture<List<T>> getByIdsAsync(Iterable<Serializable> ids);
+
+    /**
+     * @see Crud#search(Query, PageSettings)
+     */
+    CompletableFuture<Page<T>> searchAsync(Query query, PageSettings settings);
+
+    /**
+     * @see Crud#count(Query)
+     */
+    CompletableFuture<Long> countAsync(Query query);
+
+    /**
+     * @see Crud#create(Object)
+     */
+    CompletableFuture<Void> createAsync(T item);
+
+    /**
+     * @see Crud#create(Iterable)
+     */
+    CompletableFuture<Void> createAsync(Iterable<T> items);
+
+    /**
+     * @see Crud#update(Object)
+     */
+    CompletableFuture<Void> updateAsync(T item);
+
+    /**
+     * @see Crud#update(Iterable)
+     */
+    CompletableFuture<Void> updateAsync(Iterable<T> items);
+
+    /**
+     * @see Crud#deleteById(Serializable)
+     */
+    CompletableFuture<Void> deleteByIdAsync(Serializable id);
+
+    /**
+     * @see Crud#delete(Iterable)
+     */
+    CompletableFuture<Void> deleteAsync(Iterable<Serializable> ids);
+
+    /**
+     * @return The blocking Crud of the same model, for the operations that have no asynchronous counterpart
+     */
+    Crud<T> blocking();
+
+    default Model<T> getModel() {
+        return blocking().getModel();
+    }
+}
@@ -0,0 +1,371 @@
+package com.elepy.dao;
+
+import com.elepy.events.ChangeEvent;
+import com.elepy.events.ChangeEventBus;
+import com.elepy.events.ChangeListener;
+import com.elepy.models.Model;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A read-through cache in front of another {@link Crud}. Items are cached by ID, search results by their query and
+ * page settings. Both caches are bounded by the amount of model items they hold and evict the least recently used
+ * entries first.
+ * <p>
+ * Every write through this Crud invalidates the written items and all the cached search results, because any result
+ * can change when an item does. Writes that bypass this Crud are only picked up when the entries expire, unless the
+ * cache {@link #listenTo(ChangeEventBus) listens} to the changes of its model.
+ * <p>
+ * Cached items are shared between readers, they must not be changed without updating them.
+ *
+ * @param <T> The type of the Model
+ * @see com.elepy.annotations.Cached
+ */
+public class CachingCrud<T> implements Crud<T> {
+
+    /**
+     * Larger pages are streamed straight from the underlying Crud.
+     */
+    private static final int MAX_CACHED_STREAM_SIZE = 1000;
+
+    private final Crud<T> crud;
+
+    private final Cache<Serializable, Optional<T>> itemCache;
+    private final Cache<List<Object>, Object> resultCache;
+
+    /**
+     * Incremented after every write. A value read before a write must not be cached after it.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * @param crud        the Crud to cache
+     * @param expireAfter how long an entry can be served from the cache
+     * @param maximumSize the maximum amount of model items held by each cache
+     */
+    public CachingCrud(Crud<T> crud, Duration expireAfter, long maximumSize) {
+        this.crud = crud;
+        this.itemCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfter.toMillis(), TimeUnit.MILLISECONDS)
+                .maximumSize(maximumSize)
+                .build();
+        this.resultCache = CacheBuilder.newBuilder()
+                .expireAfterWrite(expireAfter.toMillis(), TimeUnit.MILLISECONDS)
+                .maximumWeight(maximumSize)
+                .<List<Object>, Object>weigher(CachingCrud::weigh)
+                .build();
+    }
+
+    private static int weigh(List<Object> key, Object value) {
+        if (value instanceof Page) {
+            return 1 + ((Page<?>) value).getValues().size();
+        }
+        if (value instanceof List) {
+            return 1 + ((List<?>) value).size();
+        }
+        return 1;
+    }
+
+    private static Serializable idKey(Serializable id) {
+        if (id instanceof Number) {
+            return ((Number) id).longValue();
+        }
+        return id;
+    }
+
+    private static List<Object> resultKey(String kind, Query query, PageSettings settings) {
+        final List<Object> key = new ArrayList<>();
+        key.add(kind);
+        key.add(query.getSearchQuery());
+        key.add(query.getFields());
+        for (Filter filter : query.getFilters()) {
+            key.add(filter.getFilterableField().getName());
+            key.add(filter.getFilterType());
+            key.add(filter.getFilterValue());
+        }
+        if (settings != null) {
+            key.add(settings.getPageNumber());
+            key.add(settings.getLimit());
+            key.add(settings.getAfter());
+            key.add(settings.getCountMode());
+            for (PropertySort propertySort : settings.getPropertySortList()) {
+                key.add(propertySort.getProperty());
+                key.add(propertySort.getSortOption());
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Reads through the cache. The value is only kept if no write happened while it was being read.
+     */
+    @SuppressWarnings("unchecked")
+    private <V, K> V readThrough(Cache<K, ? super V> cache, K key, Supplier<V> reader) {
+        final Object cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return (V) cached;
+        }
+
+        final long readGeneration = generation.get();
+        final V value = reader.get();
+
+        if (generation.get() == readGeneration) {
+            cache.put(key, value);
+
+            // A write may have invalidated the cache between the check and the put
+            if (generation.get() != readGeneration) {
+                cache.invalidate(key);
+            }
+        }
+        return value;
+    }
+
+    private void invalidate(Iterable<Serializable> ids) {
+        generation.incrementAndGet();
+        ids.forEach(id -> itemCache.invalidate(idKey(id)));
+        resultCache.invalidateAll();
+    }
+
+    private void invalidateAll() {
+        generation.incrementAndGet();
+        itemCache.invalidateAll();
+        resultCache.invalidateAll();
+    }
+
+    @Override
+    public Page<T> search(Query query, PageSettings settings) {
+        return readThrough(resultCache, resultKey("search", query, settings), () -> crud.search(query, settings));
+    }
+
+    @Override
+    public Stream<T> stream(Query query, PageSettings settings) {
+        if (settings.getLimit() > MAX_CACHED_STREAM_SIZE) {
+            return crud.stream(query, settings);
+        }
+        final List<T> values = readThrough(resultCache, resultKey("stream", query, settings), () -> {
+            try (Stream<T> stream = crud.stream(query, settings)) {
+                return stream.collect(Collectors.toList());
+            }
+        });
+        return values.stream();
+    }
+
+    @Override
+    public long count(Query query) {
+        return readThrough(resultCache, resultKey("count", query, null), () -> crud.count(query));
+    }
+
+    @Override
+    public List<AggregationBucket> aggregate(Aggregation aggregation) {
+        final List<Object> key = resultKey("aggregate", aggregation.getQuery(), null);
+        key.add(aggregation.getGroupBy());
+        key.add(aggregation.getDateBucket());
+        key.addAll(aggregation.getAggregates());
+        return readThrough(resultCache, key, () -> crud.aggregate(aggregation));
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> facetCounts(Query query, List<Facet> facets) {
+        final List<Object> key = resultKey("facets", query, null);
+        key.addAll(facets);
+        return readThrough(resultCache, key, () -> crud.facetCounts(query, facets));
+    }
+
+    @Override
+    public long count(String query) {
+        return readThrough(resultCache, List.of("countSearchTerm", query), () -> crud.count(query));
+    }
+
+    @Override
+    public long estimatedCount() {
+        return readThrough(resultCache, List.of("estimatedCount"), crud::estimatedCount);
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id) {
+        return readThrough(itemCache, idKey(id), () -> crud.getById(id));
+    }
+
+    /**
+     * Serves the whole cached item, there is no need to load less of it.
+     */
+    @Override
+    public Optional<T> getById(Serializable id, List<String> fields) {
+        return getById(id);
+    }
+
+    @Override
+    public List<T> getByIds(Iterable<Serializable> ids) {
+        final List<T> found = new ArrayList<>();
+        final List<Serializable> missing = new ArrayList<>();
+
+        for (Serializable id : ids) {
+            final Optional<T> cached = itemCache.getIfPresent(idKey(id));
+            if (cached == null) {
+                missing.add(id);
+            } else {
+                cached.ifPresent(found::add);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            final long readGeneration = generation.get();
+            final List<T> loaded = crud.getByIds(missing);
+
+            if (generation.get() == readGeneration) {
+                loaded.forEach(item -> itemCache.put(idKey(getId(item)), Optional.of(item)));
+                if (generation.get() != readGeneration) {
+                    missing.forEach(id -> itemCache.invalidate(idKey(id)));
+                }
+            }
+            found.addAll(loaded);
+        }
+        return found;
+    }
+
+    @Override
+    public List<T> searchInField(Field field, String qry) {
+        // Used to check uniqueness before writes, so it always reads the underlying Crud
+        return crud.searchInField(field, qry);
+    }
+
+    @Override
+    public List<T> getAll() {
+        return crud.getAll();
+    }
+
+    @Override
+    public void update(T item) {
+        try {
+            crud.update(item);
+        } finally {
+            invalidate(List.of(getId(item)));
+        }
+    }
+
+    @Override
+    public void update(Iterable<T> items) {
+        final List<T> toUpdate = Lists.newArrayList(items);
+        try {
+            crud.update(toUpdate);
+        } finally {
+            invalidate(toUpdate.stream().map(this::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Override
+    public void updateWithPrototype(Map<String, Object> prototype, Serializable... ids) {
+        try {
+            crud.updateWithPrototype(prototype, ids);
+        } finally {
+            invalidate(Arrays.asList(ids));
+        }
+    }
+
+    @Override
+    public void create(T item) {
+        try {
+            crud.create(item);
+        } finally {
+            invalidate(List.of(getId(item)));
+        }
+    }
+
+    @Override
+    public void create(Iterable<T> items) {
+        final List<T> toCreate = Lists.newArrayList(items);
+        try {
+            crud.create(toCreate);
+        } finally {
+            invalidate(toCreate.stream().map(this::getId).collect(Collectors.toList()));
+        }
+    }
+
+    @Override
+    public void deleteById(Serializable id) {
+        try {
+            crud.deleteById(id);
+        } finally {
+            invalidate(List.of(id));
+        }
+    }
+
+    @Override
+    public void delete(Iterable<Serializable> ids) {
+        final List<Serializable> toDelete = Lists.newArrayList(ids);
+        try {
+            crud.delete(toDelete);
+        } finally {
+            invalidate(toDelete);
+        }
+    }
+
+    /**
+     * Drops everything from the cache, for when the underlying data was changed without going through this Crud.
+     */
+    public void clear() {
+        invalidateAll();
+    }
+
+    /**
+     * Drops an item and all search results from the cache, for when the item was changed without going through this
+     * Crud.
+     */
+    public void evict(Serializable id) {
+        invalidate(List.of(id));
+    }
+
+    /**
+     * Keeps this cache in line with the changes that are published for its model, such as the writes of other nodes.
+     */
+    public void listenTo(ChangeEventBus changeEvents) {
+        changeEvents.subscribe(getModel().getSlug(), new ChangeListener() {
+            @Override
+            public void onChange(ChangeEvent event) {
+                evict(event.getId());
+            }
+
+            @Override
+            public void onMissed() {
+                clear();
+            }
+        });
+    }
+
+    @Override
+    public List<String> synchronizeIndexes(List<ModelIndex> indexes) {
+        return crud.synchronizeIndexes(indexes);
+    }
+
+    @Override
+    public boolean enforcesUniqueness() {
+        return crud.enforcesUniqueness();
+    }
+
+    @Override
+    public Serializable getId(T item) {
+        return crud.getId(item);
+    }
+
+    @Override
+    public Model<T> getModel() {
+        return crud.getModel();
+    }
+
+    @Override
+    public ObjectMapper getObjectMapper() {
+        return crud.getObjectMapper();
+    }
+}
@@ -0,0 +1,40 @@
+package com.elepy.dao;
+
+/**
+ * How the total amount of results of a search is counted, which is what {@link Page#getLastPageNumber()} is based on.
+ * Counting can cost more than finding the page itself, so clients that only need to know whether there is a next page
+ * should use {@link #NONE} and {@link Page#isHasNext()}.
+ *
+ * @see PageSettings#getCountMode()
+ */
+public enum CountMode {
+    /**
+     * Don't count, unless counting is free for the {@link Crud}. Otherwise the last page number of the page is -1.
+     */
+    NONE,
+
+    /**
+     * Use the cheapest count that the {@link Crud} can provide, like the amount of items in a collection according to
+     * the database's metadata. The count ignores the query, so it is an upper bound.
+     *
+     * @see Crud#estimatedCount()
+     */
+    ESTIMATED,
+
+    /**
+     * Count every item that matches the query.
+     */
+    EXACT;
+
+    public static CountMode get(String s) {
+        if (s == null || s.isEmpty()) {
+            return EXACT;
+        }
+        for (CountMode countMode : values()) {
+            if (countMode.name().equalsIgnoreCase(s)) {
+                return countMode;
+            }
+        }
+        return EXACT;
+    }
+}
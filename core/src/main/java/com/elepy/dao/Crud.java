@@ -13,7 +13,9 @@ import com.google.common.collect.Lists;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This is the CRUD interface of Elepy. It is the Core of the Data Access Layer. A crud can be anything from
@@ -30,6 +32,41 @@ public interface Crud<T> {
         return search(query, new PageSettings(1L, Integer.MAX_VALUE, List.of()));
     }
 
+    /**
+     * Streams the results of a search, so that they don't have to be held in memory all at once. A stream can hold
+     * on to a database cursor, so it must always be closed. e.g. with a try-with-resources statement.
+     * <p>
+     * With {@link PageSettings#lookAhead()} the stream ends with the first item of the next page, if there is one.
+     * <p>
+     * The default implementation materializes the {@link Page} of {@link #search(Query, PageSettings)} and searches
+     * for the item to look ahead to separately.
+     *
+     * @param query    The query
+     * @param settings The page to stream
+     * @return A stream of the found items, in the requested order
+     */
+    default Stream<T> stream(Query query, PageSettings settings) {
+        final Page<T> page = search(query, settings);
+
+        if (!settings.isLookAhead() || !page.isHasNext()) {
+            return page.getValues().stream();
+        }
+        final PageSettings next = page.getAfter() != null ?
+                new PageSettings(1L, 1, settings.getPropertySortList(), page.getAfter(), CountMode.NONE) :
+                new PageSettings(settings.getPageNumber() * settings.getPageSize() + 1, 1, settings.getPropertySortList(), null, CountMode.NONE);
+
+        return Stream.concat(page.getValues().stream(), search(query, next).getValues().stream().limit(1));
+    }
+
+    /**
+     * @param query The query
+     * @return The number of items that match the query
+     */
+    default long count(Query query) {
+        // Every item is a page of its own
+        return search(query, new PageSettings(1L, 1, List.of())).getLastPageNumber();
+    }
+
     /**
      * Queries a database in search of a model item with a specific ID
      *
@@ -38,6 +75,20 @@ public interface Crud<T> {
      */
     Optional<T> getById(final Serializable id);
 
+    /**
+     * Queries a database in search of a model item with a specific ID, loading only some of its properties.
+     * <p>
+     * The default implementation loads the whole item.
+     *
+     * @param id     The id of the model item
+     * @param fields The properties to load, all of them when empty
+     * @return An optional item, with the other properties left unset
+     * @see Query#getFields()
+     */
+    default Optional<T> getById(final Serializable id, final List<String> fields) {
+        return getById(id);
+    }
+
     default List<T> getByIds(final Iterable<Serializable> ids) {
         return Lists.newArrayList(ids).stream().map(this::getById).filter(Optional::isPresent).map(Optional::get).collect(Collectors.toList());
     }
@@ -122,15 +173,13 @@ public interface Crud<T> {
                 .map(ReflectionUtils::getPropertyName)
                 .forEach(prototype::remove);
 
-        for (Serializable id : ids) {
-            getById(id).ifPresent(item -> {
-                final Map<String, Object> beforeMap = getObjectMapper().convertValue(item, new TypeReference<Map<String, Object>>() {
-                });
+        for (T item : getByIds(Arrays.asList(ids))) {
+            final Map<String, Object> beforeMap = getObjectMapper().convertValue(item, new TypeReference<Map<String, Object>>() {
+            });
 
-                final T t = MapperUtils.objectFromMaps(getObjectMapper(), beforeMap, prototype, getType());
+            final T t = MapperUtils.objectFromMaps(getObjectMapper(), beforeMap, prototype, getType());
 
-                toUpdate.add(t);
-            });
+            toUpdate.add(t);
         }
 
         update(toUpdate);
@@ -187,6 +236,105 @@ public interface Crud<T> {
         return count("");
     }
 
+    /**
+     * A cheap count of all the items in the CRUD, for when an exact count is too expensive. The default implementation
+     * is {@link #count()}.
+     *
+     * @return An estimate of the amount of items in the CRUD
+     * @see CountMode#ESTIMATED
+     */
+    default long estimatedCount() {
+        return count();
+    }
+
+    /**
+     * Counts the results of a query the way the page settings ask for.
+     *
+     * @return The amount of results, or -1 for {@link CountMode#NONE}
+     */
+    default long count(Query query, CountMode countMode) {
+        switch (countMode) {
+            case NONE:
+                return -1;
+            case ESTIMATED:
+                return estimatedCount();
+            default:
+                return count(query);
+        }
+    }
+
+    /**
+     * Aggregates the items that match the query of the aggregation. The default implementation streams the items and
+     * aggregates them in memory, Crud's should let the database do it instead.
+     *
+     * @param aggregation The aggregation, see {@link Aggregation#validate(Class)}
+     * @return A bucket for every group, sorted by key
+     */
+    default List<AggregationBucket> aggregate(Aggregation aggregation) {
+        try (Stream<T> items = stream(aggregation.getQuery(), new PageSettings(1, Integer.MAX_VALUE, List.of()))) {
+            return aggregation.aggregate(getType(), items);
+        }
+    }
+
+    /**
+     * Searches like {@link #search(Query, PageSettings)}, and counts the results per facet.
+     */
+    default FacetedPage<T> facetedSearch(Query query, PageSettings settings, List<Facet> facets) {
+        return new FacetedPage<>(search(query, settings), facetCounts(query, facets));
+    }
+
+    /**
+     * Counts the items that match the query per value or bucket of every facet. The default implementation runs an
+     * {@link #aggregate(Aggregation) aggregation} per facet.
+     *
+     * @return The counts per value or bucket, by property
+     */
+    default Map<String, Map<String, Long>> facetCounts(Query query, List<Facet> facets) {
+        final Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+
+        for (Facet facet : facets) {
+            final Aggregation aggregation = new Aggregation(query, facet.getProperty(), null, List.of(Aggregate.count()));
+            counts.put(facet.getProperty(), facet.counts(aggregate(aggregation)));
+        }
+        return counts;
+    }
+
+    /**
+     * Creates the indexes that the model needs and that don't exist yet. This is called once, when the model is
+     * started. Existing indexes are never dropped or altered; differences that can't be fixed by creating an index
+     * are reported instead. The default implementation does nothing.
+     *
+     * @param indexes The indexes that the model needs
+     * @return A description of every difference between the required indexes and the ones in the database
+     * @see ModelIndex#requiredFor(Model)
+     */
+    default List<String> synchronizeIndexes(List<ModelIndex> indexes) {
+        return List.of();
+    }
+
+    /**
+     * Whether the database rejects duplicate IDs and duplicate values of unique properties by itself. When it does,
+     * the integrity checks that look for duplicates before every write are skipped, and the Crud throws the same
+     * exceptions when a write is rejected.
+     *
+     * @return true once every unique property is backed by a unique index
+     * @see com.elepy.evaluators.IntegrityMode#DATABASE
+     * @see com.elepy.evaluators.DefaultIntegrityEvaluator#uniquenessViolation(Object, String)
+     */
+    default boolean enforcesUniqueness() {
+        return false;
+    }
+
+    /**
+     * The asynchronous view of this Crud. The default implementation runs the blocking calls on the executor.
+     *
+     * @param executor The executor to run blocking calls on
+     * @return An AsyncCrud of the same items
+     */
+    default AsyncCrud<T> async(Executor executor) {
+        return new ExecutorAsyncCrud<>(this, executor);
+    }
+
     /**
      * @return The type of the {@link RestModel}. For use in reflection
      */
@@ -0,0 +1,149 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+import com.elepy.utils.ReflectionUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * The position of an item in a sorted result set, used for keyset pagination. A cursor holds the values of the
+ * sorted properties of the last item on a page, followed by its ID. The ID breaks ties between items with equal sort
+ * values, so every {@link Crud} that supports cursors must sort on its ID (ascending) after the requested sorts.
+ * <p>
+ * Cursors are handed to clients as an opaque, URL-safe token.
+ *
+ * @see PageSettings#getAfter()
+ * @see Page#getAfter()
+ */
+public class Cursor {
+
+    private static final ObjectMapper tokenMapper = new ObjectMapper();
+
+    private final List<JsonNode> values;
+
+    private Cursor(List<JsonNode> values) {
+        this.values = values;
+    }
+
+    /**
+     * Creates the cursor that points right after an item.
+     *
+     * @param item          the last item of a page
+     * @param propertySorts the sorts that the page was requested with
+     * @param id            the ID of the item
+     * @param objectMapper  the ObjectMapper of the model
+     * @return a cursor that points after the item
+     */
+    public static Cursor after(Object item, List<PropertySort> propertySorts, Serializable id, ObjectMapper objectMapper) {
+        final List<JsonNode> values = new ArrayList<>();
+
+        for (PropertySort propertySort : propertySorts) {
+            final Field field = propertyField(item.getClass(), propertySort.getProperty());
+            try {
+                values.add(objectMapper.valueToTree(field.get(item)));
+            } catch (IllegalAccessException e) {
+                throw new ElepyException("Illegally accessing " + field.getName(), 500, e);
+            }
+        }
+        values.add(objectMapper.valueToTree(id));
+
+        return new Cursor(values);
+    }
+
+    /**
+     * Creates the token of the next page, if the page is full.
+     *
+     * @return the token or null if there are no more items to page through
+     */
+    public static <T> String nextToken(Crud<T> crud, List<T> values, PageSettings settings) {
+        return nextToken(crud, values.isEmpty() ? null : values.get(values.size() - 1), values.size(), settings);
+    }
+
+    /**
+     * Creates the token of the next page, if the page is full.
+     *
+     * @param last the last item of the page
+     * @param size the amount of items on the page
+     * @return the token or null if there are no more items to page through
+     */
+    public static <T> String nextToken(Crud<T> crud, T last, int size, PageSettings settings) {
+        if (last == null || size < settings.getPageSize()) {
+            return null;
+        }
+        return after(last, settings.getPropertySortList(), crud.getId(last), crud.getObjectMapper()).encode();
+    }
+
+    /**
+     * @param token a token made by {@link #encode()}
+     * @return the decoded cursor
+     * @throws ElepyException when the token is malformed
+     */
+    public static Cursor decode(String token) {
+        try {
+            final JsonNode node = tokenMapper.readTree(Base64.getUrlDecoder().decode(token));
+
+            if (!(node instanceof ArrayNode) || node.size() == 0) {
+                throw new ElepyException("Invalid cursor", 400);
+            }
+            final List<JsonNode> values = new ArrayList<>();
+            node.forEach(values::add);
+
+            return new Cursor(values);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ElepyException("Invalid cursor", 400, e);
+        }
+    }
+
+    public String encode() {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(tokenMapper.writeValueAsString(values).getBytes(StandardCharsets.UTF_8));
+        } catch (JsonProcessingException e) {
+            throw new ElepyException("Failed to encode cursor", 500, e);
+        }
+    }
+
+    /**
+     * Converts the cursor's values into the types of the sorted properties, with the ID as last value.
+     *
+     * @param type          the class of the model
+     * @param propertySorts the sorts that the cursor was made with
+     * @param idType        the type of the ID
+     * @param objectMapper  the ObjectMapper of the model
+     * @return the values, one for every sort plus the ID
+     * @throws ElepyException when the cursor was made with different sorts
+     */
+    public List<Object> values(Class<?> type, List<PropertySort> propertySorts, Class<?> idType, ObjectMapper objectMapper) {
+        if (values.size() != propertySorts.size() + 1) {
+            throw new ElepyException("The cursor does not match the requested sort", 400);
+        }
+
+        final List<Object> typed = new ArrayList<>();
+        try {
+            for (int i = 0; i < propertySorts.size(); i++) {
+                typed.add(objectMapper.treeToValue(values.get(i), propertyField(type, propertySorts.get(i).getProperty()).getType()));
+            }
+            typed.add(objectMapper.treeToValue(values.get(propertySorts.size()), idType));
+        } catch (JsonProcessingException e) {
+            throw new ElepyException("Invalid cursor", 400, e);
+        }
+        return typed;
+    }
+
+    private static Field propertyField(Class<?> type, String property) {
+        final Field field = ReflectionUtils.getPropertyField(type, property);
+        if (field == null) {
+            throw new ElepyException(String.format("No properties titled '%s'", property));
+        }
+        return field;
+    }
+}
@@ -0,0 +1,72 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Groups dates into buckets for a histogram. Buckets are in UTC and their keys sort chronologically, e.g. '2019-05'
+ * for {@link #MONTH}.
+ */
+public enum DateBucket {
+    YEAR("%Y", "yyyy"),
+    MONTH("%Y-%m", "yyyy-MM"),
+    DAY("%Y-%m-%d", "yyyy-MM-dd"),
+    HOUR("%Y-%m-%dT%H", "yyyy-MM-dd'T'HH");
+
+    private final String mongoFormat;
+    private final DateTimeFormatter formatter;
+
+    DateBucket(String mongoFormat, String pattern) {
+        this.mongoFormat = mongoFormat;
+        this.formatter = DateTimeFormatter.ofPattern(pattern).withZone(ZoneOffset.UTC);
+    }
+
+    /**
+     * @return the format for Mongo's $dateToString that makes the same keys
+     */
+    public String getMongoFormat() {
+        return mongoFormat;
+    }
+
+    /**
+     * @return the amount of date parts in a key: year, month, day and hour
+     */
+    public int getParts() {
+        return ordinal() + 1;
+    }
+
+    public String key(Date date) {
+        return date == null ? null : formatter.format(date.toInstant());
+    }
+
+    /**
+     * @param parts the year, month, day and hour, as far as this bucket needs them
+     * @return the same key as {@link #key(Date)}
+     */
+    public String key(List<? extends Number> parts) {
+        if (parts.contains(null)) {
+            return null;
+        }
+        final StringBuilder key = new StringBuilder(String.format("%04d", parts.get(0).intValue()));
+        for (int i = 1; i < getParts(); i++) {
+            key.append(i == 3 ? 'T' : '-').append(String.format("%02d", parts.get(i).intValue()));
+        }
+        return key.toString();
+    }
+
+    public static DateBucket get(String s) {
+        if (s == null || s.isEmpty()) {
+            return null;
+        }
+        for (DateBucket bucket : values()) {
+            if (bucket.name().equalsIgnoreCase(s)) {
+                return bucket;
+            }
+        }
+        throw new ElepyException(String.format("Unknown date bucket '%s'", s), 400);
+    }
+}
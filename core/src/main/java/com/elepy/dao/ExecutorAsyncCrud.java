@@ -0,0 +1,124 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Makes any blocking {@link Crud} asynchronous by running its calls on an {@link Executor}. With a
+ * {@link #boundedExecutor(int, int) bounded executor} the amount of threads that wait on the database is capped, and
+ * calls that don't fit in the queue fail right away with a 503 instead of piling up.
+ *
+ * @param <T> The type of the Model
+ */
+public class ExecutorAsyncCrud<T> implements AsyncCrud<T> {
+
+    public static final int DEFAULT_THREADS = Math.max(8, Runtime.getRuntime().availableProcessors() * 4);
+    public static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    private final Crud<T> crud;
+    private final Executor executor;
+
+    public ExecutorAsyncCrud(Crud<T> crud, Executor executor) {
+        this.crud = crud;
+        this.executor = executor;
+    }
+
+    /**
+     * Creates an executor with a fixed amount of daemon threads and a bounded queue, which rejects what doesn't fit.
+     *
+     * @param threads   the maximum amount of concurrent Crud calls
+     * @param queueSize the maximum amount of Crud calls waiting for a thread
+     * @return the executor
+     */
+    public static ExecutorService boundedExecutor(int threads, int queueSize) {
+        final AtomicInteger counter = new AtomicInteger();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            final Thread thread = new Thread(runnable, "elepy-crud-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private <R> CompletableFuture<R> supply(Supplier<R> call) {
+        try {
+            return CompletableFuture.supplyAsync(call, executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ElepyException("Too many concurrent requests, try again later", 503, e));
+        }
+    }
+
+    private CompletableFuture<Void> run(Runnable call) {
+        return supply(() -> {
+            call.run();
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> getByIdAsync(Serializable id) {
+        return supply(() -> crud.getById(id));
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> getByIdAsync(Serializable id, List<String> fields) {
+        return supply(() -> crud.getById(id, fields));
+    }
+
+    @Override
+    public CompletableFuture<List<T>> getByIdsAsync(Iterable<Serializable> ids) {
+        return supply(() -> crud.getByIds(ids));
+    }
+
+    @Override
+    public CompletableFuture<Page<T>> searchAsync(Query query, PageSettings settings) {
+        return supply(() -> crud.search(query, settings));
+    }
+
+    @Override
+    public CompletableFuture<Long> countAsync(Query query) {
+        return supply(() -> crud.count(query));
+    }
+
+    @Override
+    public CompletableFuture<Void> createAsync(T item) {
+        return run(() -> crud.create(item));
+    }
+
+    @Override
+    public CompletableFuture<Void> createAsync(Iterable<T> items) {
+        return run(() -> crud.create(items));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAsync(T item) {
+        return run(() -> crud.update(item));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAsync(Iterable<T> items) {
+        return run(() -> crud.update(items));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIdAsync(Serializable id) {
+        return run(() -> crud.deleteById(id));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(Iterable<Serializable> ids) {
+        return run(() -> crud.delete(ids));
+    }
+
+    @Override
+    public Crud<T> blocking() {
+        return crud;
+    }
+}
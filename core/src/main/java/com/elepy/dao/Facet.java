@@ -0,0 +1,153 @@
+package com.elepy.dao;
+
+import com.elepy.exceptions.ElepyException;
+import com.elepy.models.FieldType;
+import com.elepy.utils.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * The amount of search results per value of a property, for filter sidebars. Enums and booleans are counted per
+ * value, numbers per value or per bucket between boundaries.
+ * <p>
+ * Like Mongo's $bucket, a bucket includes its lower boundary and excludes its upper boundary, e.g. '[0,10)'. Values
+ * outside of the boundaries and missing values are counted as {@link #OTHER}.
+ *
+ * @see Crud#facetCounts(Query, List)
+ */
+public class Facet {
+
+    public static final String OTHER = "other";
+
+    private final String property;
+    private final List<BigDecimal> boundaries;
+
+    /**
+     * @param boundaries the sorted boundaries of the buckets, or empty to count per value
+     */
+    public Facet(String property, List<BigDecimal> boundaries) {
+        if (boundaries.size() == 1) {
+            throw new ElepyException(String.format("The buckets of '%s' need at least two boundaries", property), 400);
+        }
+        for (int i = 1; i < boundaries.size(); i++) {
+            if (boundaries.get(i - 1).compareTo(boundaries.get(i)) >= 0) {
+                throw new ElepyException(String.format("The boundaries of '%s' must be ascending", property), 400);
+            }
+        }
+        this.property = property;
+        this.boundaries = boundaries;
+    }
+
+    public static Facet of(String property) {
+        return new Facet(property, List.of());
+    }
+
+    /**
+     * Parses a facet like 'status' or 'price:0,10,50'.
+     */
+    public static Facet parse(String s) {
+        final String[] split = s.split(":", 2);
+
+        try {
+            final List<BigDecimal> boundaries = split.length == 1 ? List.of() : Arrays.stream(split[1].split(","))
+                    .map(String::trim)
+                    .map(BigDecimal::new)
+                    .collect(Collectors.toList());
+            return new Facet(split[0].trim(), boundaries);
+        } catch (NumberFormatException e) {
+            throw new ElepyException(String.format("Invalid boundaries in facet '%s'", s), 400);
+        }
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public List<BigDecimal> getBoundaries() {
+        return boundaries;
+    }
+
+    public boolean isBucketed() {
+        return !boundaries.isEmpty();
+    }
+
+    /**
+     * @throws ElepyException with status 400 when the property can't be faceted
+     */
+    public void validate(Class<?> cls) {
+        final Field field = ReflectionUtils.getPropertyField(cls, property);
+        if (field == null) {
+            throw new ElepyException(String.format("No properties titled '%s'", property), 400);
+        }
+        final FieldType fieldType = FieldType.guessType(field);
+
+        if (isBucketed() ? fieldType != FieldType.NUMBER : !EnumSet.of(FieldType.ENUM, FieldType.BOOLEAN, FieldType.NUMBER).contains(fieldType)) {
+            throw new ElepyException(String.format("Can't make a facet of '%s'", property), 400);
+        }
+    }
+
+    /**
+     * @return the keys of all buckets, in order
+     */
+    public List<String> bucketKeys() {
+        final List<String> keys = new ArrayList<>();
+        for (int i = 1; i < boundaries.size(); i++) {
+            keys.add(String.format("[%s,%s)", plain(boundaries.get(i - 1)), plain(boundaries.get(i))));
+        }
+        return keys;
+    }
+
+    /**
+     * @return the key of the bucket that a value falls in
+     */
+    public String bucketOf(Object value) {
+        if (!(value instanceof Number)) {
+            return OTHER;
+        }
+        final BigDecimal number = new BigDecimal(value.toString());
+        for (int i = 1; i < boundaries.size(); i++) {
+            if (number.compareTo(boundaries.get(i - 1)) >= 0 && number.compareTo(boundaries.get(i)) < 0) {
+                return bucketKeys().get(i - 1);
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * Turns the counts of an {@link Aggregation} that is grouped by the property into the counts of this facet.
+     *
+     * @param perValue buckets with a 'count' per value, or per lower boundary for Mongo's $bucket
+     */
+    public Map<String, Long> counts(List<AggregationBucket> perValue) {
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        bucketKeys().forEach(key -> counts.put(key, 0L));
+
+        for (AggregationBucket bucket : perValue) {
+            final String key = isBucketed() ? bucketOf(bucket.getKey()) : String.valueOf(bucket.getKey());
+            final long count = ((Number) bucket.getValues().get(Aggregate.count().getName())).longValue();
+
+            counts.merge(key, count, Long::sum);
+        }
+        return counts;
+    }
+
+    private static String plain(BigDecimal number) {
+        return number.stripTrailingZeros().toPlainString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Facet facet = (Facet) o;
+        return property.equals(facet.property) && boundaries.equals(facet.boundaries);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, boundaries);
+    }
+}
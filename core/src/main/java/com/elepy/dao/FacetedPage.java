@@ -0,0 +1,23 @@
+package com.elepy.dao;
+
+import java.util.Map;
+
+/**
+ * A page of search results with the counts of the requested {@link Facet}'s, which cover all results.
+ */
+public class FacetedPage<T> extends Page<T> {
+
+    /**
+     * The counts per value or bucket, by property.
+     */
+    private final Map<String, Map<String, Long>> facets;
+
+    public FacetedPage(Page<T> page, Map<String, Map<String, Long>> facets) {
+        super(page.getCurrentPageNumber(), page.getLastPageNumber(), page.getValues(), page.getAfter(), page.isHasNext());
+        this.facets = facets;
+    }
+
+    public Map<String, Map<String, Long>> getFacets() {
+        return facets;
+    }
+}
@@ -0,0 +1,92 @@
+package com.elepy.dao;
+
+import com.elepy.evaluators.IntegrityMode;
+import com.elepy.models.Model;
+import com.elepy.models.Property;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A single-property index that a {@link Crud} should have to serve its model. The indexes of a model are derived from
+ * its metadata: its ID, its default sort field and every primitive property that is unique or searchable. Unique
+ * properties only get unique indexes when the model's {@link IntegrityMode} is {@link IntegrityMode#DATABASE}.
+ *
+ * @see Crud#synchronizeIndexes(List)
+ */
+public class ModelIndex {
+
+    /**
+     * The prefix of the names of the indexes that Elepy creates, so that they can be told apart from other indexes.
+     */
+    public static final String NAME_PREFIX = "elepy_";
+
+    private final String property;
+    private final boolean unique;
+
+    public ModelIndex(String property, boolean unique) {
+        this.property = property;
+        this.unique = unique;
+    }
+
+    /**
+     * @return the indexes that a model needs, one for every indexed property
+     */
+    public static List<ModelIndex> requiredFor(Model<?> model) {
+        final Map<String, Boolean> indexed = new LinkedHashMap<>();
+        final boolean databaseIntegrity = IntegrityMode.of(model.getJavaClass()).equals(IntegrityMode.DATABASE);
+
+        // The ID is already unique as the primary key
+        indexed.put(model.getIdProperty(), false);
+
+        for (Property property : model.getProperties()) {
+            if (!property.isPrimitive()) {
+                continue;
+            }
+            if (property.isUnique() || property.isSearchable() || property.getName().equals(model.getDefaultSortField())) {
+                indexed.merge(property.getName(), databaseIntegrity && property.isUnique(), Boolean::logicalOr);
+            }
+        }
+
+        final List<ModelIndex> indexes = new ArrayList<>();
+        indexed.forEach((property, unique) -> indexes.add(new ModelIndex(property, unique)));
+        return indexes;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    /**
+     * @return whether the database should reject duplicate values of the property
+     * @see Crud#enforcesUniqueness()
+     */
+    public boolean isUnique() {
+        return unique;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ModelIndex that = (ModelIndex) o;
+        return unique == that.unique && property.equals(that.property);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(property, unique);
+    }
+
+    @Override
+    public String toString() {
+        return (unique ? "unique index on " : "index on ") + property;
+    }
+}
@@ -12,7 +12,9 @@ public class Page<T> {
     private final long currentPageNumber;
 
     /**
-     * The number of the last page
+     * The number of the last page, -1 when the results weren't counted.
+     *
+     * @see CountMode
      */
     private final long lastPageNumber;
 
@@ -26,12 +28,53 @@ public class Page<T> {
      */
     private final int originalSize;
 
+    /**
+     * The token to request the next page with, null if this is the last page.
+     *
+     * @see PageSettings#getAfter()
+     */
+    private final String after;
+
+    /**
+     * Whether there are more results after this page. Unlike the last page number, this is known without counting.
+     */
+    private final boolean hasNext;
+
+    public Page(long currentPageNumber, long lastPageNumber, List<T> values) {
+        this(currentPageNumber, lastPageNumber, values, null);
+    }
+
+    public Page(long currentPageNumber, long lastPageNumber, List<T> values, String after) {
+        this(currentPageNumber, lastPageNumber, values, after, currentPageNumber < lastPageNumber);
+    }
+
     @JsonCreator
-    public Page(@JsonProperty("currentPageNumber") long currentPageNumber, @JsonProperty("lastPageNumber") long lastPageNumber, @JsonProperty("values") List<T> values) {
+    public Page(@JsonProperty("currentPageNumber") long currentPageNumber, @JsonProperty("lastPageNumber") long lastPageNumber, @JsonProperty("values") List<T> values, @JsonProperty("after") String after, @JsonProperty("hasNext") boolean hasNext) {
         this.currentPageNumber = currentPageNumber;
         this.lastPageNumber = lastPageNumber;
         this.values = values;
         this.originalSize = values.size();
+        this.after = after;
+        this.hasNext = hasNext;
+    }
+
+    /**
+     * Creates a page from the results of a search with {@link PageSettings#lookAhead()}.
+     *
+     * @param crud            the crud that was searched
+     * @param lookAheadValues the found values, including the extra one
+     * @param settings        the requested settings, without look ahead
+     * @param amountOfResults the counted amount of results, -1 if they weren't counted
+     */
+    public static <T> Page<T> fromLookAhead(Crud<T> crud, List<T> lookAheadValues, PageSettings settings, long amountOfResults) {
+        final boolean hasNext = lookAheadValues.size() > settings.getPageSize();
+        final List<T> values = hasNext ? lookAheadValues.subList(0, settings.getPageSize()) : lookAheadValues;
+
+        return new Page<>(settings.getPageNumber(),
+                settings.lastPageNumber(amountOfResults),
+                values,
+                hasNext ? Cursor.nextToken(crud, values, settings) : null,
+                hasNext);
     }
 
     public long getCurrentPageNumber() {
@@ -49,4 +92,12 @@ public class Page<T> {
     public int getOriginalSize() {
         return originalSize;
     }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
 }
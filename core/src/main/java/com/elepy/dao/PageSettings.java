@@ -19,10 +19,45 @@ public class PageSettings {
 
     private final List<PropertySort> propertySortList;
 
+    /**
+     * An opaque token from {@link Page#getAfter()}. When present, the page starts right after the item that the
+     * token points to and the pageNumber is ignored.
+     *
+     * @see Cursor
+     */
+    private final String after;
+
+    /**
+     * How the results are counted to determine the last page number.
+     */
+    private final CountMode countMode;
+
+    /**
+     * Whether one extra item should be fetched, to find out if there is a next page.
+     *
+     * @see #getLimit()
+     */
+    private final boolean lookAhead;
+
     public PageSettings(long pageNumber, int pageSize, List<PropertySort> propertySortList) {
+        this(pageNumber, pageSize, propertySortList, null);
+    }
+
+    public PageSettings(long pageNumber, int pageSize, List<PropertySort> propertySortList, String after) {
+        this(pageNumber, pageSize, propertySortList, after, CountMode.EXACT);
+    }
+
+    public PageSettings(long pageNumber, int pageSize, List<PropertySort> propertySortList, String after, CountMode countMode) {
+        this(pageNumber, pageSize, propertySortList, after, countMode, false);
+    }
+
+    private PageSettings(long pageNumber, int pageSize, List<PropertySort> propertySortList, String after, CountMode countMode, boolean lookAhead) {
         this.pageNumber = pageNumber;
         this.pageSize = pageSize;
         this.propertySortList = propertySortList;
+        this.after = after;
+        this.countMode = countMode;
+        this.lookAhead = lookAhead;
     }
 
     public long getPageNumber() {
@@ -36,4 +71,51 @@ public class PageSettings {
     public List<PropertySort> getPropertySortList() {
         return propertySortList;
     }
+
+    public String getAfter() {
+        return after;
+    }
+
+    public boolean hasCursor() {
+        return after != null && !after.isEmpty();
+    }
+
+    public CountMode getCountMode() {
+        return countMode;
+    }
+
+    /**
+     * The same page, with room for one extra item. If the extra item is found, there is a next page.
+     *
+     * @see Page#isHasNext()
+     */
+    public PageSettings lookAhead() {
+        return new PageSettings(pageNumber, pageSize, propertySortList, after, countMode, true);
+    }
+
+    public boolean isLookAhead() {
+        return lookAhead;
+    }
+
+    /**
+     * The maximum amount of items to fetch. This is the page size, plus one with {@link #lookAhead()}. The offset of
+     * a page is always based on the page size.
+     */
+    public int getLimit() {
+        return lookAhead && pageSize < Integer.MAX_VALUE ? pageSize + 1 : pageSize;
+    }
+
+    /**
+     * @param amountOfResults the amount of results, or -1 when they weren't counted
+     * @return the number of the last page, or -1 when it is unknown
+     */
+    public long lastPageNumber(long amountOfResults) {
+        if (amountOfResults < 0) {
+            return -1;
+        }
+        final long remainder = amountOfResults % pageSize;
+        long amountOfPages = amountOfResults / pageSize;
+        if (remainder > 0) amountOfPages++;
+        return amountOfPages;
+    }
 }
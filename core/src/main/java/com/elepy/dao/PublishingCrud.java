@@ -0,0 +1,288 @@
+package com.elepy.dao;
+
+import com.elepy.events.ChangeEvent;
+import com.elepy.events.ChangeEventBus;
+import com.elepy.events.ChangeType;
+import com.elepy.exceptions.ElepyPartialWriteException;
+import com.elepy.models.Model;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Publishes a {@link ChangeEvent} to a {@link ChangeEventBus} for every item that is successfully written through
+ * another {@link Crud}. Reads go straight to the other Crud.
+ * <p>
+ * No events are built while the bus has no subscribers, or when the changes of the model are published by a source
+ * of its own.
+ *
+ * @param <T> The type of the Model
+ */
+public class PublishingCrud<T> implements Crud<T> {
+
+    private final Crud<T> crud;
+    private final ChangeEventBus changeEvents;
+
+    public PublishingCrud(Crud<T> crud, ChangeEventBus changeEvents) {
+        this.crud = crud;
+        this.changeEvents = changeEvents;
+    }
+
+    private void publish(ChangeType type, Iterable<Serializable> ids) {
+        final String slug = getModel().getSlug();
+        if (!changeEvents.hasSubscribers() || changeEvents.hasSource(slug)) {
+            return;
+        }
+        final long timestamp = System.currentTimeMillis();
+        ids.forEach(id -> changeEvents.publish(new ChangeEvent(slug, id, type, timestamp)));
+    }
+
+    private List<Serializable> ids(List<T> items) {
+        return items.stream().map(this::getId).collect(Collectors.toList());
+    }
+
+    private List<T> written(List<T> items, ElepyPartialWriteException e) {
+        return IntStream.range(0, items.size())
+                .filter(e::isWritten)
+                .mapToObj(items::get)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Page<T> search(Query query, PageSettings settings) {
+        return crud.search(query, settings);
+    }
+
+    @Override
+    public Stream<T> stream(Query query, PageSettings settings) {
+        return crud.stream(query, settings);
+    }
+
+    @Override
+    public long count(Query query) {
+        return crud.count(query);
+    }
+
+    @Override
+    public long count(String query) {
+        return crud.count(query);
+    }
+
+    @Override
+    public long estimatedCount() {
+        return crud.estimatedCount();
+    }
+
+    @Override
+    public List<AggregationBucket> aggregate(Aggregation aggregation) {
+        return crud.aggregate(aggregation);
+    }
+
+    @Override
+    public Map<String, Map<String, Long>> facetCounts(Query query, List<Facet> facets) {
+        return crud.facetCounts(query, facets);
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id) {
+        return crud.getById(id);
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id, List<String> fields) {
+        return crud.getById(id, fields);
+    }
+
+    @Override
+    public List<T> getByIds(Iterable<Serializable> ids) {
+        return crud.getByIds(ids);
+    }
+
+    @Override
+    public List<T> searchInField(Field field, String qry) {
+        return crud.searchInField(field, qry);
+    }
+
+    @Override
+    public List<T> getAll() {
+        return crud.getAll();
+    }
+
+    @Override
+    public void update(T item) {
+        crud.update(item);
+        publish(ChangeType.UPDATED, List.of(getId(item)));
+    }
+
+    @Override
+    public void update(Iterable<T> items) {
+        final List<T> toUpdate = Lists.newArrayList(items);
+        crud.update(toUpdate);
+        publish(ChangeType.UPDATED, ids(toUpdate));
+    }
+
+    @Override
+    public void updateWithPrototype(Map<String, Object> prototype, Serializable... ids) {
+        crud.updateWithPrototype(prototype, ids);
+        publish(ChangeType.UPDATED, Arrays.asList(ids));
+    }
+
+    @Override
+    public void create(T item) {
+        crud.create(item);
+        publish(ChangeType.CREATED, List.of(getId(item)));
+    }
+
+    @Override
+    public void create(Iterable<T> items) {
+        final List<T> toCreate = Lists.newArrayList(items);
+        try {
+            crud.create(toCreate);
+        } catch (ElepyPartialWriteException e) {
+            publish(ChangeType.CREATED, ids(written(toCreate, e)));
+            throw e;
+        }
+        publish(ChangeType.CREATED, ids(toCreate));
+    }
+
+    @Override
+    public void deleteById(Serializable id) {
+        crud.deleteById(id);
+        publish(ChangeType.DELETED, List.of(id));
+    }
+
+    @Override
+    public void delete(Iterable<Serializable> ids) {
+        final List<Serializable> toDelete = Lists.newArrayList(ids);
+        crud.delete(toDelete);
+        publish(ChangeType.DELETED, toDelete);
+    }
+
+    @Override
+    public List<String> synchronizeIndexes(List<ModelIndex> indexes) {
+        return crud.synchronizeIndexes(indexes);
+    }
+
+    @Override
+    public boolean enforcesUniqueness() {
+        return crud.enforcesUniqueness();
+    }
+
+    /**
+     * Keeps the asynchronous view of the other Crud, which may be native, and publishes when its writes complete.
+     */
+    @Override
+    public AsyncCrud<T> async(Executor executor) {
+        return new PublishingAsyncCrud(crud.async(executor));
+    }
+
+    @Override
+    public Serializable getId(T item) {
+        return crud.getId(item);
+    }
+
+    @Override
+    public Model<T> getModel() {
+        return crud.getModel();
+    }
+
+    @Override
+    public ObjectMapper getObjectMapper() {
+        return crud.getObjectMapper();
+    }
+
+    private class PublishingAsyncCrud implements AsyncCrud<T> {
+        private final AsyncCrud<T> asyncCrud;
+
+        private PublishingAsyncCrud(AsyncCrud<T> asyncCrud) {
+            this.asyncCrud = asyncCrud;
+        }
+
+        private CompletableFuture<Void> publishing(CompletableFuture<Void> write, ChangeType type, List<Serializable> ids) {
+            return write.thenRun(() -> publish(type, ids));
+        }
+
+        @Override
+        public CompletableFuture<Optional<T>> getByIdAsync(Serializable id) {
+            return asyncCrud.getByIdAsync(id);
+        }
+
+        @Override
+        public CompletableFuture<Optional<T>> getByIdAsync(Serializable id, List<String> fields) {
+            return asyncCrud.getByIdAsync(id, fields);
+        }
+
+        @Override
+        public CompletableFuture<List<T>> getByIdsAsync(Iterable<Serializable> ids) {
+            return asyncCrud.getByIdsAsync(ids);
+        }
+
+        @Override
+        public CompletableFuture<Page<T>> searchAsync(Query query, PageSettings settings) {
+            return asyncCrud.searchAsync(query, settings);
+        }
+
+        @Override
+        public CompletableFuture<Long> countAsync(Query query) {
+            return asyncCrud.countAsync(query);
+        }
+
+        @Override
+        public CompletableFuture<Void> createAsync(T item) {
+            // The ID may only be generated by the write
+            return asyncCrud.createAsync(item).thenRun(() -> publish(ChangeType.CREATED, List.of(getId(item))));
+        }
+
+        @Override
+        public CompletableFuture<Void> createAsync(Iterable<T> items) {
+            final List<T> toCreate = Lists.newArrayList(items);
+            return asyncCrud.createAsync(toCreate).whenComplete((result, throwable) -> {
+                final Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+                if (cause == null) {
+                    publish(ChangeType.CREATED, ids(toCreate));
+                } else if (cause instanceof ElepyPartialWriteException) {
+                    publish(ChangeType.CREATED, ids(written(toCreate, (ElepyPartialWriteException) cause)));
+                }
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> updateAsync(T item) {
+            return publishing(asyncCrud.updateAsync(item), ChangeType.UPDATED, List.of(getId(item)));
+        }
+
+        @Override
+        public CompletableFuture<Void> updateAsync(Iterable<T> items) {
+            final List<T> toUpdate = Lists.newArrayList(items);
+            return publishing(asyncCrud.updateAsync(toUpdate), ChangeType.UPDATED, ids(toUpdate));
+        }
+
+        @Override
+        public CompletableFuture<Void> deleteByIdAsync(Serializable id) {
+            return publishing(asyncCrud.deleteByIdAsync(id), ChangeType.DELETED, List.of(id));
+        }
+
+        @Override
+        public CompletableFuture<Void> deleteAsync(Iterable<Serializable> ids) {
+            final List<Serializable> toDelete = Lists.newArrayList(ids);
+            return publishing(asyncCrud.deleteAsync(toDelete), ChangeType.DELETED, toDelete);
+        }
+
+        @Override
+        public Crud<T> blocking() {
+            return PublishingCrud.this;
+        }
+    }
+}
@@ -7,9 +7,20 @@ public class Query {
     private final String searchQuery;
     private final List<Filter> filters;
 
+    /**
+     * The properties to load, or all of them when empty. A Crud may load more properties than asked for, like the ID
+     * and the sorted properties.
+     */
+    private final List<String> fields;
+
     public Query(String searchQuery, List<Filter> filters) {
+        this(searchQuery, filters, List.of());
+    }
+
+    public Query(String searchQuery, List<Filter> filters, List<String> fields) {
         this.searchQuery = searchQuery;
         this.filters = filters;
+        this.fields = fields;
     }
 
     public String getSearchQuery() {
@@ -24,9 +35,18 @@ public class Query {
         return filters;
     }
 
+    public List<String> getFields() {
+        return fields;
+    }
+
+    public boolean hasProjection() {
+        return fields != null && !fields.isEmpty();
+    }
+
     public static final class QueryBuilder {
         private String searchQuery;
         private List<Filter> filterQueries;
+        private List<String> fields = List.of();
 
         private QueryBuilder() {
             this.filters(new ArrayList<>());
@@ -51,8 +71,13 @@ public class Query {
             return this;
         }
 
+        public QueryBuilder fields(List<String> fields) {
+            this.fields = fields;
+            return this;
+        }
+
         public Query build() {
-            return new Query(searchQuery, filterQueries);
+            return new Query(searchQuery, filterQueries, fields);
         }
     }
 }
@@ -24,8 +24,52 @@ public class DefaultIntegrityEvaluator<T> implements IntegrityEvaluator<T> {
         this.crud = crud;
     }
 
+    /**
+     * @return the exception for an item whose ID is already taken
+     */
+    public static ElepyException duplicateId() {
+        return new ElepyException("Duplicate ID's", 400);
+    }
+
+    /**
+     * @return the exception for an item whose value of a unique field is already taken
+     */
+    public static ElepyException duplicateValue(Field field, Object value) {
+        return new ElepyException(String.format("An item with the %s: '%s' already exists in the system!", ReflectionUtils.getPrettyName(field), String.valueOf(value)));
+    }
+
+    /**
+     * Describes a write that was rejected by a unique index of the database, for {@link Crud}'s that
+     * {@link Crud#enforcesUniqueness() enforce uniqueness}.
+     *
+     * @param item     the item that was rejected, or null when that is unknown
+     * @param property the property that the unique index is on
+     * @return the same exception that the integrity checks would have thrown
+     */
+    public static ElepyException uniquenessViolation(Object item, String property) {
+        final Field field = item == null ? null : ReflectionUtils.getPropertyField(item.getClass(), property);
+        if (field == null) {
+            return new ElepyException(String.format("An item with the same %s already exists in the system!", property));
+        }
+        if (ReflectionUtils.getIdField(item.getClass()).map(field::equals).orElse(false)) {
+            return duplicateId();
+        }
+        try {
+            field.setAccessible(true);
+            return duplicateValue(field, field.get(item));
+        } catch (IllegalAccessException e) {
+            return new ElepyException(String.format("An item with the same %s already exists in the system!", ReflectionUtils.getPrettyName(field)));
+        }
+    }
+
+    /**
+     * Checks the uniqueness of the item, unless the {@link Crud} has unique indexes that do so.
+     */
     @Override
     public void evaluate(T item, EvaluationType isACreate) {
+        if (crud.enforcesUniqueness()) {
+            return;
+        }
         try {
             checkUniqueness(item, crud, isACreate.equals(EvaluationType.CREATE));
         } catch (IllegalAccessException e) {
@@ -44,7 +88,7 @@ public class DefaultIntegrityEvaluator<T> implements IntegrityEvaluator<T> {
         Optional<Serializable> id = ReflectionUtils.getId(item);
 
         if (insert && id.isPresent() && dao.getById(id.get()).isPresent()) {
-            throw new ElepyException("Duplicate ID's", 400);
+            throw duplicateId();
         }
 
         for (Field field : uniqueFields) {
@@ -55,13 +99,13 @@ public class DefaultIntegrityEvaluator<T> implements IntegrityEvaluator<T> {
             if (foundItems.size() > 0) {
 
                 if (foundItems.size() > 1) {
-                    throw new ElepyException(String.format("An item with the %s: '%s' already exists in the system!", ReflectionUtils.getPrettyName(field), String.valueOf(prop)));
+                    throw duplicateValue(field, prop);
                 }
 
                 T foundRecord = foundItems.get(0);
                 final Optional<Serializable> foundId = ReflectionUtils.getId(foundRecord);
                 if ((id.isPresent() || foundId.isPresent()) && !id.equals(foundId)) {
-                    throw new ElepyException(String.format("An item with the %s: '%s' already exists in the system!", ReflectionUtils.getPrettyName(field), String.valueOf(prop)));
+                    throw duplicateValue(field, prop);
                 }
             }
         }
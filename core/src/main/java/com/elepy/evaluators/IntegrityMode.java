@@ -0,0 +1,33 @@
+package com.elepy.evaluators;
+
+import com.elepy.annotations.Integrity;
+
+/**
+ * How the uniqueness of the IDs and {@link com.elepy.annotations.Unique} properties of a model is guarded.
+ *
+ * @see Integrity
+ */
+public enum IntegrityMode {
+    /**
+     * The {@link DefaultIntegrityEvaluator} looks for duplicates before every create and update. This works with any
+     * Crud, but costs extra queries on every write and can let duplicates through under concurrent writes.
+     */
+    CHECKED,
+
+    /**
+     * The database rejects duplicates with unique indexes, which are created at startup. Writes cost a single round
+     * trip and stay correct under concurrent writes. Crud's that can't create the unique indexes fall back to
+     * {@link #CHECKED}.
+     *
+     * @see com.elepy.dao.Crud#enforcesUniqueness()
+     */
+    DATABASE;
+
+    /**
+     * @return the integrity mode of a model class
+     */
+    public static IntegrityMode of(Class<?> modelType) {
+        final Integrity integrity = modelType.getAnnotation(Integrity.class);
+        return integrity == null ? CHECKED : integrity.value();
+    }
+}
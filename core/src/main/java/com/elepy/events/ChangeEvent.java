@@ -0,0 +1,69 @@
+package com.elepy.events;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * A write to a single item of a model. Events only identify the item, subscribers that need the item itself read it
+ * from the model's Crud.
+ *
+ * @see ChangeEventBus
+ */
+public class ChangeEvent {
+
+    private final String modelSlug;
+    private final Serializable id;
+    private final ChangeType type;
+    private final long timestamp;
+
+    public ChangeEvent(String modelSlug, Serializable id, ChangeType type) {
+        this(modelSlug, id, type, System.currentTimeMillis());
+    }
+
+    /**
+     * @param timestamp when the item was written, in milliseconds since the epoch
+     */
+    public ChangeEvent(String modelSlug, Serializable id, ChangeType type, long timestamp) {
+        this.modelSlug = modelSlug;
+        this.id = id;
+        this.type = type;
+        this.timestamp = timestamp;
+    }
+
+    public String getModelSlug() {
+        return modelSlug;
+    }
+
+    public Serializable getId() {
+        return id;
+    }
+
+    public ChangeType getType() {
+        return type;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ChangeEvent that = (ChangeEvent) o;
+        return timestamp == that.timestamp &&
+                modelSlug.equals(that.modelSlug) &&
+                Objects.equals(id, that.id) &&
+                type == that.type;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(modelSlug, id, type, timestamp);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s/%s", type, modelSlug, id);
+    }
+}
@@ -0,0 +1,200 @@
+package com.elepy.events;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the {@link ChangeEvent}'s of all models, so that caches, search indexes and live clients don't have to
+ * poll for changes.
+ * <p>
+ * Publishing never blocks the writer. Every subscriber has a bounded buffer and gets events as fast as it requests
+ * them; when a buffer is full, new events are dropped for that subscriber only and a {@link ChangeListener} is told
+ * that it {@link ChangeListener#onMissed() missed} events. It is told on its own thread, before its next event, so
+ * that the writer never waits for a listener to recover.
+ * <p>
+ * Writes through Elepy's Crud's are published by a {@link com.elepy.dao.PublishingCrud}. A model whose database
+ * reports its own changes, including the writes of other nodes, can be {@link #registerSource(String) published by
+ * that source} instead.
+ */
+public class ChangeEventBus implements Flow.Publisher<ChangeEvent>, AutoCloseable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private static final Logger logger = LoggerFactory.getLogger(ChangeEventBus.class);
+
+    private final ExecutorService executor;
+    private final SubmissionPublisher<ChangeEvent> publisher;
+
+    private final Map<ChangeListener, Flow.Subscription> listeners = new ConcurrentHashMap<>();
+    private final Set<String> sourcedModels = ConcurrentHashMap.newKeySet();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public ChangeEventBus() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize the maximum amount of events that a subscriber can fall behind
+     */
+    public ChangeEventBus(int bufferSize) {
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            final Thread thread = new Thread(runnable, "elepy-change-events");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.publisher = new SubmissionPublisher<>(executor, bufferSize);
+    }
+
+    /**
+     * Lets a source that sees every write to a model, such as a database change stream, publish its events. Writes
+     * through this node are then no longer published a second time.
+     *
+     * @param modelSlug the slug of the model
+     */
+    public void registerSource(String modelSlug) {
+        sourcedModels.add(modelSlug);
+    }
+
+    /**
+     * @return true if the changes of the model are published by a registered source
+     */
+    public boolean hasSource(String modelSlug) {
+        return sourcedModels.contains(modelSlug);
+    }
+
+    /**
+     * @return true if publishing an event is worth the effort
+     */
+    public boolean hasSubscribers() {
+        return publisher.hasSubscribers();
+    }
+
+    /**
+     * Offers an event to every subscriber without waiting for any of them.
+     */
+    public void publish(ChangeEvent event) {
+        if (publisher.isClosed() || !publisher.hasSubscribers()) {
+            return;
+        }
+        publisher.offer(event, (subscriber, droppedEvent) -> {
+            dropped.incrementAndGet();
+            logger.warn("A change event subscriber is too far behind, dropped {}", droppedEvent);
+
+            if (subscriber instanceof ListenerSubscriber) {
+                ((ListenerSubscriber) subscriber).markBehind(droppedEvent);
+            }
+            return false;
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ChangeEvent> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * @param modelSlug the slug of the model to listen to, or null to listen to all models
+     * @param listener  is called with every event, one at a time
+     * @see #unsubscribe(ChangeListener)
+     */
+    public void subscribe(String modelSlug, ChangeListener listener) {
+        publisher.subscribe(new ListenerSubscriber(modelSlug, listener));
+    }
+
+    public void unsubscribe(ChangeListener listener) {
+        final Flow.Subscription subscription = listeners.remove(listener);
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    /**
+     * @return the amount of events that were dropped for subscribers that fell behind
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Completes all subscriptions after the events that are already buffered.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+        executor.shutdown();
+    }
+
+    private class ListenerSubscriber implements Flow.Subscriber<ChangeEvent> {
+        private final String modelSlug;
+        private final ChangeListener listener;
+        private final AtomicBoolean behind = new AtomicBoolean();
+
+        private ListenerSubscriber(String modelSlug, ChangeListener listener) {
+            this.modelSlug = modelSlug;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            listeners.put(listener, subscription);
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(ChangeEvent event) {
+            if (behind.getAndSet(false)) {
+                missed();
+            }
+            if (!listensTo(event)) {
+                return;
+            }
+            try {
+                listener.onChange(event);
+            } catch (RuntimeException e) {
+                logger.error("A change listener failed on " + event, e);
+            }
+        }
+
+        private boolean listensTo(ChangeEvent event) {
+            return modelSlug == null || modelSlug.equals(event.getModelSlug());
+        }
+
+        /**
+         * Called on the publishing thread, so the listener is only told on its own thread. The buffer is full, so
+         * there is a next event to tell it before.
+         */
+        private void markBehind(ChangeEvent droppedEvent) {
+            if (listensTo(droppedEvent)) {
+                behind.set(true);
+            }
+        }
+
+        private void missed() {
+            try {
+                listener.onMissed();
+            } catch (RuntimeException e) {
+                logger.error("A change listener failed to handle missed events", e);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public void onComplete() {
+            listeners.remove(listener);
+        }
+    }
+}
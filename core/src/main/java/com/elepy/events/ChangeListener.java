@@ -0,0 +1,21 @@
+package com.elepy.events;
+
+/**
+ * Listens to the {@link ChangeEvent}'s of a model.
+ *
+ * @see ChangeEventBus#subscribe(String, ChangeListener)
+ */
+@FunctionalInterface
+public interface ChangeListener {
+
+    void onChange(ChangeEvent event);
+
+    /**
+     * Called when events were dropped because this listener fell too far behind. Listeners that must not miss a
+     * change, like caches, should start over from scratch.
+     * <p>
+     * It is called on the thread of {@link #onChange(ChangeEvent)}, before the next event this listener gets.
+     */
+    default void onMissed() {
+    }
+}
@@ -0,0 +1,8 @@
+package com.elepy.events;
+
+/**
+ * The kind of write that a {@link ChangeEvent} is about.
+ */
+public enum ChangeType {
+    CREATED, UPDATED, DELETED
+}
@@ -0,0 +1,42 @@
+package com.elepy.exceptions;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Thrown by a batch write, like {@link com.elepy.dao.Crud#create(Iterable)}, when some of the items were rejected
+ * and all the others were written.
+ */
+public class ElepyPartialWriteException extends ElepyException {
+
+    private final SortedMap<Integer, ElepyException> failures;
+
+    /**
+     * @param failures the reason every rejected item failed, by its index in the batch
+     */
+    public ElepyPartialWriteException(Map<Integer, ElepyException> failures, int batchSize, Throwable cause) {
+        super(String.format("%d of %d items failed to be written: %s", failures.size(), batchSize, first(failures).getMessage()),
+                first(failures).getStatus(), cause);
+        this.failures = Collections.unmodifiableSortedMap(new TreeMap<>(failures));
+    }
+
+    private static ElepyException first(Map<Integer, ElepyException> failures) {
+        return new TreeMap<>(failures).firstEntry().getValue();
+    }
+
+    /**
+     * @return the reason every rejected item failed, by its index in the batch
+     */
+    public SortedMap<Integer, ElepyException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return true if the item at the index in the batch was written
+     */
+    public boolean isWritten(int index) {
+        return !failures.containsKey(index);
+    }
+}
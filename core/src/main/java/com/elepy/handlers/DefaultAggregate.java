@@ -0,0 +1,48 @@
+package com.elepy.handlers;
+
+import com.elepy.dao.*;
+import com.elepy.http.HttpContext;
+import com.elepy.http.Request;
+import com.elepy.models.ModelContext;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Aggregates the items of a model, e.g.
+ * '/products/aggregate?groupBy=category&amp;aggregate=count&amp;aggregate=sum:price&amp;price_gt=10'. The search and the
+ * filters are the same as when finding items. A date property can be grouped into buckets with
+ * 'bucket=year|month|day|hour'.
+ */
+public class DefaultAggregate<T> {
+
+    public void handleAggregate(HttpContext context, Crud<T> crud, ModelContext<T> modelContext, ObjectMapper objectMapper) throws Exception {
+        final Aggregation aggregation = aggregation(context.request(), modelContext);
+
+        final List<AggregationBucket> buckets = crud.aggregate(aggregation);
+
+        context.response().type("application/json");
+        context.response().status(200);
+        context.response().result(objectMapper.writeValueAsString(buckets));
+    }
+
+    protected Aggregation aggregation(Request request, ModelContext<T> modelContext) {
+        final Query query = new Query(request.queryParams("q"), request.filtersForModel(modelContext.getModelType()));
+
+        final String[] aggregateParams = request.queryParamValues("aggregate");
+        final List<Aggregate> aggregates = aggregateParams == null ? List.of() : Arrays.stream(aggregateParams)
+                .flatMap(param -> Arrays.stream(param.split(",")))
+                .filter(aggregate -> !aggregate.trim().isEmpty())
+                .map(Aggregate::parse)
+                .collect(Collectors.toList());
+
+        final String groupBy = request.queryParams("groupBy");
+        final Aggregation aggregation = new Aggregation(query, groupBy == null || groupBy.isEmpty() ? null : groupBy,
+                DateBucket.get(request.queryParams("bucket")), aggregates);
+
+        aggregation.validate(modelContext.getModelType());
+        return aggregation;
+    }
+}
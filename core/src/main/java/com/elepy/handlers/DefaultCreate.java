@@ -42,7 +42,7 @@ public class DefaultCreate<T> implements CreateHandler<T> {
         create(response, dao, items);
     }
 
-    private void evaluate(T item, ModelContext<T> modelContext, Crud<T> dao) throws Exception {
+    protected void evaluate(T item, ModelContext<T> modelContext, Crud<T> dao) throws Exception {
         for (ObjectEvaluator<T> objectEvaluator : modelContext.getObjectEvaluators()) {
             objectEvaluator.evaluate(item);
         }
@@ -0,0 +1,132 @@
+package com.elepy.handlers;
+
+import com.elepy.dao.CountMode;
+import com.elepy.dao.Crud;
+import com.elepy.dao.PageSettings;
+import com.elepy.dao.Query;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.http.HttpContext;
+import com.elepy.http.Request;
+import com.elepy.models.ModelContext;
+import com.elepy.models.Property;
+import com.elepy.utils.MapperUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exports every item that matches a query in a single pass, e.g. '/products/export?format=csv&amp;price_lt=100'. The
+ * search, filters, sorting and fields are the same as when finding items.
+ * <p>
+ * The items are read from a database cursor with {@link Crud#stream(Query, PageSettings)} and written straight to
+ * the response as they are read, so memory use doesn't grow with the size of the export. The format is 'ndjson' (the
+ * default) or 'csv'. CSV columns are the requested fields, or all properties of the model, and nested values are
+ * written as JSON.
+ */
+public class DefaultExport<T> extends DefaultFindMany<T> {
+
+    public void handleExport(HttpContext context, Crud<T> crud, ModelContext<T> modelContext, ObjectMapper objectMapper) throws IOException {
+        final boolean csv = csv(context.request());
+        final Query query = query(context.request(), modelContext);
+        final PageSettings settings = new PageSettings(1L, Integer.MAX_VALUE, context.request().sortingForModel(modelContext.getModel()), null, CountMode.NONE);
+
+        final String[] path = modelContext.getSlug().split("/");
+        context.response().type(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        context.response().header("Content-Disposition", String.format("attachment; filename=\"%s.%s\"", path[path.length - 1], csv ? "csv" : "ndjson"));
+        context.response().status(200);
+
+        try (Stream<T> values = crud.stream(query, settings); OutputStream outputStream = context.response().outputStream()) {
+            if (csv) {
+                writeCsv(outputStream, values.iterator(), columns(query, modelContext), query, objectMapper);
+            } else {
+                writeNdjson(outputStream, values.iterator(), query, objectMapper);
+            }
+        }
+    }
+
+    private boolean csv(Request request) {
+        final String format = request.queryParamOrDefault("format", "ndjson");
+        if (format.equalsIgnoreCase("csv")) {
+            return true;
+        }
+        if (format.equalsIgnoreCase("ndjson")) {
+            return false;
+        }
+        throw new ElepyException(String.format("Can't export to '%s', only to 'csv' and 'ndjson'", format), 400);
+    }
+
+    private List<String> columns(Query query, ModelContext<T> modelContext) {
+        if (query.hasProjection()) {
+            return query.getFields();
+        }
+        return modelContext.getModel().getProperties().stream().map(Property::getName).collect(Collectors.toList());
+    }
+
+    private void writeNdjson(OutputStream outputStream, Iterator<T> values, Query query, ObjectMapper objectMapper) throws IOException {
+        final ObjectWriter valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            while (values.hasNext()) {
+                final T value = values.next();
+                valueWriter.writeValue(generator, query.hasProjection() ? MapperUtils.project(objectMapper, value, query.getFields()) : value);
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private void writeCsv(OutputStream outputStream, Iterator<T> values, List<String> columns, Query query, ObjectMapper objectMapper) throws IOException {
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+
+        writeCsvRow(writer, columns);
+        while (values.hasNext()) {
+            final T value = values.next();
+            final JsonNode node = query.hasProjection() ? MapperUtils.project(objectMapper, value, query.getFields()) : objectMapper.valueToTree(value);
+
+            writeCsvRow(writer, columns.stream().map(column -> cell(node.get(column), objectMapper)).collect(Collectors.toList()));
+        }
+        writer.flush();
+    }
+
+    private static String cell(JsonNode value, ObjectMapper objectMapper) {
+        if (value == null || value.isNull()) {
+            return "";
+        }
+        if (value.isValueNode()) {
+            return value.asText();
+        }
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new ElepyException("Failed to write a CSV value", 500, e);
+        }
+    }
+
+    private static void writeCsvRow(Writer writer, List<String> cells) throws IOException {
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(cells.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    /**
+     * Quotes a cell as RFC 4180 describes, when it needs to be.
+     */
+    static String escapeCsv(String cell) {
+        if (cell.contains(",") || cell.contains("\"") || cell.contains("\n") || cell.contains("\r")) {
+            return '"' + cell.replace("\"", "\"\"") + '"';
+        }
+        return cell;
+    }
+}
@@ -1,39 +1,201 @@
 package com.elepy.handlers;
 
-import com.elepy.dao.Crud;
-import com.elepy.dao.Page;
-import com.elepy.dao.PageSettings;
-import com.elepy.dao.Query;
+import com.elepy.dao.*;
 import com.elepy.http.HttpContext;
 import com.elepy.http.Request;
 import com.elepy.http.Response;
 import com.elepy.models.ModelContext;
+import com.elepy.utils.MapperUtils;
+import com.elepy.utils.ReflectionUtils;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class DefaultFindMany<T> implements FindManyHandler<T> {
 
     @Override
     public void handleFindMany(HttpContext context, Crud<T> crud, ModelContext<T> modelContext, ObjectMapper objectMapper) throws Exception {
-        Page<T> page = find(context.request(), context.response(), crud, modelContext);
+        final Query query = query(context.request(), modelContext);
+        final PageSettings settings = pageSettings(context.request(), modelContext);
+        final List<Facet> facets = facets(context.request(), modelContext);
+
+        if (!facets.isEmpty()) {
+            context.response().type("application/json");
+            context.response().status(200);
+            context.response().result(objectMapper.writeValueAsString(facetedPage(crud.facetedSearch(query, settings, facets), query, objectMapper)));
+            return;
+        }
+
+        final long amountOfResultsWithThatQuery = crud.count(query, settings.getCountMode());
+
+        // An unbounded page is streamed without an ETag, a bounded page of a versioned model is small enough to load
+        final Optional<Field> versionField = ETags.versionField(modelContext.getModelType());
+        if (versionField.isPresent() && settings.getPageSize() < Integer.MAX_VALUE) {
+            handleVersionedPage(context, crud, modelContext, query, settings, amountOfResultsWithThatQuery, versionField.get(), objectMapper);
+            return;
+        }
+
+        context.response().type("application/json");
+        context.response().status(200);
+
+        try (Stream<T> values = crud.stream(query, settings.lookAhead()); OutputStream outputStream = context.response().outputStream()) {
+            writePage(outputStream, values, amountOfResultsWithThatQuery, query, settings, crud, objectMapper);
+        }
+    }
+
+    /**
+     * Answers with '304 Not Modified' when the client has the ETag of the page, which is checked with only the IDs and
+     * versions of the values. Otherwise the page is loaded, so that its ETag is made from the values that are written.
+     */
+    private void handleVersionedPage(HttpContext context, Crud<T> crud, ModelContext<T> modelContext, Query query, PageSettings settings, long amountOfResults, Field versionField, ObjectMapper objectMapper) throws IOException {
+        final String ifNoneMatch = context.request().headers("If-None-Match");
+        if (ifNoneMatch != null) {
+            final Query versionQuery = new Query(query.getSearchQuery(), query.getFilters(), ETags.versionFields(modelContext.getIdField(), versionField));
+            final PageSettings uncounted = new PageSettings(settings.getPageNumber(), settings.getPageSize(), settings.getPropertySortList(), settings.getAfter(), CountMode.NONE);
+            final String eTag = ETags.ofPage(crud.search(versionQuery, uncounted), amountOfResults, query.getFields(), versionField);
 
-        context.response().result(objectMapper.writeValueAsString(page));
+            if (ETags.matches(ifNoneMatch, eTag)) {
+                ETags.notModified(context, eTag);
+                return;
+            }
+        }
+
+        final List<T> values;
+        try (Stream<T> stream = crud.stream(versionedQuery(query, versionField), settings.lookAhead())) {
+            values = stream.collect(Collectors.toList());
+        }
+        final Page<T> page = Page.fromLookAhead(crud, values, settings, amountOfResults);
+
+        context.response().header("ETag", ETags.ofPage(page, amountOfResults, query.getFields(), versionField));
+        context.response().type("application/json");
+        context.response().status(200);
+        context.response().result(objectMapper.writeValueAsString(projected(page, query, objectMapper)));
+    }
+
+    /**
+     * @return the query, with the version among the loaded fields of a projection
+     */
+    private Query versionedQuery(Query query, Field versionField) {
+        if (ETags.includesVersion(query.getFields(), versionField)) {
+            return query;
+        }
+        final List<String> fields = new ArrayList<>(query.getFields());
+        fields.add(ReflectionUtils.getPropertyName(versionField));
+        return new Query(query.getSearchQuery(), query.getFilters(), fields);
     }
 
     public Page<T> find(Request request, Response response, Crud<T> dao, ModelContext<T> modelContext) {
 
         response.type("application/json");
-        String q = request.queryParams("q");
 
+        response.status(200);
+
+        return dao.search(query(request, modelContext), pageSettings(request, modelContext));
+    }
+
+    protected Query query(Request request, ModelContext<T> modelContext) {
+        return new Query(request.queryParams("q"), request.filtersForModel(modelContext.getModelType()), request.fieldsForModel(modelContext.getModelType()));
+    }
+
+    /**
+     * The facets requested with 'facet' parameters, like 'facet=status' or 'facet=price:0,10,50'.
+     *
+     * @see Facet#parse(String)
+     */
+    protected List<Facet> facets(Request request, ModelContext<T> modelContext) {
+        final String[] facetParams = request.queryParamValues("facet");
+        if (facetParams == null) {
+            return List.of();
+        }
+        final List<Facet> facets = Arrays.stream(facetParams)
+                .filter(facet -> !facet.trim().isEmpty())
+                .map(Facet::parse)
+                .distinct()
+                .collect(Collectors.toList());
+
+        facets.forEach(facet -> facet.validate(modelContext.getModelType()));
+        return facets;
+    }
+
+    private FacetedPage<?> facetedPage(FacetedPage<T> page, Query query, ObjectMapper objectMapper) {
+        if (!query.hasProjection()) {
+            return page;
+        }
+        return new FacetedPage<>(projected(page, query, objectMapper), page.getFacets());
+    }
+
+    /**
+     * @return the page with only the requested fields of every value
+     */
+    protected Page<?> projected(Page<T> page, Query query, ObjectMapper objectMapper) {
+        if (!query.hasProjection()) {
+            return page;
+        }
+        final List<Object> projected = page.getValues().stream()
+                .map(value -> MapperUtils.project(objectMapper, value, query.getFields()))
+                .collect(Collectors.toList());
+
+        return new Page<>(page.getCurrentPageNumber(), page.getLastPageNumber(), projected, page.getAfter(), page.isHasNext());
+    }
+
+    protected PageSettings pageSettings(Request request, ModelContext<T> modelContext) {
         String ps = request.queryParams("pageSize");
         String pn = request.queryParams("pageNumber");
+        String cursor = request.queryParams("cursor");
+        String count = request.queryParams("count");
 
         int pageSize = ps == null ? Integer.MAX_VALUE : Integer.parseInt(ps);
         int pageNumber = pn == null ? 1 : Integer.parseInt(pn);
 
-        response.status(200);
-
-        return dao.search(new Query(q, request.filtersForModel(modelContext.getModelType())), new PageSettings(pageNumber, pageSize, request.sortingForModel(modelContext.getModel())));
+        return new PageSettings(pageNumber, pageSize, request.sortingForModel(modelContext.getModel()), cursor, CountMode.get(count));
     }
 
+    /**
+     * Writes a {@link Page} one value at a time, so that memory use does not grow with the size of the page.
+     *
+     * @param values the values, streamed with {@link PageSettings#lookAhead()}
+     */
+    private void writePage(OutputStream outputStream, Stream<T> values, long amountOfResultsWithThatQuery, Query query, PageSettings settings, Crud<T> crud, ObjectMapper objectMapper) throws IOException {
+        final ObjectWriter valueWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
 
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.writeStartObject();
+            generator.writeNumberField("currentPageNumber", settings.getPageNumber());
+            generator.writeNumberField("lastPageNumber", settings.lastPageNumber(amountOfResultsWithThatQuery));
+
+            generator.writeArrayFieldStart("values");
+            final Iterator<T> iterator = values.iterator();
+            int size = 0;
+            T last = null;
+            for (; size < settings.getPageSize() && iterator.hasNext(); size++) {
+                last = iterator.next();
+                if (query.hasProjection()) {
+                    valueWriter.writeValue(generator, MapperUtils.project(objectMapper, last, query.getFields()));
+                } else {
+                    valueWriter.writeValue(generator, last);
+                }
+            }
+            generator.writeEndArray();
+
+            // The values were streamed with look ahead, a value that didn't fit is on the next page
+            final boolean hasNext = iterator.hasNext();
+
+            generator.writeNumberField("originalSize", size);
+            generator.writeStringField("after", hasNext ? Cursor.nextToken(crud, last, size, settings) : null);
+            generator.writeBooleanField("hasNext", hasNext);
+            generator.writeEndObject();
+        }
+    }
 }
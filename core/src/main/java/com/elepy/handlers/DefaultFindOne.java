@@ -6,17 +6,40 @@ import com.elepy.http.HttpContext;
 import com.elepy.http.Request;
 import com.elepy.http.Response;
 import com.elepy.models.ModelContext;
+import com.elepy.utils.MapperUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.List;
 import java.util.Optional;
 
 public class DefaultFindOne<T> implements FindOneHandler<T> {
 
     @Override
     public void handleFindOne(HttpContext context, Crud<T> crud, ModelContext<T> modelContext, ObjectMapper objectMapper) throws Exception {
+        final List<String> fields = context.request().fieldsForModel(modelContext.getModelType());
+        final Optional<Field> versionField = ETags.versionField(modelContext.getModelType()).filter(field -> ETags.includesVersion(fields, field));
+
+        // Only the version is loaded to answer If-None-Match for a whole item. A projection is small enough to load.
+        String eTag = null;
+        if (versionField.isPresent() && fields.isEmpty() && context.request().headers("If-None-Match") != null) {
+            final Optional<T> version = crud.getById(context.request().modelId(), ETags.versionFields(modelContext.getIdField(), versionField.get()));
+            if (version.isPresent()) {
+                eTag = ETags.ofVersion(version.get(), fields, versionField.get());
+                if (ETags.notModified(context, eTag)) {
+                    return;
+                }
+            }
+        }
+
         T object = findOne(context.request(), context.response(), crud, modelContext);
-        context.response().result(objectMapper.writeValueAsString(object));
+        final byte[] body = objectMapper.writeValueAsBytes(MapperUtils.project(objectMapper, object, fields));
+
+        if (eTag == null && ETags.notModified(context, versionField.isPresent() ? ETags.ofVersion(object, fields, versionField.get()) : ETags.ofContent(body))) {
+            return;
+        }
+        context.response().result(body);
     }
 
     public T findOne(Request request, Response response, Crud<T> dao, ModelContext<T> modelContext) {
@@ -24,7 +47,7 @@ public class DefaultFindOne<T> implements FindOneHandler<T> {
 
         Serializable paramId = request.modelId();
 
-        final Optional<T> id = dao.getById(paramId);
+        final Optional<T> id = dao.getById(paramId, request.fieldsForModel(modelContext.getModelType()));
         if (id.isPresent()) {
             response.status(200);
             return id.get();
@@ -0,0 +1,301 @@
+package com.elepy.handlers;
+
+import com.elepy.dao.Crud;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.exceptions.ElepyPartialWriteException;
+import com.elepy.http.HttpContext;
+import com.elepy.http.Request;
+import com.elepy.models.ModelContext;
+import com.elepy.utils.ReflectionUtils;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+/**
+ * Imports items from a body of newline delimited JSON (application/x-ndjson) or from a JSON array, e.g.
+ * 'POST /products/import?batchSize=500'. The body is read as it arrives, so the size of an import is not bounded by
+ * memory.
+ * <p>
+ * Items are read a batch at a time. The items of a batch are evaluated in parallel on a bounded pool of threads, like
+ * a created item is, and then written with a single {@link Crud#create(Iterable)}. An invalid item doesn't stop the
+ * import, it is reported with its line, or its position in the array. A batch that fails to be written is reported for all its items, unless the
+ * Crud {@link ElepyPartialWriteException reports} which of them were rejected.
+ */
+public class DefaultImport<T> extends DefaultCreate<T> {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int MAX_BATCH_SIZE = 10000;
+
+    /**
+     * Errors beyond this amount are only counted, to keep the report small.
+     */
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int EVALUATION_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Evaluations can query the database, so they don't run on the common ForkJoinPool. When every thread is busy, an
+     * importing thread evaluates the items itself.
+     */
+    private static final ExecutorService EVALUATIONS = evaluationExecutor();
+
+    private static ExecutorService evaluationExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(EVALUATION_THREADS, EVALUATION_THREADS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(EVALUATION_THREADS * 4), runnable -> {
+            final Thread thread = new Thread(runnable, "elepy-import-evaluation");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public void handleImport(HttpContext context, Crud<T> crud, ModelContext<T> modelContext, ObjectMapper objectMapper) throws IOException {
+        final int batchSize = batchSize(context.request());
+        final ObjectReader reader = objectMapper.readerFor(modelContext.getModelType());
+        final ImportReport report = new ImportReport();
+
+        try (BufferedReader body = new BufferedReader(new InputStreamReader(context.request().bodyAsStream(), StandardCharsets.UTF_8))) {
+            final RecordReader<ImportRecord> records = startsWithArray(body) ? new ArrayRecordReader(reader.readValues(body)) : new LineRecordReader(body, reader);
+
+            List<ImportRecord> batch = new ArrayList<>(batchSize);
+            for (ImportRecord record = records.next(); record != null; record = records.next()) {
+                batch.add(record);
+                if (batch.size() == batchSize) {
+                    importBatch(batch, crud, modelContext, report);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            importBatch(batch, crud, modelContext, report);
+        }
+
+        context.response().type("application/json");
+        context.response().status(200);
+        context.response().result(objectMapper.writeValueAsString(report));
+    }
+
+    protected int batchSize(Request request) {
+        final String batchSize = request.queryParams("batchSize");
+        if (batchSize == null) {
+            return DEFAULT_BATCH_SIZE;
+        }
+        try {
+            final int size = Integer.parseInt(batchSize);
+            if (size < 1 || size > MAX_BATCH_SIZE) {
+                throw new ElepyException(String.format("The batch size must be between 1 and %d", MAX_BATCH_SIZE), 400);
+            }
+            return size;
+        } catch (NumberFormatException e) {
+            throw new ElepyException(String.format("Invalid batch size '%s'", batchSize), 400);
+        }
+    }
+
+    private void importBatch(List<ImportRecord> batch, Crud<T> crud, ModelContext<T> modelContext, ImportReport report) {
+        final CompletableFuture<?>[] evaluations = batch.stream()
+                .filter(ImportRecord::isValid)
+                .map(record -> CompletableFuture.runAsync(() -> {
+                    try {
+                        evaluate(record.item, modelContext, crud);
+                    } catch (Exception e) {
+                        record.error = e.getMessage();
+                    }
+                }, EVALUATIONS))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(evaluations).join();
+        rejectDuplicates(batch, modelContext.getModelType());
+
+        final List<ImportRecord> valid = batch.stream().filter(ImportRecord::isValid).collect(Collectors.toList());
+        if (!valid.isEmpty()) {
+            try {
+                crud.create(valid.stream().map(record -> record.item).collect(Collectors.toList()));
+                report.created += valid.size();
+            } catch (ElepyPartialWriteException e) {
+                for (int i = 0; i < valid.size(); i++) {
+                    if (e.isWritten(i)) {
+                        report.created++;
+                    } else {
+                        valid.get(i).error = e.getFailures().get(i).getMessage();
+                    }
+                }
+            } catch (RuntimeException e) {
+                valid.forEach(record -> record.error = e.getMessage());
+            }
+        }
+        batch.stream().filter(record -> !record.isValid()).forEach(record -> report.failed(record.line, record.error));
+    }
+
+    /**
+     * The evaluation only checks uniqueness against the items that are already stored, not against the rest of the
+     * batch.
+     */
+    private void rejectDuplicates(List<ImportRecord> batch, Class<T> modelType) {
+        final List<Field> uniqueFields = ReflectionUtils.getUniqueFields(modelType);
+        final Map<Field, Map<Object, Long>> seen = new HashMap<>();
+
+        for (ImportRecord record : batch) {
+            if (!record.isValid()) {
+                continue;
+            }
+            for (Field field : uniqueFields) {
+                final Object value = value(field, record.item);
+                if (value == null) {
+                    continue;
+                }
+                final Long firstLine = seen.computeIfAbsent(field, f -> new HashMap<>()).putIfAbsent(value, record.line);
+                if (firstLine != null) {
+                    record.error = String.format("Duplicate %s '%s', also on line %d", ReflectionUtils.getPrettyName(field), value, firstLine);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static Object value(Field field, Object item) {
+        try {
+            field.setAccessible(true);
+            return field.get(item);
+        } catch (IllegalAccessException e) {
+            throw new ElepyException("Failed to reflectively access: " + field.getName(), 500);
+        }
+    }
+
+    private static boolean startsWithArray(BufferedReader body) throws IOException {
+        body.mark(1);
+        int c = body.read();
+        while (c != -1 && Character.isWhitespace(c)) {
+            body.mark(1);
+            c = body.read();
+        }
+        body.reset();
+        return c == '[';
+    }
+
+    private static String message(JsonProcessingException e) {
+        return e.getOriginalMessage();
+    }
+
+    private interface RecordReader<R> {
+        /**
+         * @return the next record, or null at the end of the body
+         */
+        R next() throws IOException;
+    }
+
+    /**
+     * Every line is an item on its own, so a malformed line doesn't affect the others.
+     */
+    private class LineRecordReader implements RecordReader<ImportRecord> {
+        private final BufferedReader body;
+        private final ObjectReader reader;
+        private long line;
+
+        private LineRecordReader(BufferedReader body, ObjectReader reader) {
+            this.body = body;
+            this.reader = reader;
+        }
+
+        @Override
+        public ImportRecord next() throws IOException {
+            String json;
+            do {
+                json = body.readLine();
+                line++;
+            } while (json != null && json.trim().isEmpty());
+
+            if (json == null) {
+                return null;
+            }
+            try {
+                return new ImportRecord(line, reader.readValue(json), null);
+            } catch (JsonProcessingException e) {
+                return new ImportRecord(line, null, message(e));
+            }
+        }
+    }
+
+    /**
+     * An item that can't be mapped is skipped. Malformed JSON ends the array, because it is unclear where the next
+     * item would start.
+     */
+    private class ArrayRecordReader implements RecordReader<ImportRecord> {
+        private final MappingIterator<T> items;
+        private long position;
+        private boolean ended;
+
+        private ArrayRecordReader(MappingIterator<T> items) {
+            this.items = items;
+        }
+
+        @Override
+        public ImportRecord next() throws IOException {
+            if (ended || !items.hasNextValue()) {
+                return null;
+            }
+            position++;
+            try {
+                return new ImportRecord(position, items.nextValue(), null);
+            } catch (JsonParseException e) {
+                ended = true;
+                return new ImportRecord(position, null, message(e));
+            } catch (JsonMappingException e) {
+                return new ImportRecord(position, null, message(e));
+            }
+        }
+    }
+
+    private class ImportRecord {
+        private final long line;
+        private final T item;
+        private volatile String error;
+
+        private ImportRecord(long line, T item, String error) {
+            this.line = line;
+            this.item = item;
+            this.error = error;
+        }
+
+        private boolean isValid() {
+            return error == null;
+        }
+    }
+
+    /**
+     * The outcome of an import, as it is returned.
+     */
+    public static class ImportReport {
+        private long created;
+        private long failed;
+        private final List<Map<String, Object>> errors = new ArrayList<>();
+
+        private void failed(long line, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(Map.of("line", line, "message", String.valueOf(error)));
+            }
+        }
+
+        public long getCreated() {
+            return created;
+        }
+
+        public long getFailed() {
+            return failed;
+        }
+
+        public List<Map<String, Object>> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.elepy.handlers;
+
+import com.elepy.dao.*;
+import com.elepy.events.ChangeEvent;
+import com.elepy.events.ChangeEventBus;
+import com.elepy.events.ChangeListener;
+import com.elepy.events.ChangeType;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.http.EventStream;
+import com.elepy.http.HttpContext;
+import com.elepy.models.ModelContext;
+import com.elepy.utils.MapperUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A live query over Server-Sent Events, e.g. '/products/live?q=chair&amp;price_lt=100'. The search, filters, sorting
+ * and paging are the same as when finding items.
+ * <p>
+ * The stream starts with a 'page' event, the same page that finding items returns. After that, only the changes to
+ * the results are pushed:
+ * <ul>
+ * <li>'upsert' with the item, when an item that matches the query was created or updated</li>
+ * <li>'remove' with the id, when an item that was sent no longer matches or was deleted</li>
+ * <li>'page' again, when changes were missed because the client fell behind</li>
+ * </ul>
+ * Pushed items are not sorted into the page, clients merge them by id.
+ * <p>
+ * Changes are handled on the thread of the {@link ChangeEventBus} subscription, so a slow client or query never holds
+ * up a write.
+ */
+public class DefaultLiveQuery<T> extends DefaultFindMany<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(DefaultLiveQuery.class);
+
+    private static final long HEARTBEAT_SECONDS = 15;
+
+    private static final ScheduledExecutorService HEARTBEATS = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "elepy-live-query-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ChangeEventBus changeEvents;
+
+    public DefaultLiveQuery(ChangeEventBus changeEvents) {
+        this.changeEvents = changeEvents;
+    }
+
+    public void handleLiveQuery(HttpContext context, Crud<T> crud, ModelContext<T> modelContext, ObjectMapper objectMapper) {
+        final Query query = query(context.request(), modelContext);
+        final PageSettings settings = pageSettings(context.request(), modelContext);
+
+        final EventStream events = context.response().eventStream();
+        final LiveQuery liveQuery = new LiveQuery(events, crud, modelContext, query, settings, objectMapper);
+
+        try {
+            liveQuery.start();
+        } catch (RuntimeException e) {
+            events.close();
+            throw e;
+        }
+    }
+
+    private class LiveQuery implements ChangeListener {
+        private final EventStream events;
+        private final Crud<T> crud;
+        private final ModelContext<T> modelContext;
+        private final Query query;
+        private final PageSettings settings;
+        private final ObjectMapper objectMapper;
+
+        /**
+         * The ids of the items that the client has, as strings because ids from events can have a different type. Only
+         * the subscription thread uses it, after the first page is sent.
+         */
+        private final Set<String> sent = new HashSet<>();
+        private final CountDownLatch pageSent = new CountDownLatch(1);
+        private final AtomicBoolean resync = new AtomicBoolean();
+
+        private LiveQuery(EventStream events, Crud<T> crud, ModelContext<T> modelContext, Query query, PageSettings settings, ObjectMapper objectMapper) {
+            this.events = events;
+            this.crud = crud;
+            this.modelContext = modelContext;
+            this.query = query;
+            this.settings = settings;
+            this.objectMapper = objectMapper;
+        }
+
+        /**
+         * Subscribes before the page is read, so that no change goes unnoticed. Changes wait for the page to be sent.
+         */
+        private void start() {
+            changeEvents.subscribe(modelContext.getSlug(), this);
+
+            final ScheduledFuture<?> heartbeat = HEARTBEATS.scheduleAtFixedRate(() -> events.comment("heartbeat"),
+                    HEARTBEAT_SECONDS, HEARTBEAT_SECONDS, TimeUnit.SECONDS);
+            events.onClose(() -> {
+                changeEvents.unsubscribe(this);
+                heartbeat.cancel(false);
+            });
+            try {
+                sendPage();
+            } finally {
+                pageSent.countDown();
+            }
+        }
+
+        @Override
+        public void onChange(ChangeEvent event) {
+            if (!awaitPage() || !events.isOpen()) {
+                return;
+            }
+            try {
+                catchUp();
+                final String id = String.valueOf(event.getId());
+
+                final List<T> matching = event.getType() == ChangeType.DELETED ? List.of() : crud.search(byId(event), new PageSettings(1, 1, List.of(), null, CountMode.NONE)).getValues();
+
+                if (!matching.isEmpty()) {
+                    sent.add(id);
+                    events.send("upsert", json(matching.get(0)));
+                } else if (sent.remove(id)) {
+                    events.send("remove", objectMapper.writeValueAsString(Map.of("id", event.getId())));
+                }
+            } catch (JsonProcessingException | RuntimeException e) {
+                logger.error("Failed to push " + event, e);
+                events.close();
+            }
+        }
+
+        /**
+         * Marks the client as behind. The bus calls this on the subscription thread, before the next event of any
+         * model, so the client catches up right there instead of waiting for a change to this model.
+         */
+        @Override
+        public void onMissed() {
+            resync.set(true);
+            if (!awaitPage() || !events.isOpen()) {
+                return;
+            }
+            try {
+                catchUp();
+            } catch (RuntimeException e) {
+                logger.error("Failed to send the page again", e);
+                events.close();
+            }
+        }
+
+        /**
+         * Sends the page again if changes were missed.
+         */
+        private void catchUp() {
+            if (resync.getAndSet(false)) {
+                sendPage();
+            }
+        }
+
+        private boolean awaitPage() {
+            try {
+                pageSent.await();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        private void sendPage() {
+            final Page<T> page = crud.search(query, settings);
+
+            sent.clear();
+            page.getValues().forEach(value -> sent.add(String.valueOf(crud.getId(value))));
+            try {
+                events.send("page", objectMapper.writeValueAsString(projected(page, query, objectMapper)));
+            } catch (JsonProcessingException e) {
+                throw new ElepyException("Failed to write the page", 500, e);
+            }
+        }
+
+        /**
+         * The query, narrowed down to the changed item
+         */
+        private Query byId(ChangeEvent event) {
+            final List<Filter> filters = new ArrayList<>(query.getFilters());
+            filters.add(new Filter(new FilterableField(modelContext.getModelType(), modelContext.getIdField()), FilterType.EQUALS, String.valueOf(event.getId())));
+
+            return new Query(query.getSearchQuery(), filters, query.getFields());
+        }
+
+        private String json(T item) throws JsonProcessingException {
+            if (query.hasProjection()) {
+                return objectMapper.writeValueAsString(MapperUtils.project(objectMapper, item, query.getFields()));
+            }
+            return objectMapper.writeValueAsString(item);
+        }
+    }
+}
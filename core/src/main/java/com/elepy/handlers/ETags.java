@@ -0,0 +1,154 @@
+package com.elepy.handlers;
+
+import com.elepy.dao.Page;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.http.HttpContext;
+import com.elepy.utils.ReflectionUtils;
+
+import javax.persistence.Version;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Strong ETags for the find routes, so that a client can ask for an item or page with 'If-None-Match' and get a
+ * '304 Not Modified' when it didn't change.
+ * <p>
+ * When a model has a {@link Version} property, the ETag is a hash of the IDs and versions, which a Crud can load
+ * without loading the rest of the items. Otherwise the ETag of an item is a hash of its JSON. Only pages with a page
+ * size get an ETag, as other pages are streamed before their values are known.
+ */
+final class ETags {
+
+    private static final ClassValue<Optional<Field>> VERSION_FIELDS = new ClassValue<>() {
+        @Override
+        protected Optional<Field> computeValue(Class<?> type) {
+            return searchForVersionField(type);
+        }
+    };
+
+    private ETags() {
+    }
+
+    private static Optional<Field> searchForVersionField(Class<?> type) {
+        return ReflectionUtils.searchForFieldWithAnnotation(type, Version.class);
+    }
+
+    static Optional<Field> versionField(Class<?> type) {
+        return VERSION_FIELDS.get(type);
+    }
+
+    /**
+     * The properties to load to create an ETag with {@link #ofVersion(Object, List, Field)}.
+     */
+    static List<String> versionFields(String idProperty, Field versionField) {
+        return List.of(idProperty, ReflectionUtils.getPropertyName(versionField));
+    }
+
+    /**
+     * An ETag is only compared to the ETags of the same URL, so the ID of the item is left out. It isn't loaded when
+     * the requested fields don't include it.
+     *
+     * @param fields the requested fields, as they change the representation of the item
+     */
+    static String ofVersion(Object item, List<String> fields, Field versionField) {
+        final MessageDigest digest = digest();
+        update(digest, fields.toString());
+        update(digest, String.valueOf(version(item, versionField)));
+        return eTag(digest.digest());
+    }
+
+    /**
+     * @return true if the requested fields include the version, so that the ETag can be made from the loaded item
+     */
+    static boolean includesVersion(List<String> fields, Field versionField) {
+        return fields.isEmpty() || fields.contains(ReflectionUtils.getPropertyName(versionField));
+    }
+
+    static String ofContent(byte[] body) {
+        final MessageDigest digest = digest();
+        digest.update(body);
+        return eTag(digest.digest());
+    }
+
+    /**
+     * @param page            a page with the IDs and versions of the values
+     * @param amountOfResults the count that the last page number of the written page is made from, as a page with
+     *                        only the IDs and versions isn't counted
+     */
+    static String ofPage(Page<?> page, long amountOfResults, List<String> fields, Field versionField) {
+        final MessageDigest digest = digest();
+        update(digest, fields.toString());
+        update(digest, String.valueOf(page.getCurrentPageNumber()));
+        update(digest, String.valueOf(amountOfResults));
+        update(digest, String.valueOf(page.isHasNext()));
+        for (Object value : page.getValues()) {
+            updateVersion(digest, value, versionField);
+        }
+        return eTag(digest.digest());
+    }
+
+    /**
+     * Sets the ETag of the response, and answers with '304 Not Modified' when the client has the same one.
+     *
+     * @return true if the response is not modified, and nothing else has to be written
+     */
+    static boolean notModified(HttpContext context, String eTag) {
+        context.response().header("ETag", eTag);
+
+        if (!matches(context.request().headers("If-None-Match"), eTag)) {
+            return false;
+        }
+        context.response().status(304);
+        context.response().result("");
+        return true;
+    }
+
+    /**
+     * Compares the ETags weakly, as If-None-Match asks for.
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        return Arrays.stream(ifNoneMatch.split(","))
+                .map(String::trim)
+                .map(tag -> tag.startsWith("W/") ? tag.substring(2) : tag)
+                .anyMatch(tag -> tag.equals("*") || tag.equals(eTag));
+    }
+
+    private static void updateVersion(MessageDigest digest, Object item, Field versionField) {
+        update(digest, String.valueOf(ReflectionUtils.getId(item).orElse(null)));
+        update(digest, String.valueOf(version(item, versionField)));
+    }
+
+    private static Object version(Object item, Field versionField) {
+        try {
+            return versionField.get(item);
+        } catch (IllegalAccessException e) {
+            throw new ElepyException(e.getMessage(), 500, e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static String eTag(byte[] hash) {
+        return '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(hash, 16)) + '"';
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new ElepyException(e.getMessage(), 500, e);
+        }
+    }
+}
@@ -23,7 +23,7 @@ public abstract class MappedFindMany<T, R> extends DefaultFindMany<T> {
 
         List<R> filteredValues = mapValues(page.getValues(), context.request(), crud);
 
-        Page<R> filteredPage = new Page<>(page.getCurrentPageNumber(), page.getLastPageNumber(), filteredValues);
+        Page<R> filteredPage = new Page<>(page.getCurrentPageNumber(), page.getLastPageNumber(), filteredValues, page.getAfter(), page.isHasNext());
 
         context.response().result(objectMapper.writeValueAsString(filteredPage));
     }
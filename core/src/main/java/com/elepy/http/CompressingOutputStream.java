@@ -0,0 +1,97 @@
+package com.elepy.http;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses a servlet response while it is written, so that a response is never held in memory to compress it.
+ * <p>
+ * Only the first {@link Compression#getMinSize()} bytes are buffered, to decide if the response is large enough to
+ * compress. After that every write is compressed and passed on. A flush is a sync flush, so that compressed bytes
+ * don't wait for the response to end. The ETag of a compressed response is made weak.
+ */
+class CompressingOutputStream extends OutputStream {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private final HttpServletResponse response;
+    private final Compression compression;
+    private final byte[] buffer;
+    private int count;
+    private OutputStream out;
+    private boolean closed;
+
+    CompressingOutputStream(HttpServletResponse response, Compression compression) {
+        this.response = response;
+        this.compression = compression;
+        this.buffer = new byte[compression.getMinSize()];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (out == null) {
+            if (count + length <= buffer.length) {
+                System.arraycopy(bytes, offset, buffer, count, length);
+                count += length;
+                return;
+            }
+            open(true);
+        }
+        out.write(bytes, offset, length);
+    }
+
+    /**
+     * Before the response is large enough to decide on compression, a flush does nothing.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (out == null) {
+            open(false);
+        }
+        out.close();
+    }
+
+    private void open(boolean largeEnough) throws IOException {
+        final OutputStream raw = response.getOutputStream();
+        final int status = response.getStatus();
+
+        if (largeEnough
+                && status != HttpServletResponse.SC_NO_CONTENT
+                && status != HttpServletResponse.SC_NOT_MODIFIED
+                && response.getHeader("Content-Encoding") == null
+                && compression.isCompressible(response.getContentType())) {
+            response.setHeader("Content-Encoding", "gzip");
+            if (response.getHeader("ETag") != null) {
+                response.setHeader("ETag", Compression.weakETag(response.getHeader("ETag")));
+            }
+
+            out = new GZIPOutputStream(raw, BUFFER_SIZE, true) {
+                {
+                    def.setLevel(compression.getLevel());
+                }
+            };
+        } else {
+            out = raw;
+        }
+        out.write(buffer, 0, count);
+        count = 0;
+    }
+}
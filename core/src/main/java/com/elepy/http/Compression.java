@@ -0,0 +1,141 @@
+package com.elepy.http;
+
+import com.elepy.exceptions.ElepyConfigException;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The compression of responses, negotiated with the 'Accept-Encoding' of a request.
+ * <p>
+ * Only responses with a content type in the allowlist are compressed, and only when they are larger than the minimum
+ * size. Small responses don't get smaller when they are compressed, and media like images already are compressed.
+ *
+ * @see HttpService#compression(Compression)
+ */
+public final class Compression {
+
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final int DEFAULT_LEVEL = 6;
+
+    private int minSize = DEFAULT_MIN_SIZE;
+    private int level = DEFAULT_LEVEL;
+    private Set<String> mimeTypes = new TreeSet<>(Set.of(
+            "application/json",
+            "application/x-ndjson",
+            "application/javascript",
+            "application/xml",
+            "image/svg+xml",
+            "text/css",
+            "text/csv",
+            "text/html",
+            "text/javascript",
+            "text/plain",
+            "text/xml"
+    ));
+
+    private Compression() {
+    }
+
+    /**
+     * Compresses with gzip, with the default minimum size, level and content types.
+     */
+    public static Compression gzip() {
+        return new Compression();
+    }
+
+    /**
+     * @param minSize the amount of bytes a response must be larger than to be compressed
+     */
+    public Compression minSize(int minSize) {
+        if (minSize < 0) {
+            throw new ElepyConfigException("The minimum size to compress can't be negative");
+        }
+        this.minSize = minSize;
+        return this;
+    }
+
+    /**
+     * @param level from 1, the fastest, to 9, the smallest
+     */
+    public Compression level(int level) {
+        if (level < 1 || level > 9) {
+            throw new ElepyConfigException("The compression level must be from 1 to 9");
+        }
+        this.level = level;
+        return this;
+    }
+
+    /**
+     * Replaces the content types that are compressed.
+     */
+    public Compression mimeTypes(String... mimeTypes) {
+        this.mimeTypes = new TreeSet<>(Arrays.asList(mimeTypes));
+        return this;
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public Set<String> getMimeTypes() {
+        return mimeTypes;
+    }
+
+    /**
+     * @param contentType a content type, which may have parameters like 'application/json;charset=UTF-8'
+     */
+    public boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        final int parameters = contentType.indexOf(';');
+        return mimeTypes.contains((parameters < 0 ? contentType : contentType.substring(0, parameters)).trim().toLowerCase());
+    }
+
+    /**
+     * A compressed response isn't byte for byte the same as the uncompressed one, so a strong ETag can't be shared by
+     * both.
+     *
+     * @return the weak form of an ETag, for a compressed response
+     */
+    public static String weakETag(String eTag) {
+        if (eTag == null || eTag.startsWith("W/")) {
+            return eTag;
+        }
+        return "W/" + eTag;
+    }
+
+    /**
+     * @return true if the client accepts gzip, with a quality above 0
+     */
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        return Arrays.stream(acceptEncoding.split(",")).anyMatch(coding -> {
+            final String[] parts = coding.split(";");
+            final String name = parts[0].trim().toLowerCase();
+
+            if (!name.equals("gzip") && !name.equals("*")) {
+                return false;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                final String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        return Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        });
+    }
+}
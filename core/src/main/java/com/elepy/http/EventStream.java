@@ -0,0 +1,60 @@
+package com.elepy.http;
+
+/**
+ * A response that stays open to push Server-Sent Events to the client, until either side closes it.
+ * <p>
+ * Events can be sent from any thread. Sending to a client that is gone closes the stream, so every
+ * {@link #onClose(Runnable) close handler} runs once, whichever side closed it.
+ *
+ * @see Response#eventStream()
+ */
+public interface EventStream {
+
+    /**
+     * Formats an event as a frame of the text/event-stream format.
+     */
+    static String frame(String event, String data) {
+        final StringBuilder frame = new StringBuilder();
+        if (event != null) {
+            frame.append("event: ").append(event).append('\n');
+        }
+        for (String line : data.split("\r\n|\r|\n", -1)) {
+            frame.append("data: ").append(line).append('\n');
+        }
+        return frame.append('\n').toString();
+    }
+
+    /**
+     * @param event the name of the event, or null for a plain message
+     * @return false if the stream is closed
+     */
+    default boolean send(String event, String data) {
+        return write(frame(event, data));
+    }
+
+    /**
+     * Sends a comment, which clients ignore. Useful as a heartbeat to keep proxies from closing an idle stream and to
+     * find out that a client is gone.
+     *
+     * @return false if the stream is closed
+     */
+    default boolean comment(String comment) {
+        return write(": " + comment + "\n\n");
+    }
+
+    /**
+     * Writes and flushes an already formatted frame.
+     *
+     * @return false if the stream is closed
+     */
+    boolean write(String frame);
+
+    boolean isOpen();
+
+    /**
+     * @param handler runs when the stream is closed, right away if it already is
+     */
+    void onClose(Runnable handler);
+
+    void close();
+}
@@ -17,6 +17,13 @@ public interface HttpService {
 
     void staticFiles(String path, StaticFileLocation location);
 
+    /**
+     * Compresses the responses of routes for clients that accept it.
+     *
+     * @param compression the compression, or null to turn it off
+     */
+    void compression(Compression compression);
+
     default void staticFiles(String path) {
         staticFiles(path, StaticFileLocation.CLASSPATH);
     }
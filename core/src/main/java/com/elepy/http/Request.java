@@ -11,6 +11,8 @@ import com.elepy.models.Model;
 import com.elepy.uploads.FileUpload;
 import com.elepy.utils.ReflectionUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -35,6 +37,16 @@ public interface Request {
 
     byte[] bodyAsBytes();
 
+    /**
+     * Reads the body as it arrives, for bodies too large to hold in memory. The default implementation reads the
+     * whole body first.
+     *
+     * @return The stream of the request body
+     */
+    default InputStream bodyAsStream() {
+        return new ByteArrayInputStream(bodyAsBytes());
+    }
+
     String queryParams(String queryParam);
 
     String queryParamOrDefault(String queryParam, String defaultValue);
@@ -215,6 +227,35 @@ public interface Request {
         return propertySorts;
     }
 
+    /**
+     * The properties requested with the 'fields' parameter, e.g. 'fields=name,price'. The ID is always included.
+     *
+     * @return the requested properties, or an empty list for all of them
+     * @throws ElepyException when the model has no such property
+     */
+    default List<String> fieldsForModel(Class<?> restModelType) {
+        final String fields = queryParams("fields");
+
+        if (fields == null || fields.trim().isEmpty()) {
+            return List.of();
+        }
+
+        final Set<String> properties = new LinkedHashSet<>();
+        ReflectionUtils.getIdField(restModelType).map(ReflectionUtils::getPropertyName).ifPresent(properties::add);
+
+        for (String field : fields.split(",")) {
+            final String property = field.trim();
+            if (property.isEmpty()) {
+                continue;
+            }
+            if (ReflectionUtils.getPropertyField(restModelType, property) == null) {
+                throw new ElepyException(String.format("No properties titled '%s'", property), 400);
+            }
+            properties.add(property);
+        }
+        return new ArrayList<>(properties);
+    }
+
     default List<Filter> filtersForModel(Class restModelType) {
         final List<Filter> filterQueries = new ArrayList<>();
         for (String queryParam : queryParams()) {
@@ -6,6 +6,7 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
 
 public interface Response {
     ObjectMapper DEFAULT_MAPPER = new ObjectMapper();
@@ -20,6 +21,22 @@ public interface Response {
 
     String result();
 
+    /**
+     * Streams the body of the response, instead of setting it all at once. The status and headers must be set
+     * before the first write, the response ends when the stream is closed.
+     *
+     * @return The stream of the response body
+     */
+    OutputStream outputStream();
+
+    /**
+     * Keeps the response open to push Server-Sent Events. The status and headers are sent right away, the response
+     * ends when the stream is closed rather than when the route returns.
+     *
+     * @return The stream of events
+     */
+    EventStream eventStream();
+
     HttpServletResponse servletResponse();
 
     void type(String type);
@@ -14,6 +14,7 @@ public class Route {
     private final String path;
     private final String acceptType;
     private final Set<String> permissions;
+    private final boolean blocking;
 
     /**
      * @param path               The URI path
@@ -23,6 +24,18 @@ public class Route {
      * @param permissions        The required permissions of the route.
      */
     public Route(String path, HttpMethod method, HttpContextHandler httpContextHandler, String acceptType, Set<String> permissions) {
+        this(path, method, httpContextHandler, acceptType, permissions, true);
+    }
+
+    /**
+     * @param path               The URI path
+     * @param method             The HTTP method
+     * @param httpContextHandler The Spark httpContextHandler interface
+     * @param acceptType         The accept type of the httpContextHandler
+     * @param permissions        The required permissions of the route.
+     * @param blocking           Whether the httpContextHandler blocks, like every handler that uses a Crud does
+     */
+    public Route(String path, HttpMethod method, HttpContextHandler httpContextHandler, String acceptType, Set<String> permissions, boolean blocking) {
 
         this.acceptType = acceptType == null ? "*/*" : acceptType;
         this.permissions = permissions;
@@ -32,6 +45,7 @@ public class Route {
         this.httpContextHandler = httpContextHandler;
         this.method = method;
         this.path = path;
+        this.blocking = blocking;
     }
 
 
@@ -51,6 +65,13 @@ public class Route {
         return path;
     }
 
+    /**
+     * An HttpService with an event loop, like Vert.x, runs blocking routes off the event loop.
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
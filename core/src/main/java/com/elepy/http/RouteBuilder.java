@@ -10,6 +10,7 @@ public final class RouteBuilder {
     private String path;
     private String acceptType = "*/*";
     private Set<String> permissions = new TreeSet<>();
+    private boolean blocking = true;
 
     private RouteBuilder() {
     }
@@ -43,7 +44,15 @@ public final class RouteBuilder {
         return this;
     }
 
+    /**
+     * Routes block by default. A route that never blocks can run on an event loop, see {@link Route#isBlocking()}.
+     */
+    public RouteBuilder blocking(boolean blocking) {
+        this.blocking = blocking;
+        return this;
+    }
+
     public Route build() {
-        return new Route(path, method, route, acceptType, permissions);
+        return new Route(path, method, route, acceptType, permissions, blocking);
     }
 }
@@ -0,0 +1,108 @@
+package com.elepy.http;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link EventStream} on an asynchronous servlet request, so that an open stream doesn't hold a request thread.
+ * The route returns right away, the frames are written through the {@link AsyncContext} and closing the stream
+ * completes the request.
+ */
+class SparkEventStream implements EventStream {
+
+    private final AsyncContext asyncContext;
+    private final List<Runnable> closeHandlers = new ArrayList<>();
+    private volatile boolean open = true;
+
+    SparkEventStream(HttpServletRequest request, HttpServletResponse response) {
+        response.setStatus(200);
+        response.setContentType("text/event-stream");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Cache-Control", "no-cache");
+
+        this.asyncContext = request.startAsync();
+        // The stream stays open until either side closes it
+        asyncContext.setTimeout(0);
+        asyncContext.addListener(new AsyncListener() {
+            @Override
+            public void onComplete(AsyncEvent event) {
+                close();
+            }
+
+            @Override
+            public void onTimeout(AsyncEvent event) {
+                close();
+            }
+
+            @Override
+            public void onError(AsyncEvent event) {
+                close();
+            }
+
+            @Override
+            public void onStartAsync(AsyncEvent event) {
+            }
+        });
+
+        try {
+            asyncContext.getResponse().flushBuffer();
+        } catch (IOException e) {
+            close();
+        }
+    }
+
+    @Override
+    public synchronized boolean write(String frame) {
+        if (!isOpen()) {
+            return false;
+        }
+        try {
+            final ServletOutputStream outputStream = asyncContext.getResponse().getOutputStream();
+            outputStream.write(frame.getBytes(StandardCharsets.UTF_8));
+            outputStream.flush();
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            // The client is gone
+            close();
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void onClose(Runnable handler) {
+        if (isOpen()) {
+            closeHandlers.add(handler);
+        } else {
+            handler.run();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!isOpen()) {
+            return;
+        }
+        open = false;
+        closeHandlers.forEach(Runnable::run);
+        closeHandlers.clear();
+
+        try {
+            asyncContext.complete();
+        } catch (IllegalStateException e) {
+            // The request was already completed by the container, after an error
+        }
+    }
+}
@@ -6,8 +6,11 @@ import spark.QueryParamsMap;
 
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletRequestWrapper;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -100,6 +103,21 @@ public class SparkRequest implements Request {
         return request.bodyAsBytes();
     }
 
+    /**
+     * Spark's request wrapper caches the whole body when it is read, so the stream is taken from the request it wraps.
+     * That only works while the body hasn't been read yet.
+     */
+    @Override
+    public InputStream bodyAsStream() {
+        final HttpServletRequest raw = request.raw();
+        final ServletRequest unwrapped = raw instanceof ServletRequestWrapper ? ((ServletRequestWrapper) raw).getRequest() : raw;
+        try {
+            return unwrapped.getInputStream();
+        } catch (IOException e) {
+            throw new ElepyException("Failed to read the request body", 500, e);
+        }
+    }
+
     public int contentLength() {
         return request.contentLength();
     }
@@ -1,13 +1,32 @@
 package com.elepy.http;
 
+import com.elepy.exceptions.ElepyException;
+
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
 public class SparkResponse implements Response {
+    private final spark.Request request;
     private final spark.Response response;
+    private final Compression compression;
+    private SparkEventStream eventStream;
+    private CompressingOutputStream compressingOutputStream;
 
     public SparkResponse(spark.Response response) {
+        this(null, response, null);
+    }
+
+    /**
+     * @param request     the request of the response, which an {@link #eventStream()} is started on, or null when
+     *                    the response can't stream events
+     * @param compression the compression the client accepts, or null to write the response as it is
+     */
+    SparkResponse(spark.Request request, spark.Response response, Compression compression) {
+        this.request = request;
         this.response = response;
+        this.compression = compression;
     }
 
     @Override
@@ -37,18 +56,66 @@ public class SparkResponse implements Response {
 
     @Override
     public void result(byte[] bytes) {
-        HttpServletResponse raw = response.raw();
+        final OutputStream outputStream = outputStream();
 
         try {
-            raw.getOutputStream().write(bytes);
-            raw.getOutputStream().flush();
-            raw.getOutputStream().close();
+            outputStream.write(bytes);
+            outputStream.flush();
+            outputStream.close();
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
 
+    @Override
+    public synchronized OutputStream outputStream() {
+        if (compression != null) {
+            if (compressingOutputStream == null) {
+                compressingOutputStream = new CompressingOutputStream(response.raw(), compression);
+            }
+            return compressingOutputStream;
+        }
+        try {
+            return response.raw().getOutputStream();
+        } catch (IOException e) {
+            throw new ElepyException("Failed to open the response stream", 500, e);
+        }
+    }
+
+    /**
+     * Spark writes a body that was set with {@link #result(String)} after the route returns, without compression.
+     * When the response is compressed, the body is written here instead, and Spark skips the committed response.
+     */
+    void writeCompressedBody() {
+        final String body = response.body();
+        if (compression == null || body == null || response.raw().isCommitted()) {
+            return;
+        }
+        if (response.type() == null) {
+            response.type("text/html; charset=utf-8");
+        }
+        result(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public synchronized EventStream eventStream() {
+        if (eventStream == null) {
+            if (request == null) {
+                throw new IllegalStateException("An event stream can only be opened on the response of a route");
+            }
+            eventStream = new SparkEventStream(request.raw(), response.raw());
+        }
+        return eventStream;
+    }
+
+    /**
+     * @return true if an {@link #eventStream()} was opened, which writes the response itself
+     */
+    synchronized boolean hasEventStream() {
+        return eventStream != null;
+    }
+
     @Override
     public String result() {
         return response.body();
@@ -20,6 +20,7 @@ public class SparkService implements HttpService {
     private Map<RouteKey, Route> routes;
     private int counter;
     private boolean ignitedOnce = false;
+    private Compression compression;
 
 
     public SparkService(Service service, Elepy elepy) {
@@ -45,6 +46,11 @@ public class SparkService implements HttpService {
         return http.port();
     }
 
+    @Override
+    public void compression(Compression compression) {
+        this.compression = compression;
+    }
+
     public void notFound(spark.Route route) {
         http.notFound(route);
     }
@@ -124,13 +130,26 @@ public class SparkService implements HttpService {
 
         http.addRoute(HttpMethod.get(extraRoute.getMethod().name().toLowerCase()), RouteImpl.create(extraRoute.getPath(), extraRoute.getAcceptType(), (request, response) -> {
 
-            SparkContext sparkContext = new SparkContext(request, response);
+            final boolean compressed = compression != null && Compression.acceptsGzip(request.headers("Accept-Encoding"));
+            if (compression != null) {
+                // Whether or not this response is compressed, another one to the same URL may be
+                response.raw().addHeader("Vary", "Accept-Encoding");
+            }
+            final SparkResponse sparkResponse = new SparkResponse(request, response, compressed ? compression : null);
+            SparkContext sparkContext = new SparkContext(new SparkRequest(request), sparkResponse);
             if (!extraRoute.getPermissions().isEmpty()) {
                 sparkContext.requirePermissions(extraRoute.getPermissions());
                 new UserPermissionFilter(extraRoute.getPermissions()).authenticate(sparkContext);
             }
             extraRoute.getHttpContextHandler().handle(sparkContext);
 
+            // An event stream is asynchronous and stays open after the route returns. Spark skips its committed
+            // response, so the empty body isn't written.
+            if (sparkResponse.hasEventStream()) {
+                return "";
+            }
+            sparkResponse.writeCompressedBody();
+
             return response.body();
         }));
 
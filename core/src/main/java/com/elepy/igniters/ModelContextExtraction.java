@@ -1,11 +1,14 @@
 package com.elepy.igniters;
 
 import com.elepy.Elepy;
+import com.elepy.annotations.Cached;
 import com.elepy.annotations.Dao;
 import com.elepy.annotations.DaoFactory;
 import com.elepy.annotations.Evaluators;
 import com.elepy.annotations.IdProvider;
+import com.elepy.dao.CachingCrud;
 import com.elepy.dao.Crud;
+import com.elepy.dao.PublishingCrud;
 import com.elepy.evaluators.DefaultObjectEvaluator;
 import com.elepy.evaluators.ObjectEvaluator;
 import com.elepy.id.DefaultIdentityProvider;
@@ -13,6 +16,7 @@ import com.elepy.id.IdentityProvider;
 import com.elepy.models.Model;
 import com.elepy.models.ModelContext;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -24,7 +28,7 @@ public class ModelContextExtraction {
         var idProvider = extractIdProvider(model, elepy);
 
         elepy.registerDependency(Crud.class, model.getSlug(), crud);
-        return new ModelContext<>(model, crud, idProvider, objectEvaluators);
+        return new ModelContext<>(model, crud, idProvider, objectEvaluators, elepy.asyncExecutor());
     }
 
     private static <T> IdentityProvider<T> extractIdProvider(Model<T> model, Elepy elepy) {
@@ -56,9 +60,21 @@ public class ModelContextExtraction {
     }
 
     /**
-     * Extracts the Crud and returns it
+     * Extracts the Crud and returns it, publishing every write on the change event bus of Elepy
      */
     private static <T> Crud<T> extractCrud(Model<T> model, Elepy elepy) {
+        final Crud<T> crud = extractUncachedCrud(model, elepy);
+
+        final Cached cached = model.getJavaClass().getAnnotation(Cached.class);
+        if (cached != null) {
+            final CachingCrud<T> cachingCrud = new CachingCrud<>(crud, Duration.ofSeconds(cached.expireAfterSeconds()), cached.maximumSize());
+            cachingCrud.listenTo(elepy.changeEvents());
+            return new PublishingCrud<>(cachingCrud, elepy.changeEvents());
+        }
+        return new PublishingCrud<>(crud, elepy.changeEvents());
+    }
+
+    private static <T> Crud<T> extractUncachedCrud(Model<T> model, Elepy elepy) {
         var modelType = model.getJavaClass();
         var annotation = modelType.getAnnotation(DaoFactory.class);
 
@@ -3,9 +3,13 @@ package com.elepy.igniters;
 import com.elepy.Elepy;
 import com.elepy.annotations.Action;
 import com.elepy.annotations.ExtraRoutes;
-import com.elepy.dao.Crud;
+import com.elepy.dao.ModelIndex;
 import com.elepy.exceptions.Message;
 import com.elepy.handlers.ActionHandler;
+import com.elepy.handlers.DefaultAggregate;
+import com.elepy.handlers.DefaultExport;
+import com.elepy.handlers.DefaultImport;
+import com.elepy.handlers.DefaultLiveQuery;
 import com.elepy.handlers.ServiceHandler;
 import com.elepy.http.*;
 import com.elepy.models.Model;
@@ -13,6 +17,8 @@ import com.elepy.models.ModelContext;
 import com.elepy.utils.ModelUtils;
 import com.elepy.utils.ReflectionUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,6 +29,8 @@ import static com.elepy.http.RouteBuilder.anElepyRoute;
 
 public class ModelPiston<T> {
 
+    private static final Logger logger = LoggerFactory.getLogger(ModelPiston.class);
+
     private final Model<T> model;
     private final ModelContext<T> modelContext;
     private final ServiceHandler<T> serviceExtraction;
@@ -33,6 +41,7 @@ public class ModelPiston<T> {
         this.model = model;
         this.objectMapper = elepy.objectMapper();
         this.modelContext = ModelContextExtraction.extractContext(model, elepy);
+        synchronizeIndexes();
 
         this.serviceExtraction = ModelServiceExtraction.extractService(model, elepy);
         elepy.addRouting(getAllRoutes(elepy));
@@ -52,16 +61,31 @@ public class ModelPiston<T> {
         return serviceExtraction;
     }
 
-    private List<Route> getAllRoutes(Elepy elepy) {
-        Crud<T> dao = modelContext.getCrud();
+    private void synchronizeIndexes() {
+        final List<String> drift = modelContext.getCrud().synchronizeIndexes(ModelIndex.requiredFor(model));
+
+        drift.forEach(difference -> logger.warn("Index drift in '{}': {}", model.getName(), difference));
+    }
 
+    private List<Route> getAllRoutes(Elepy elepy) {
+        // The Crud is looked up on every request, because a ModelChange can replace it after the routes are made
         List<Route> toReturn = new ArrayList<>();
         //POST
         toReturn.add(anElepyRoute()
                 .path(model.getSlug())
                 .addPermissions(model.getCreateAction().getRequiredPermissions())
                 .method(HttpMethod.POST)
-                .route(ctx -> serviceExtraction.handleCreate(injectModelClassInHttpContext(ctx), dao, modelContext, objectMapper))
+                .route(ctx -> serviceExtraction.handleCreate(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
+                .build()
+        );
+
+        //POST IMPORT, a stream of items
+        final DefaultImport<T> importer = new DefaultImport<>();
+        toReturn.add(anElepyRoute()
+                .path(model.getSlug() + "/import")
+                .addPermissions(model.getCreateAction().getRequiredPermissions())
+                .method(HttpMethod.POST)
+                .route(ctx -> importer.handleImport(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
                 .build()
         );
 
@@ -70,7 +94,7 @@ public class ModelPiston<T> {
                 .path(model.getSlug() + "/:id")
                 .addPermissions(model.getUpdateAction().getRequiredPermissions())
                 .method(HttpMethod.PUT)
-                .route(ctx -> serviceExtraction.handleUpdatePut(injectModelClassInHttpContext(ctx), dao, modelContext, objectMapper))
+                .route(ctx -> serviceExtraction.handleUpdatePut(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
                 .build()
         );
 
@@ -81,7 +105,7 @@ public class ModelPiston<T> {
                 .addPermissions(model.getUpdateAction().getRequiredPermissions())
                 .route(ctx -> {
                     ctx.request().attribute("modelClass", model.getJavaClass());
-                    serviceExtraction.handleUpdatePatch(injectModelClassInHttpContext(ctx), dao, modelContext, objectMapper);
+                    serviceExtraction.handleUpdatePatch(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper);
                 })
                 .build()
         );
@@ -91,14 +115,14 @@ public class ModelPiston<T> {
                 .path(model.getSlug() + "/:id")
                 .method(HttpMethod.DELETE)
                 .addPermissions(model.getDeleteAction().getRequiredPermissions())
-                .route(ctx -> serviceExtraction.handleDelete(injectModelClassInHttpContext(ctx), dao, modelContext, objectMapper))
+                .route(ctx -> serviceExtraction.handleDelete(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
                 .build()
         );
         toReturn.add(anElepyRoute()
                 .path(model.getSlug())
                 .method(HttpMethod.DELETE)
                 .addPermissions(model.getDeleteAction().getRequiredPermissions())
-                .route(ctx -> serviceExtraction.handleDelete(injectModelClassInHttpContext(ctx), dao, modelContext, objectMapper))
+                .route(ctx -> serviceExtraction.handleDelete(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
                 .build()
         );
 
@@ -107,7 +131,37 @@ public class ModelPiston<T> {
                 .path(model.getSlug())
                 .method(HttpMethod.GET)
                 .addPermissions(model.getFindManyAction().getRequiredPermissions())
-                .route(ctx -> serviceExtraction.handleFindMany(injectModelClassInHttpContext(ctx), dao, modelContext, objectMapper))
+                .route(ctx -> serviceExtraction.handleFindMany(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
+                .build()
+        );
+
+        //GET AGGREGATE, before GET ONE so that 'aggregate' isn't taken for an ID, like 'live'
+        final DefaultAggregate<T> aggregate = new DefaultAggregate<>();
+        toReturn.add(anElepyRoute()
+                .path(model.getSlug() + "/aggregate")
+                .method(HttpMethod.GET)
+                .addPermissions(model.getFindManyAction().getRequiredPermissions())
+                .route(ctx -> aggregate.handleAggregate(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
+                .build()
+        );
+
+        //GET LIVE, an event stream of the results of a query
+        final DefaultLiveQuery<T> liveQuery = new DefaultLiveQuery<>(elepy.changeEvents());
+        toReturn.add(anElepyRoute()
+                .path(model.getSlug() + "/live")
+                .method(HttpMethod.GET)
+                .addPermissions(model.getFindManyAction().getRequiredPermissions())
+                .route(ctx -> liveQuery.handleLiveQuery(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
+                .build()
+        );
+
+        //GET EXPORT, every matching item streamed as CSV or NDJSON
+        final DefaultExport<T> export = new DefaultExport<>();
+        toReturn.add(anElepyRoute()
+                .path(model.getSlug() + "/export")
+                .method(HttpMethod.GET)
+                .addPermissions(model.getFindManyAction().getRequiredPermissions())
+                .route(ctx -> export.handleExport(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
                 .build()
         );
 
@@ -116,7 +170,7 @@ public class ModelPiston<T> {
                 .path(model.getSlug() + "/:id")
                 .method(HttpMethod.GET)
                 .addPermissions(model.getFindOneAction().getRequiredPermissions())
-                .route(ctx -> serviceExtraction.handleFindOne(injectModelClassInHttpContext(ctx), dao, modelContext, objectMapper))
+                .route(ctx -> serviceExtraction.handleFindOne(injectModelClassInHttpContext(ctx), modelContext.getCrud(), modelContext, objectMapper))
                 .build()
         );
 
@@ -144,7 +198,6 @@ public class ModelPiston<T> {
 
         var modelType = modelContext.getModel().getJavaClass();
         var slug = modelContext.getModel().getSlug();
-        var crud = modelContext.getCrud();
         final Action[] actionAnnotations = modelType.getAnnotationsByType(Action.class);
         final List<Route> actions = new ArrayList<>();
 
@@ -160,7 +213,7 @@ public class ModelPiston<T> {
                     .route(ctx -> {
                         ctx.attribute("action", action);
                         ctx.result(Message.of("Executed action", 200));
-                        actionHandler.handleAction(ctx.injectModelClassInHttpContext(modelType), crud, modelContext, elepy.objectMapper());
+                        actionHandler.handleAction(ctx.injectModelClassInHttpContext(modelType), modelContext.getCrud(), modelContext, elepy.objectMapper());
                     });
 
             //add two routes for multi select and single select.
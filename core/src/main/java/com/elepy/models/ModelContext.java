@@ -1,10 +1,12 @@
 package com.elepy.models;
 
+import com.elepy.dao.AsyncCrud;
 import com.elepy.dao.Crud;
 import com.elepy.evaluators.ObjectEvaluator;
 import com.elepy.id.IdentityProvider;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 public class ModelContext<T> {
     private final Model<T> model;
@@ -13,22 +15,52 @@ public class ModelContext<T> {
     private IdentityProvider<T> identityProvider;
     private List<ObjectEvaluator<T>> objectEvaluators;
 
+    private final Executor asyncExecutor;
+    private AsyncCrud<T> asyncCrud;
+
+    /**
+     * Creates a context whose {@link #getAsyncCrud()} runs blocking calls on the calling thread.
+     */
     public ModelContext(Model<T> model,
                         Crud<T> crud,
                         IdentityProvider<T> identityProvider,
                         List<ObjectEvaluator<T>> objectEvaluators) {
+        this(model, crud, identityProvider, objectEvaluators, Runnable::run);
+    }
+
+    /**
+     * @param asyncExecutor the executor that {@link #getAsyncCrud()} runs blocking calls on
+     */
+    public ModelContext(Model<T> model,
+                        Crud<T> crud,
+                        IdentityProvider<T> identityProvider,
+                        List<ObjectEvaluator<T>> objectEvaluators,
+                        Executor asyncExecutor) {
         this.model = model;
         this.crud = crud;
         this.identityProvider = identityProvider;
         this.objectEvaluators = objectEvaluators;
+        this.asyncExecutor = asyncExecutor;
     }
 
     public Crud<T> getCrud() {
         return crud;
     }
 
-    public void setCrud(Crud<T> crud) {
+    public synchronized void setCrud(Crud<T> crud) {
         this.crud = crud;
+        this.asyncCrud = null;
+    }
+
+    /**
+     * @return the asynchronous view of the model's Crud
+     * @see Crud#async(Executor)
+     */
+    public synchronized AsyncCrud<T> getAsyncCrud() {
+        if (asyncCrud == null) {
+            asyncCrud = crud.async(asyncExecutor);
+        }
+        return asyncCrud;
     }
 
     public void changeModel(ModelChange modelChange) {
@@ -8,7 +8,9 @@ import com.elepy.exceptions.ElepyConfigException;
 import com.elepy.exceptions.ElepyException;
 import com.elepy.models.FieldType;
 import com.elepy.models.NumberType;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
@@ -34,6 +36,20 @@ public class MapperUtils {
         return objectMapper.convertValue(objectAsMap, cls);
     }
 
+    /**
+     * Serializes an item with only some of its properties, for sparse responses.
+     *
+     * @param fields The properties to keep, all of them when empty
+     */
+    public static JsonNode project(ObjectMapper objectMapper, Object item, List<String> fields) {
+        final JsonNode node = objectMapper.valueToTree(item);
+
+        if (!fields.isEmpty() && node instanceof ObjectNode) {
+            ((ObjectNode) node).retain(fields);
+        }
+        return node;
+    }
+
     /**
      * This method goes through an Enum's fields and maps the PrettyName of the field to the value of the Enum
      *
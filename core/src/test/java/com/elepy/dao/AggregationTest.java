@@ -0,0 +1,45 @@
+package com.elepy.dao;
+
+import com.elepy.Resource;
+import com.elepy.exceptions.ElepyException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AggregationTest {
+
+    @Test
+    void items_AreAggregatedPerGroup_inMemory() {
+        final Aggregation aggregation = new Aggregation(new Query("", List.of()), "textField", null,
+                List.of(Aggregate.count(), Aggregate.parse("sum:numberMax40"), Aggregate.parse("max:numberMax40")));
+
+        final List<AggregationBucket> buckets = aggregation.aggregate(Resource.class, Stream.of(
+                resource("b", 5), resource("a", 10), resource("a", 20)));
+
+        assertThat(buckets).hasSize(2);
+        assertThat(buckets.get(0).getKey()).isEqualTo("a");
+        assertThat(buckets.get(0).getValues().get("count")).isEqualTo(2L);
+        assertThat(((BigDecimal) buckets.get(0).getValues().get("sum_numberMax40")).intValue()).isEqualTo(30);
+        assertThat(buckets.get(0).getValues().get("max_numberMax40")).isEqualTo(BigDecimal.valueOf(20));
+        assertThat(buckets.get(1).getKey()).isEqualTo("b");
+    }
+
+    @Test
+    void sum_IsRejected_for_NonNumbers() {
+        final Aggregation aggregation = new Aggregation(new Query("", List.of()), null, null, List.of(Aggregate.parse("sum:textField")));
+
+        assertThrows(ElepyException.class, () -> aggregation.validate(Resource.class));
+    }
+
+    private static Resource resource(String textField, int number) {
+        final Resource resource = new Resource();
+        resource.setTextField(textField);
+        resource.setNumberMax40(BigDecimal.valueOf(number));
+        return resource;
+    }
+}
@@ -0,0 +1,87 @@
+package com.elepy.dao;
+
+import com.elepy.Resource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CachingCrudTest {
+
+    private Crud<Resource> crud;
+    private CachingCrud<Resource> cachingCrud;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        crud = mock(Crud.class);
+        cachingCrud = new CachingCrud<>(crud, Duration.ofMinutes(1), 100);
+
+        when(crud.getId(any())).thenAnswer(invocation -> ((Resource) invocation.getArgument(0)).getId());
+    }
+
+    @Test
+    void can_ServeGetById_from_Cache() {
+        final Resource resource = resource(1);
+        when(crud.getById(1)).thenReturn(Optional.of(resource));
+
+        cachingCrud.getById(1);
+        final Optional<Resource> cached = cachingCrud.getById(1L);
+
+        assertThat(cached).hasValue(resource);
+        verify(crud, times(1)).getById(any());
+    }
+
+    @Test
+    void can_InvalidateItem_when_Updated() {
+        when(crud.getById(1)).thenReturn(Optional.of(resource(1)));
+
+        cachingCrud.getById(1);
+        cachingCrud.update(resource(1));
+        cachingCrud.getById(1);
+
+        verify(crud, times(2)).getById(1);
+    }
+
+    @Test
+    void can_InvalidateSearches_when_Created() {
+        final Query query = new Query("", List.of());
+        final PageSettings settings = new PageSettings(1, 10, List.of());
+        when(crud.search(any(), any())).thenReturn(new Page<>(1, 1, List.of(resource(1))));
+
+        cachingCrud.search(query, settings);
+        cachingCrud.search(new Query("", List.of()), new PageSettings(1, 10, List.of()));
+        verify(crud, times(1)).search(any(), any());
+
+        cachingCrud.create(resource(2));
+        cachingCrud.search(query, settings);
+        verify(crud, times(2)).search(any(), any());
+    }
+
+    @Test
+    void can_InvalidateItems_when_Deleted() {
+        when(crud.getById(1)).thenReturn(Optional.of(resource(1)));
+        when(crud.getById(2)).thenReturn(Optional.of(resource(2)));
+
+        cachingCrud.getById(1);
+        cachingCrud.getById(2);
+        cachingCrud.delete(1, 2);
+        cachingCrud.getById(1);
+        cachingCrud.getById(2);
+
+        verify(crud, times(2)).getById(1);
+        verify(crud, times(2)).getById(2);
+    }
+
+    private Resource resource(int id) {
+        final Resource resource = new Resource();
+        resource.setId(id);
+        return resource;
+    }
+}
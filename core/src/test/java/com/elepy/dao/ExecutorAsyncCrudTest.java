@@ -0,0 +1,103 @@
+package com.elepy.dao;
+
+import com.elepy.Resource;
+import com.elepy.exceptions.ElepyException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class ExecutorAsyncCrudTest {
+
+    private Crud<Resource> crud;
+    private ExecutorService executor;
+    private AsyncCrud<Resource> asyncCrud;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        crud = mock(Crud.class);
+        executor = ExecutorAsyncCrud.boundedExecutor(1, 1);
+        asyncCrud = new ExecutorAsyncCrud<>(crud, executor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void can_RunCalls_on_Executor() throws Exception {
+        final Resource resource = new Resource();
+        final Thread caller = Thread.currentThread();
+        final Thread[] crudThread = new Thread[1];
+        when(crud.getById(1)).thenAnswer(invocation -> {
+            crudThread[0] = Thread.currentThread();
+            return Optional.of(resource);
+        });
+
+        final Optional<Resource> found = asyncCrud.getByIdAsync(1).get(10, TimeUnit.SECONDS);
+
+        assertThat(found).hasValue(resource);
+        assertThat(crudThread[0]).isNotSameInstanceAs(caller);
+        assertThat(crudThread[0].getName()).startsWith("elepy-crud-");
+    }
+
+    @Test
+    void can_PassOnWrites_to_Crud() throws Exception {
+        final Resource resource = new Resource();
+
+        asyncCrud.createAsync(resource).get(10, TimeUnit.SECONDS);
+        asyncCrud.deleteAsync(List.of(1, 2)).get(10, TimeUnit.SECONDS);
+
+        verify(crud).create(resource);
+        verify(crud).delete(List.of(1, 2));
+    }
+
+    @Test
+    void can_FailCall_with_ExceptionOfCrud() {
+        when(crud.getById(1)).thenThrow(new ElepyException("No Resource found", 404));
+
+        final ElepyException exception = assertThrows(ElepyException.class, () -> AsyncCrud.await(asyncCrud.getByIdAsync(1)));
+
+        assertThat(exception.getStatus()).isEqualTo(404);
+    }
+
+    @Test
+    void can_RejectCall_with_503_when_QueueIsFull() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        when(crud.getById(1)).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+
+        // One call on the only thread, one in the queue
+        final CompletableFuture<Optional<Resource>> running = asyncCrud.getByIdAsync(1);
+        started.await(10, TimeUnit.SECONDS);
+        final CompletableFuture<Optional<Resource>> queued = asyncCrud.getByIdAsync(1);
+
+        final CompletableFuture<Optional<Resource>> rejected = asyncCrud.getByIdAsync(1);
+
+        assertThat(rejected.isCompletedExceptionally()).isTrue();
+        final ExecutionException exception = assertThrows(ExecutionException.class, rejected::get);
+        assertThat(exception.getCause()).isInstanceOf(ElepyException.class);
+        assertThat(((ElepyException) exception.getCause()).getStatus()).isEqualTo(503);
+
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isEmpty();
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isEmpty();
+    }
+}
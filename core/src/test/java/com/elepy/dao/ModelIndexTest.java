@@ -0,0 +1,30 @@
+package com.elepy.dao;
+
+import com.elepy.Resource;
+import com.elepy.utils.ModelUtils;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class ModelIndexTest {
+
+    @Test
+    void indexes_AreDerivedFromTheModel() {
+        final List<String> indexed = ModelIndex.requiredFor(ModelUtils.createModelFromClass(Resource.class))
+                .stream()
+                .map(ModelIndex::getProperty)
+                .collect(Collectors.toList());
+
+        assertThat(indexed).containsAtLeast("id", "unique", "searchableField");
+        assertThat(indexed).containsNoneOf("textField", "resourceCustomObject");
+        assertThat(indexed).containsNoDuplicates();
+    }
+
+    @Test
+    void indexes_AreNotUnique_when_UniquenessIsChecked() {
+        assertThat(ModelIndex.requiredFor(ModelUtils.createModelFromClass(Resource.class)).stream().noneMatch(ModelIndex::isUnique)).isTrue();
+    }
+}
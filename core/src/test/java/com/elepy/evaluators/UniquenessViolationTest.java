@@ -0,0 +1,26 @@
+package com.elepy.evaluators;
+
+import com.elepy.Base;
+import com.elepy.Resource;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class UniquenessViolationTest extends Base {
+
+    @Test
+    void violations_HaveTheMessagesOfTheIntegrityChecks() {
+        final Resource resource = validObject();
+        resource.setUnique("taken");
+
+        assertThat(DefaultIntegrityEvaluator.uniquenessViolation(resource, "unique").getMessage())
+                .isEqualTo("An item with the unique: 'taken' already exists in the system!");
+        assertThat(DefaultIntegrityEvaluator.uniquenessViolation(resource, "id").getMessage())
+                .isEqualTo(DefaultIntegrityEvaluator.duplicateId().getMessage());
+    }
+
+    @Test
+    void violations_StillHaveAMessage_when_TheItemIsUnknown() {
+        assertThat(DefaultIntegrityEvaluator.uniquenessViolation(null, "unique").getMessage()).contains("unique");
+    }
+}
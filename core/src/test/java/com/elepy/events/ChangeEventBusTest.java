@@ -0,0 +1,160 @@
+package com.elepy.events;
+
+import com.elepy.Resource;
+import com.elepy.dao.Crud;
+import com.elepy.dao.PublishingCrud;
+import com.elepy.models.Model;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ChangeEventBusTest {
+
+    private ChangeEventBus changeEvents;
+    private Crud<Resource> crud;
+    private PublishingCrud<Resource> publishingCrud;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        changeEvents = new ChangeEventBus();
+        crud = mock(Crud.class);
+        publishingCrud = new PublishingCrud<>(crud, changeEvents);
+
+        final Model<Resource> model = mock(Model.class);
+        when(model.getSlug()).thenReturn("/resources");
+        when(crud.getModel()).thenReturn(model);
+        when(crud.getId(any())).thenAnswer(invocation -> ((Resource) invocation.getArgument(0)).getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        changeEvents.close();
+    }
+
+    @Test
+    void can_PublishWrites_to_Listeners() throws InterruptedException {
+        final BlockingQueue<ChangeEvent> received = new LinkedBlockingQueue<>();
+        changeEvents.subscribe("/resources", received::add);
+
+        publishingCrud.create(resource(1));
+        publishingCrud.update(resource(1));
+        publishingCrud.delete(List.of(1, 2));
+
+        assertThat(List.of(poll(received), poll(received), poll(received), poll(received)))
+                .containsExactly("CREATED /resources/1", "UPDATED /resources/1", "DELETED /resources/1", "DELETED /resources/2")
+                .inOrder();
+    }
+
+    @Test
+    void can_FilterEvents_byModel() throws InterruptedException {
+        final BlockingQueue<ChangeEvent> received = new LinkedBlockingQueue<>();
+        changeEvents.subscribe("/others", received::add);
+
+        publishingCrud.create(resource(1));
+        changeEvents.publish(new ChangeEvent("/others", 2, ChangeType.CREATED));
+
+        assertThat(poll(received)).isEqualTo("CREATED /others/2");
+    }
+
+    @Test
+    void cannot_PublishFailedWrites() throws InterruptedException {
+        final BlockingQueue<ChangeEvent> received = new LinkedBlockingQueue<>();
+        changeEvents.subscribe(null, received::add);
+        doThrow(new IllegalStateException()).when(crud).deleteById(1);
+
+        try {
+            publishingCrud.deleteById(1);
+        } catch (IllegalStateException ignored) {
+        }
+        publishingCrud.deleteById(2);
+
+        assertThat(poll(received)).isEqualTo("DELETED /resources/2");
+    }
+
+    @Test
+    void cannot_PublishWrites_when_ModelHasSource() throws InterruptedException {
+        final BlockingQueue<ChangeEvent> received = new LinkedBlockingQueue<>();
+        changeEvents.subscribe(null, received::add);
+        changeEvents.registerSource("/resources");
+
+        publishingCrud.create(resource(1));
+
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void can_Unsubscribe() throws InterruptedException {
+        final BlockingQueue<ChangeEvent> received = new LinkedBlockingQueue<>();
+        final ChangeListener listener = received::add;
+        changeEvents.subscribe(null, listener);
+
+        publishingCrud.create(resource(1));
+        assertThat(poll(received)).isEqualTo("CREATED /resources/1");
+
+        changeEvents.unsubscribe(listener);
+        publishingCrud.create(resource(2));
+
+        assertThat(received.poll(200, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void can_TellSlowListener_about_MissedEvents_on_ItsOwnThread() throws InterruptedException {
+        final BlockingQueue<String> calls = new LinkedBlockingQueue<>();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        try (ChangeEventBus smallBus = new ChangeEventBus(2)) {
+            smallBus.subscribe("/resources", new ChangeListener() {
+                @Override
+                public void onChange(ChangeEvent event) {
+                    calls.add(event.toString());
+                    try {
+                        release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+
+                @Override
+                public void onMissed() {
+                    calls.add("MISSED on " + Thread.currentThread().getName());
+                }
+            });
+
+            for (int i = 0; i < 20; i++) {
+                smallBus.publish(new ChangeEvent("/resources", i, ChangeType.CREATED));
+            }
+
+            assertThat(smallBus.getDroppedCount()).isGreaterThan(0L);
+            assertThat(calls.poll(5, TimeUnit.SECONDS)).isEqualTo("CREATED /resources/0");
+            // The listener is still busy, so it isn't told yet
+            assertThat(calls.poll(200, TimeUnit.MILLISECONDS)).isNull();
+
+            release.countDown();
+
+            assertThat(calls.poll(5, TimeUnit.SECONDS)).isEqualTo("MISSED on elepy-change-events");
+            assertThat(calls.poll(5, TimeUnit.SECONDS)).isEqualTo("CREATED /resources/1");
+        }
+    }
+
+    private static String poll(BlockingQueue<ChangeEvent> received) throws InterruptedException {
+        final ChangeEvent event = received.poll(5, TimeUnit.SECONDS);
+        return event == null ? null : event.toString();
+    }
+
+    private static Resource resource(int id) {
+        final Resource resource = new Resource();
+        resource.setId(id);
+        return resource;
+    }
+}
@@ -3,36 +3,59 @@ package com.elepy.hibernate;
 import com.elepy.annotations.Searchable;
 import com.elepy.annotations.Unique;
 import com.elepy.dao.*;
+import com.elepy.evaluators.DefaultIntegrityEvaluator;
+import com.elepy.evaluators.IntegrityMode;
 import com.elepy.exceptions.ElepyConfigException;
 import com.elepy.exceptions.ElepyException;
 import com.elepy.models.Model;
 import com.elepy.utils.ReflectionUtils;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import org.hibernate.HibernateException;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.persister.entity.AbstractEntityPersister;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import spark.utils.StringUtils;
 
 import javax.persistence.Column;
+import javax.persistence.Transient;
 import javax.persistence.criteria.*;
 import java.io.Serializable;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Optional;
+import java.lang.reflect.Modifier;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class HibernateDao<T> implements Crud<T> {
     private static final Logger logger = LoggerFactory.getLogger(HibernateDao.class);
+    private static final int STREAM_FETCH_SIZE = 100;
+    private static final int JDBC_BATCH_SIZE = 50;
     private final SessionFactory sessionFactory;
     private final Model<T> model;
     private final ObjectMapper objectMapper;
 
+    // The lower case names of the unique indexes and the properties they are on, to translate constraint violations
+    private final Map<String, String> uniqueIndexes = new ConcurrentHashMap<>();
+    private volatile boolean enforcesUniqueness;
+
     public HibernateDao(SessionFactory sessionFactory, ObjectMapper objectMapper, Model<T> model) {
         this.sessionFactory = sessionFactory;
         this.model = model;
@@ -40,51 +63,267 @@ public class HibernateDao<T> implements Crud<T> {
     }
 
 
-    private Page<T> toPage(Query<T> query, int pageSize, long pageNumber, long amountOfResultsWithThatQuery) {
-        final Query<T> q = query.setMaxResults(pageSize).setFirstResult(((int) pageNumber - 1) * pageSize);
+    /**
+     * Selects a page of the query's results.
+     */
+    private <R> Query<R> page(Query<R> query, PageSettings settings) {
+        // With a cursor the range predicate already skips the previous pages
+        if (!settings.hasCursor()) {
+            query.setFirstResult(((int) settings.getPageNumber() - 1) * settings.getPageSize());
+        }
+        return query.setMaxResults(settings.getLimit());
+    }
 
-        final List<T> values = q.list();
+    @Override
+    public Page<T> search(com.elepy.dao.Query query, PageSettings settings) {
+        try (Session session = sessionFactory.openSession()) {
+            final List<Field> projection = projection(query.getFields(), settings);
 
-        if (amountOfResultsWithThatQuery == -1) {
-            amountOfResultsWithThatQuery = values.size();
+            final List<T> values;
+            if (projection.isEmpty()) {
+                values = page(createSearchQuery(session, query, settings), settings.lookAhead()).list();
+                loadLazyCollections(values);
+            } else {
+                values = page(createProjectedSearchQuery(session, query, settings, projection), settings.lookAhead())
+                        .list()
+                        .stream()
+                        .map(row -> fromRow(row, projection))
+                        .collect(Collectors.toList());
+            }
+
+            return Page.fromLookAhead(this, values, settings, count(query, settings.getCountMode()));
         }
-        loadLazyCollections(values);
+    }
 
-        final long remainder = amountOfResultsWithThatQuery % pageSize;
-        long amountOfPages = amountOfResultsWithThatQuery / pageNumber;
-        if (remainder > 0) amountOfPages++;
+    /**
+     * Scrolls through the results with a forward-only cursor. Every item is detached from the session once it's read,
+     * so the session doesn't hold on to the items that have already been streamed.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<T> stream(com.elepy.dao.Query query, PageSettings settings) {
+        final Session session = sessionFactory.openSession();
 
-        return new Page<>(pageNumber, amountOfPages, values);
+        try {
+            final List<Field> projection = projection(query.getFields(), settings);
+
+            final Query<?> searchQuery = projection.isEmpty() ?
+                    createSearchQuery(session, query, settings) :
+                    createProjectedSearchQuery(session, query, settings, projection);
+
+            final ScrollableResults results = page(searchQuery, settings)
+                    .setFetchSize(STREAM_FETCH_SIZE)
+                    .scroll(ScrollMode.FORWARD_ONLY);
+
+            final Iterator<T> iterator = new Iterator<>() {
+                private Boolean hasNext;
+
+                @Override
+                public boolean hasNext() {
+                    if (hasNext == null) {
+                        hasNext = results.next();
+                    }
+                    return hasNext;
+                }
+
+                @Override
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    hasNext = null;
+
+                    if (!projection.isEmpty()) {
+                        return fromRow(results.get(), projection);
+                    }
+
+                    final T item = (T) results.get(0);
+                    loadLazyCollections(item);
+                    session.detach(item);
+                    return item;
+                }
+            };
+
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED), false)
+                    .onClose(() -> {
+                        results.close();
+                        session.close();
+                    });
+        } catch (RuntimeException e) {
+            session.close();
+            throw e;
+        }
     }
 
-    @Override
-    public Page<T> search(com.elepy.dao.Query query, PageSettings settings) {
-        try (Session session = sessionFactory.openSession()) {
+    private Query<T> createSearchQuery(Session session, com.elepy.dao.Query query, PageSettings settings) {
+        CriteriaBuilder cb = session.getCriteriaBuilder();
+        CriteriaQuery<T> criteriaQuery = cb.createQuery(getType());
 
+        final Root<T> root = criteriaQuery.from(getType());
 
-            CriteriaBuilder cb = session.getCriteriaBuilder();
-            CriteriaQuery<T> criteriaQuery = cb.createQuery(getType());
+        return session.createQuery(criteriaQuery.select(root)
+                .where(generateSearchPredicate(cb, root, query, settings))
+                .orderBy(generateOrderBy(cb, root, settings)));
+    }
 
-            final Root<T> root = criteriaQuery.from(getType());
+    /**
+     * Selects only the projected columns, which are turned into items with {@link #fromRow(Object[], List)}.
+     */
+    private Query<Object[]> createProjectedSearchQuery(Session session, com.elepy.dao.Query query, PageSettings settings, List<Field> projection) {
+        CriteriaBuilder cb = session.getCriteriaBuilder();
+        CriteriaQuery<Object[]> criteriaQuery = cb.createQuery(Object[].class);
 
-            Predicate predicate = generateSearchQuery(cb, root, query);
+        final Root<T> root = criteriaQuery.from(getType());
+
+        return session.createQuery(criteriaQuery.multiselect(generateSelections(root, projection))
+                .where(generateSearchPredicate(cb, root, query, settings))
+                .orderBy(generateOrderBy(cb, root, settings)));
+    }
+
+    private Predicate generateSearchPredicate(CriteriaBuilder cb, Root<T> root, com.elepy.dao.Query query, PageSettings settings) {
+        Predicate predicate = generateSearchQuery(cb, root, query);
+
+        if (settings.hasCursor()) {
+            predicate = cb.and(predicate, generateKeysetPredicate(cb, root, settings));
+        }
+        return predicate;
+    }
 
-            final List<Order> orders = generateOrderBy(cb, root, settings);
+    private List<Selection<?>> generateSelections(Root<T> root, List<Field> projection) {
+        return projection.stream().<Selection<?>>map(field -> root.get(field.getName())).collect(Collectors.toList());
+    }
 
-            Query<T> qry = session.createQuery(criteriaQuery.select(root).where(predicate).orderBy(orders));
+    /**
+     * The fields to select for a projection, including the ID and the sorted properties that cursors are made from.
+     * Collections can't be selected next to other columns, so projections that include them load whole entities.
+     *
+     * @return the fields, or an empty list when whole entities must be loaded
+     */
+    private List<Field> projection(List<String> properties, PageSettings settings) {
+        if (properties.isEmpty()) {
+            return List.of();
+        }
 
-            return toPage(qry, settings.getPageSize(), settings.getPageNumber(), count(query));
+        final Set<String> names = new LinkedHashSet<>(properties);
+        names.add(ReflectionUtils.getPropertyName(getIdField()));
+        if (settings != null) {
+            settings.getPropertySortList().forEach(propertySort -> names.add(propertySort.getProperty()));
+        }
+
+        final List<Field> fields = new ArrayList<>();
+        for (String name : names) {
+            final Field field = ReflectionUtils.getPropertyField(getType(), name);
+            if (field == null || !isProjectable(field)) {
+                return List.of();
+            }
+            fields.add(field);
         }
+        return fields;
+    }
+
+    private boolean isProjectable(Field field) {
+        final Class<?> type = field.getType();
+
+        return !field.isAnnotationPresent(Transient.class)
+                && !Modifier.isTransient(field.getModifiers())
+                && !type.isArray()
+                && !Collection.class.isAssignableFrom(type)
+                && !Map.class.isAssignableFrom(type);
     }
 
+    private T fromRow(Object[] row, List<Field> projection) {
+        try {
+            final T item = ReflectionUtils.<T>getEmptyConstructor(getType())
+                    .orElseThrow(() -> new ElepyConfigException(String.format("%s must have an empty constructor", getType().getName())))
+                    .newInstance();
+
+            for (int i = 0; i < projection.size(); i++) {
+                final Field field = projection.get(i);
+                field.setAccessible(true);
+                field.set(item, row[i]);
+            }
+            return item;
+        } catch (ReflectiveOperationException e) {
+            throw new ElepyException("Failed to create a projected " + getModel().getName(), 500, e);
+        }
+    }
+
+    /**
+     * Databases disagree on where nulls go, so every sorted property is first sorted on whether it is null. Nulls
+     * come first when ascending and last when descending, like Mongo sorts them and like the keyset expects.
+     */
     private List<Order> generateOrderBy(CriteriaBuilder cb, Root<T> root, PageSettings settings) {
-        return settings.getPropertySortList().stream().map(propertySort -> {
+        final List<Order> orders = new ArrayList<>();
+        for (PropertySort propertySort : settings.getPropertySortList()) {
+            final Path<Object> path = root.get(propertySort.getProperty());
+            final Expression<Integer> nullsLow = cb.<Integer>selectCase().when(cb.isNull(path), 0).otherwise(1);
+
             if (propertySort.getSortOption().equals(SortOption.ASCENDING)) {
-                return cb.asc(root.get(propertySort.getProperty()));
+                orders.add(cb.asc(nullsLow));
+                orders.add(cb.asc(path));
             } else {
-                return cb.desc(root.get(propertySort.getProperty()));
+                orders.add(cb.desc(nullsLow));
+                orders.add(cb.desc(path));
             }
-        }).collect(Collectors.toList());
+        }
+        // The id is never null
+        orders.add(cb.asc(root.get(getIdField().getName())));
+        return orders;
+    }
+
+    /**
+     * Sorting on the id last gives every item a unique position, which cursors rely on.
+     *
+     * @see #generateOrderBy(CriteriaBuilder, Root, PageSettings)
+     */
+    private List<PropertySort> keysetSorts(PageSettings settings) {
+        final List<PropertySort> propertySorts = new ArrayList<>(settings.getPropertySortList());
+        propertySorts.add(new PropertySort(getIdField().getName(), SortOption.ASCENDING));
+        return propertySorts;
+    }
+
+    /**
+     * Turns the cursor into a range predicate on the sorted columns. Sorting on (a, b, id) after the values
+     * (x, y, z) generates: a > x OR (a = x AND b > y) OR (a = x AND b = y AND id > z)
+     */
+    @SuppressWarnings("unchecked")
+    private Predicate generateKeysetPredicate(CriteriaBuilder cb, Root<T> root, PageSettings settings) {
+        final List<PropertySort> propertySorts = keysetSorts(settings);
+        final List<Object> values = Cursor.decode(settings.getAfter())
+                .values(getType(), settings.getPropertySortList(), getIdField().getType(), objectMapper);
+
+        final List<Predicate> branches = new ArrayList<>();
+        for (int i = 0; i < propertySorts.size(); i++) {
+            final List<Predicate> conditions = new ArrayList<>();
+
+            for (int j = 0; j < i; j++) {
+                final Path<Object> path = root.get(propertySorts.get(j).getProperty());
+                conditions.add(values.get(j) == null ? cb.isNull(path) : cb.equal(path, values.get(j)));
+            }
+
+            final Path<Comparable> path = root.get(propertySorts.get(i).getProperty());
+            final Comparable value = (Comparable) values.get(i);
+            final boolean ascending = propertySorts.get(i).getSortOption().equals(SortOption.ASCENDING);
+
+            if (value == null) {
+                // Nulls are sorted first, nothing comes before them when descending
+                if (!ascending) {
+                    continue;
+                }
+                conditions.add(cb.isNotNull(path));
+            } else if (ascending) {
+                conditions.add(cb.greaterThan(path, value));
+            } else {
+                // Nulls are sorted last when descending, so they come after every value
+                conditions.add(cb.or(cb.lessThan(path, value), cb.isNull(path)));
+            }
+            branches.add(cb.and(conditions.toArray(new Predicate[0])));
+        }
+        return cb.or(branches.toArray(new Predicate[0]));
+    }
+
+    private Field getIdField() {
+        return ReflectionUtils.getIdField(getType()).orElseThrow(() -> new ElepyConfigException(String.format("%s does not have an identifying field", getType().getName())));
     }
 
     private Predicate generateSearchQuery(CriteriaBuilder cb, Root<T> root, com.elepy.dao.Query query) {
@@ -123,6 +362,44 @@ public class HibernateDao<T> implements Crud<T> {
     }
 
 
+    @Override
+    public Optional<T> getById(Serializable id, List<String> fields) {
+        final List<Field> projection = projection(fields, null);
+        if (projection.isEmpty()) {
+            return getById(id);
+        }
+
+        try (Session session = sessionFactory.openSession()) {
+            CriteriaBuilder cb = session.getCriteriaBuilder();
+            CriteriaQuery<Object[]> criteriaQuery = cb.createQuery(Object[].class);
+
+            final Root<T> root = criteriaQuery.from(getType());
+
+            return session.createQuery(criteriaQuery.multiselect(generateSelections(root, projection))
+                    .where(cb.equal(root.get(getIdField().getName()), id)))
+                    .uniqueResultOptional()
+                    .map(row -> fromRow(row, projection));
+        }
+    }
+
+    @Override
+    public List<T> getByIds(Iterable<Serializable> ids) {
+        try (Session session = sessionFactory.openSession()) {
+            final List<T> found = multiLoad(session, ids);
+
+            loadLazyCollections(found);
+            return found;
+        }
+    }
+
+    private List<T> multiLoad(Session session, Iterable<Serializable> ids) {
+        return session.byMultipleIds(getType())
+                .multiLoad(Lists.newArrayList(ids))
+                .stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public List<T> searchInField(Field field, String qry) {
         try (Session session = sessionFactory.openSession()) {
@@ -146,11 +423,16 @@ public class HibernateDao<T> implements Crud<T> {
 
     @Override
     public void update(T item) {
-        try (Session session = sessionFactory.openSession()) {
-            final Transaction transaction = session.beginTransaction();
-            session.update(item);
-            transaction.commit();
-        }
+        write(List.of(item), session -> session.update(item));
+    }
+
+    /**
+     * Updates all the items in one transaction, with the statements sent to the database in JDBC batches.
+     */
+    @Override
+    public void update(Iterable<T> items) {
+        final List<T> toUpdate = Lists.newArrayList(items);
+        write(toUpdate, session -> toUpdate.forEach(session::update));
     }
 
     private void create(Session session, T item) {
@@ -159,12 +441,10 @@ public class HibernateDao<T> implements Crud<T> {
 
     @Override
     public void create(T item) {
-        try (Session session = sessionFactory.openSession()) {
-            final Transaction transaction = session.beginTransaction();
-
-            create(session, item);
-            transaction.commit();
-
+        try {
+            write(List.of(item), session -> create(session, item));
+        } catch (ElepyException e) {
+            throw e;
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
             throw new ElepyException(e.getMessage());
@@ -185,14 +465,11 @@ public class HibernateDao<T> implements Crud<T> {
 
     @Override
     public void create(Iterable<T> items) {
-        try (Session session = sessionFactory.openSession()) {
-            final Transaction transaction = session.beginTransaction();
-
-            for (T item : items) {
-                create(session, item);
-            }
-            transaction.commit();
-
+        final List<T> toCreate = Lists.newArrayList(items);
+        try {
+            write(toCreate, session -> toCreate.forEach(item -> create(session, item)));
+        } catch (ElepyException e) {
+            throw e;
         } catch (Exception e) {
             logger.error(e.getMessage(), e);
             throw new ElepyException(e.getMessage());
@@ -230,6 +507,7 @@ public class HibernateDao<T> implements Crud<T> {
         return objectMapper;
     }
 
+    @Override
     public long count(com.elepy.dao.Query query) {
 
         try (Session session = sessionFactory.openSession()) {
@@ -248,13 +526,148 @@ public class HibernateDao<T> implements Crud<T> {
 
 
             Query<Long> query1 = session.createQuery(criteriaQuery);
+            return query1.getSingleResult();
+        }
+    }
 
 
-            query1.getResultList();
-            return query1.getSingleResult();
+    /**
+     * Runs the aggregation as a group by query, so that only the buckets leave the database. Date buckets are grouped
+     * on the year(), month(), day() and hour() functions of the database.
+     */
+    @Override
+    public List<AggregationBucket> aggregate(Aggregation aggregation) {
+        try (Session session = sessionFactory.openSession()) {
+            final CriteriaBuilder cb = session.getCriteriaBuilder();
+            final CriteriaQuery<Object[]> criteriaQuery = cb.createQuery(Object[].class);
+            final Root<T> root = criteriaQuery.from(getType());
+
+            final List<Expression<?>> groupBy = groupByExpressions(cb, root, aggregation);
+            final List<Selection<?>> selections = new ArrayList<>(groupBy);
+            aggregation.getAggregates().forEach(aggregate -> selections.add(aggregateExpression(cb, root, aggregate)));
+
+            criteriaQuery.multiselect(selections)
+                    .where(generateSearchQuery(cb, root, aggregation.getQuery()))
+                    .groupBy(groupBy)
+                    .orderBy(groupBy.stream().map(cb::asc).collect(Collectors.toList()));
+
+            return session.createQuery(criteriaQuery).getResultList().stream().map(row -> {
+                final Map<String, Object> values = new LinkedHashMap<>();
+                for (int i = 0; i < aggregation.getAggregates().size(); i++) {
+                    values.put(aggregation.getAggregates().get(i).getName(), row[groupBy.size() + i]);
+                }
+                return new AggregationBucket(groupKey(aggregation, Arrays.asList(row).subList(0, groupBy.size())), values);
+            }).collect(Collectors.toList());
         }
     }
 
+    /**
+     * Plain facets are counted by a group by query. Bucketed facets are counted in a single row of sum(case when ...)
+     * columns, so that the distinct values don't leave the database.
+     */
+    @Override
+    public Map<String, Map<String, Long>> facetCounts(com.elepy.dao.Query query, List<Facet> facets) {
+        final Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+
+        for (Facet facet : facets) {
+            if (facet.isBucketed()) {
+                counts.put(facet.getProperty(), facet.counts(bucketCounts(query, facet)));
+            } else {
+                counts.putAll(Crud.super.facetCounts(query, List.of(facet)));
+            }
+        }
+        return counts;
+    }
+
+    private List<AggregationBucket> bucketCounts(com.elepy.dao.Query query, Facet facet) {
+        try (Session session = sessionFactory.openSession()) {
+            final CriteriaBuilder cb = session.getCriteriaBuilder();
+            final CriteriaQuery<Object[]> criteriaQuery = cb.createQuery(Object[].class);
+            final Root<T> root = criteriaQuery.from(getType());
+            final Path<Number> path = root.get(propertyField(facet.getProperty()).getName());
+
+            final List<Selection<?>> selections = new ArrayList<>();
+            selections.add(cb.count(root));
+            for (int i = 1; i < facet.getBoundaries().size(); i++) {
+                final Predicate inBucket = cb.and(
+                        cb.ge(path, facet.getBoundaries().get(i - 1)),
+                        cb.lt(path, facet.getBoundaries().get(i)));
+                selections.add(cb.sum(cb.<Long>selectCase().when(inBucket, 1L).otherwise(0L)));
+            }
+            criteriaQuery.multiselect(selections).where(generateSearchQuery(cb, root, query));
+
+            final Object[] row = session.createQuery(criteriaQuery).getSingleResult();
+
+            // Like Mongo's $bucket, buckets are keyed by their lower boundary and the rest is 'other'
+            final List<AggregationBucket> buckets = new ArrayList<>();
+            long inBuckets = 0;
+            for (int i = 1; i < row.length; i++) {
+                final long count = row[i] == null ? 0 : ((Number) row[i]).longValue();
+                inBuckets += count;
+                buckets.add(new AggregationBucket(facet.getBoundaries().get(i - 1), Map.of(Aggregate.count().getName(), count)));
+            }
+            final long other = ((Number) row[0]).longValue() - inBuckets;
+            if (other > 0) {
+                buckets.add(new AggregationBucket(Facet.OTHER, Map.of(Aggregate.count().getName(), other)));
+            }
+            return buckets;
+        }
+    }
+
+    private List<Expression<?>> groupByExpressions(CriteriaBuilder cb, Root<T> root, Aggregation aggregation) {
+        if (!aggregation.hasGroupBy()) {
+            return List.of();
+        }
+        final Path<Object> path = root.get(propertyField(aggregation.getGroupBy()).getName());
+        if (aggregation.getDateBucket() == null) {
+            return List.of(path);
+        }
+        return List.of("year", "month", "day", "hour")
+                .subList(0, aggregation.getDateBucket().getParts())
+                .stream()
+                .map(function -> cb.function(function, Integer.class, path))
+                .collect(Collectors.toList());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Expression<?> aggregateExpression(CriteriaBuilder cb, Root<T> root, Aggregate aggregate) {
+        if (aggregate.getFunction() == AggregateFunction.COUNT) {
+            return cb.count(root);
+        }
+        final Field field = propertyField(aggregate.getProperty());
+        final Expression path = root.get(field.getName());
+        final boolean numeric = Number.class.isAssignableFrom(field.getType()) || field.getType().isPrimitive();
+
+        switch (aggregate.getFunction()) {
+            case SUM:
+                return cb.sum(path);
+            case AVG:
+                return cb.avg(path);
+            case MIN:
+                return numeric ? cb.min(path) : cb.least(path);
+            default:
+                return numeric ? cb.max(path) : cb.greatest(path);
+        }
+    }
+
+    private Object groupKey(Aggregation aggregation, List<Object> groupValues) {
+        if (groupValues.isEmpty()) {
+            return null;
+        }
+        if (aggregation.getDateBucket() != null) {
+            return aggregation.getDateBucket().key(groupValues.stream().map(value -> (Number) value).collect(Collectors.toList()));
+        }
+        final Object key = groupValues.get(0);
+        return key instanceof Enum ? ((Enum<?>) key).name() : key;
+    }
+
+    private Field propertyField(String property) {
+        final Field field = ReflectionUtils.getPropertyField(getType(), property);
+        if (field == null) {
+            throw new ElepyException(String.format("No properties titled '%s'", property), 400);
+        }
+        return field;
+    }
 
     @Override
     public void deleteById(Serializable id) {
@@ -270,6 +683,22 @@ public class HibernateDao<T> implements Crud<T> {
     }
 
 
+    /**
+     * Loads all the items with a single multi-id select and deletes them in JDBC batches. Deleting the loaded entities,
+     * rather than running a bulk HQL delete, keeps cascades and element collections working.
+     */
+    @Override
+    public void delete(Iterable<Serializable> ids) {
+        try (Session session = sessionFactory.openSession()) {
+            session.setJdbcBatchSize(JDBC_BATCH_SIZE);
+            final Transaction transaction = session.beginTransaction();
+
+            multiLoad(session, ids).forEach(session::delete);
+
+            transaction.commit();
+        }
+    }
+
     @Override
     public long count() {
         try (Session session = sessionFactory.openSession()) {
@@ -278,6 +707,222 @@ public class HibernateDao<T> implements Crud<T> {
         }
     }
 
+    /**
+     * Creates the missing indexes with plain DDL, after looking up the existing ones in the JDBC metadata. Indexes can't
+     * be added to a JPA mapping at runtime, so hbm2ddl only knows about the ones declared with
+     * {@link javax.persistence.Index}. The primary key and properties that aren't mapped to a single column are
+     * skipped.
+     * <p>
+     * With {@link IntegrityMode#DATABASE}, this Crud {@link #enforcesUniqueness() enforces uniqueness} once every
+     * unique property has a unique index.
+     */
+    @Override
+    public List<String> synchronizeIndexes(List<ModelIndex> indexes) {
+        final AbstractEntityPersister persister = (AbstractEntityPersister) sessionFactory.unwrap(SessionFactoryImplementor.class).getMetamodel().entityPersister(getType());
+        final String table = persister.getTableName();
+        final String idProperty = ReflectionUtils.getPropertyName(getIdField());
+        final List<String> drift = new ArrayList<>();
+        final AtomicBoolean allUnique = new AtomicBoolean(true);
+
+        uniqueIndexes.clear();
+
+        try (Session session = sessionFactory.openSession()) {
+            final Transaction transaction = session.beginTransaction();
+            session.doWork(connection -> {
+                final Collection<TableIndex> existing = existingIndexes(connection.getMetaData(), table);
+                final Set<String> requiredColumns = new HashSet<>();
+
+                for (ModelIndex index : indexes) {
+                    if (index.getProperty().equals(idProperty)) {
+                        continue;
+                    }
+                    final Optional<String> column = columnOf(persister, index.getProperty());
+                    if (column.isEmpty()) {
+                        allUnique.compareAndSet(index.isUnique(), false);
+                        continue;
+                    }
+                    requiredColumns.add(column.get().toLowerCase());
+
+                    final Optional<TableIndex> found = existing.stream().filter(tableIndex -> tableIndex.isOn(column.get())).findFirst();
+
+                    if (found.isEmpty()) {
+                        final String name = indexName(table, column.get());
+                        try (Statement statement = connection.createStatement()) {
+                            statement.executeUpdate(String.format("CREATE %sINDEX %s ON %s (%s)", index.isUnique() ? "UNIQUE " : "", name, table, column.get()));
+                            if (index.isUnique()) {
+                                uniqueIndexes.put(name, index.getProperty());
+                            }
+                        } catch (SQLException e) {
+                            allUnique.compareAndSet(index.isUnique(), false);
+                            drift.add(String.format("Failed to create the %s: %s", index, e.getMessage()));
+                        }
+                    } else if (found.get().unique != index.isUnique()) {
+                        allUnique.compareAndSet(index.isUnique(), false);
+                        drift.add(String.format("The index '%s' should %sbe unique", found.get().name, index.isUnique() ? "" : "not "));
+                    } else if (index.isUnique()) {
+                        uniqueIndexes.put(found.get().name.toLowerCase(), index.getProperty());
+                    }
+                }
+
+                for (TableIndex tableIndex : existing) {
+                    if (tableIndex.name.toLowerCase().startsWith(ModelIndex.NAME_PREFIX) && requiredColumns.stream().noneMatch(tableIndex::isOn)) {
+                        drift.add(String.format("The index '%s' is no longer needed", tableIndex.name));
+                    }
+                }
+            });
+            transaction.commit();
+        }
+        enforcesUniqueness = allUnique.get() && IntegrityMode.of(getType()).equals(IntegrityMode.DATABASE);
+        return drift;
+    }
+
+    @Override
+    public boolean enforcesUniqueness() {
+        return enforcesUniqueness;
+    }
+
+    /**
+     * Runs a write in a transaction, turning a violation of a unique index or the primary key into the exception of
+     * the integrity checks.
+     *
+     * @param items the items that are written
+     */
+    private void write(List<T> items, Consumer<Session> write) {
+        try (Session session = sessionFactory.openSession()) {
+            session.setJdbcBatchSize(JDBC_BATCH_SIZE);
+            final Transaction transaction = session.beginTransaction();
+
+            write.accept(session);
+            transaction.commit();
+        } catch (RuntimeException e) {
+            final Optional<String> property = violatedProperty(e);
+            if (property.isPresent()) {
+                throw DefaultIntegrityEvaluator.uniquenessViolation(violator(items, property.get()), property.get());
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the property of the unique index or primary key that caused the exception, if it did
+     */
+    private Optional<String> violatedProperty(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException) {
+                final String constraint = String.valueOf(((ConstraintViolationException) cause).getConstraintName()).toLowerCase();
+
+                if (constraint.contains("primary") || constraint.contains("_pkey")) {
+                    return Optional.of(ReflectionUtils.getPropertyName(getIdField()));
+                }
+                return Arrays.stream(constraint.split("[^a-z0-9_]+"))
+                        .map(uniqueIndexes::get)
+                        .filter(Objects::nonNull)
+                        .findFirst();
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Finds the item of a batch whose value of a unique property was already taken. This costs extra queries, but
+     * only when a write has failed.
+     *
+     * @return the item or null if it can't be found
+     */
+    private T violator(List<T> items, String property) {
+        if (items.size() == 1) {
+            return items.get(0);
+        }
+        final Field field = ReflectionUtils.getPropertyField(getType(), property);
+        final Field idField = getIdField();
+        final Map<Object, T> seen = new HashMap<>();
+        idField.setAccessible(true);
+
+        try (Session session = sessionFactory.openSession()) {
+            for (T item : items) {
+                final Object value = field.get(item);
+                if (value == null) {
+                    continue;
+                }
+                if (seen.putIfAbsent(value, item) != null) {
+                    return item;
+                }
+                final CriteriaBuilder cb = session.getCriteriaBuilder();
+                final CriteriaQuery<Long> criteriaQuery = cb.createQuery(Long.class);
+                final Root<T> root = criteriaQuery.from(getType());
+
+                Predicate predicate = cb.equal(root.get(field.getName()), value);
+                if (!field.equals(idField)) {
+                    predicate = cb.and(predicate, cb.notEqual(root.get(idField.getName()), idField.get(item)));
+                }
+                if (session.createQuery(criteriaQuery.select(cb.count(root)).where(predicate)).getSingleResult() > 0) {
+                    return item;
+                }
+            }
+        } catch (IllegalAccessException e) {
+            logger.error(e.getMessage(), e);
+        }
+        return null;
+    }
+
+    private Optional<String> columnOf(AbstractEntityPersister persister, String property) {
+        final Field field = ReflectionUtils.getPropertyField(getType(), property);
+        if (field == null) {
+            return Optional.empty();
+        }
+        try {
+            final String[] columns = persister.getPropertyColumnNames(field.getName());
+            return columns.length == 1 ? Optional.of(columns[0]) : Optional.empty();
+        } catch (HibernateException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static String indexName(String table, String column) {
+        final String name = (ModelIndex.NAME_PREFIX + table + "_" + column).toLowerCase();
+
+        // Some databases limit identifiers to 30 characters
+        return name.length() <= 30 ? name : ModelIndex.NAME_PREFIX + Integer.toHexString(name.hashCode());
+    }
+
+    private static Collection<TableIndex> existingIndexes(DatabaseMetaData metaData, String table) throws SQLException {
+        // Databases differ in how they fold the case of unquoted table names
+        for (String tableName : new LinkedHashSet<>(List.of(table, table.toUpperCase(), table.toLowerCase()))) {
+            final Map<String, TableIndex> indexes = new LinkedHashMap<>();
+
+            try (ResultSet resultSet = metaData.getIndexInfo(null, null, tableName, false, true)) {
+                while (resultSet.next()) {
+                    final String name = resultSet.getString("INDEX_NAME");
+                    final String column = resultSet.getString("COLUMN_NAME");
+                    if (name == null || column == null) {
+                        continue;
+                    }
+                    final boolean unique = !resultSet.getBoolean("NON_UNIQUE");
+                    indexes.computeIfAbsent(name, key -> new TableIndex(name, unique)).columns.add(column.toLowerCase());
+                }
+            }
+            if (!indexes.isEmpty()) {
+                return indexes.values();
+            }
+        }
+        return List.of();
+    }
+
+    private static class TableIndex {
+        private final String name;
+        private final boolean unique;
+        private final List<String> columns = new ArrayList<>();
+
+        private TableIndex(String name, boolean unique) {
+            this.name = name;
+            this.unique = unique;
+        }
+
+        private boolean isOn(String column) {
+            return columns.size() == 1 && columns.get(0).equalsIgnoreCase(column);
+        }
+    }
+
     private String getJPAFieldName(Field field) {
         Column annotation = field.getAnnotation(Column.class);
 
@@ -0,0 +1,38 @@
+package com.elepy.mongo;
+
+import com.elepy.annotations.Inject;
+import com.elepy.dao.Crud;
+import com.elepy.dao.CrudFactory;
+import com.elepy.models.Model;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DB;
+import com.mongodb.async.client.MongoDatabase;
+
+/**
+ * A {@link MongoCrudFactory} whose Crud's use the asynchronous Mongo driver when they are used asynchronously.
+ *
+ * @see MongoConfiguration#withAsyncClient(com.mongodb.async.client.MongoClient)
+ */
+public class AsyncMongoCrudFactory implements CrudFactory {
+
+    @Inject
+    private DB database;
+
+    @Inject
+    private MongoDatabase asyncDatabase;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Override
+    public <T> Crud<T> crudFor(Model<T> model) {
+
+        final String slug = model.getSlug();
+
+        final String[] split = slug.split("/");
+
+        final DefaultMongoDao<T> dao = new DefaultMongoDao<>(database, split[split.length - 1], model, objectMapper);
+        dao.setAsyncDatabase(asyncDatabase);
+        return dao;
+    }
+}
@@ -28,6 +28,8 @@ public class DefaultMongoDao<T> extends MongoDao<T> {
 
         this.jongo = new Jongo(db(), JongoMapperFactory.createMapper());
 
+        resolveIdKey();
+        createSearchIndexes();
     }
 
 
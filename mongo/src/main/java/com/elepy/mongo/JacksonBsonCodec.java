@@ -0,0 +1,125 @@
+package com.elepy.mongo;
+
+import com.elepy.exceptions.ElepyException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.bson.*;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.CollectibleCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.RawBsonDocumentCodec;
+
+import java.io.IOException;
+import java.util.Collections;
+
+/**
+ * A codec that lets the native driver read and write items straight from and to BSON with Jackson, so that the same
+ * annotations apply as everywhere else in Elepy. The reader and writer of the type are resolved once.
+ * <p>
+ * Like Jongo, the ID property is also stored as _id.
+ *
+ * @param <T> The type of the Model
+ */
+class JacksonBsonCodec<T> implements CollectibleCodec<T> {
+
+    private static final RawBsonDocumentCodec RAW_CODEC = new RawBsonDocumentCodec();
+    private static final BsonDocumentCodec DOCUMENT_CODEC = new BsonDocumentCodec();
+    private static final String VALUE = "value";
+
+    private final Class<T> type;
+    private final String idProperty;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final ObjectWriter valueWriter;
+
+    JacksonBsonCodec(Class<T> type, String idProperty, ObjectMapper bsonObjectMapper) {
+        this.type = type;
+        this.idProperty = idProperty;
+        this.reader = bsonObjectMapper.readerFor(type);
+        this.writer = bsonObjectMapper.writerFor(type);
+        this.valueWriter = bsonObjectMapper.writer();
+    }
+
+    @Override
+    public void encode(BsonWriter bsonWriter, T item, EncoderContext encoderContext) {
+        final RawBsonDocument document = toDocument(item);
+        final BsonValue id = document.get(idProperty);
+
+        if (id != null && !document.containsKey("_id")) {
+            final BsonDocument withId = new BsonDocument("_id", id);
+            withId.putAll(document);
+            DOCUMENT_CODEC.encode(bsonWriter, withId, encoderContext);
+        } else {
+            RAW_CODEC.encode(bsonWriter, document, encoderContext);
+        }
+    }
+
+    @Override
+    public T decode(BsonReader bsonReader, DecoderContext decoderContext) {
+        final RawBsonDocument document = RAW_CODEC.decode(bsonReader, decoderContext);
+        try {
+            return reader.readValue(bytes(document));
+        } catch (IOException e) {
+            throw new ElepyException(String.format("Failed to read a %s from Mongo", type.getSimpleName()), 500, e);
+        }
+    }
+
+    @Override
+    public Class<T> getEncoderClass() {
+        return type;
+    }
+
+    @Override
+    public T generateIdIfAbsentFromDocument(T item) {
+        return item;
+    }
+
+    @Override
+    public boolean documentHasId(T item) {
+        return true;
+    }
+
+    @Override
+    public BsonValue getDocumentId(T item) {
+        return toDocument(item).get(idProperty, BsonNull.VALUE);
+    }
+
+    /**
+     * Encodes a single value, such as a filter value, the same way as it is stored in an item.
+     */
+    BsonValue encodeValue(Object value) {
+        if (value == null) {
+            return BsonNull.VALUE;
+        }
+        try {
+            return new RawBsonDocument(valueWriter.writeValueAsBytes(Collections.singletonMap(VALUE, value))).get(VALUE);
+        } catch (IOException e) {
+            throw new ElepyException(String.format("Failed to encode '%s' for Mongo", value), 500, e);
+        }
+    }
+
+    /**
+     * The document of an item without the _id that {@link #encode} adds, to replace a stored document with. The _id of
+     * a stored document can't change, and it doesn't have to be the ID property.
+     */
+    RawBsonDocument replacement(T item) {
+        return toDocument(item);
+    }
+
+    private RawBsonDocument toDocument(T item) {
+        try {
+            return new RawBsonDocument(writer.writeValueAsBytes(item));
+        } catch (IOException e) {
+            throw new ElepyException(String.format("Failed to write a %s to Mongo", type.getSimpleName()), 500, e);
+        }
+    }
+
+    private static byte[] bytes(RawBsonDocument document) {
+        final ByteBuf buffer = document.getByteBuffer();
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -12,4 +12,16 @@ public class JongoMapperFactory {
 
         return new JacksonMapper.Builder().withObjectIdUpdater(new ElepyIdUpdater(oMapper)).build();
     }
+
+    /**
+     * Creates an ObjectMapper that reads and writes BSON the way the Jongo mapper does, so that the native driver and
+     * Jongo store the same documents.
+     */
+    public static ObjectMapper createBsonObjectMapper() {
+        final var oMapper = new ObjectMapper(MongoBsonFactory.createFactory());
+
+        // The builder configures the ObjectMapper it is given
+        new JacksonMapper.Builder(oMapper).build();
+        return oMapper;
+    }
 } 
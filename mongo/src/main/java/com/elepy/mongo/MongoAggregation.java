@@ -0,0 +1,132 @@
+package com.elepy.mongo;
+
+import com.elepy.dao.Aggregate;
+import com.elepy.dao.AggregateFunction;
+import com.elepy.dao.Aggregation;
+import com.elepy.dao.AggregationBucket;
+import com.elepy.dao.Facet;
+import com.mongodb.BasicDBObject;
+import org.bson.types.Decimal128;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Builds the $group and $sort stages of an {@link Aggregation} and the $facet stage of {@link Facet}'s, for both Mongo
+ * Crud's. The $match stage is the query, which every Crud builds in its own way.
+ */
+class MongoAggregation {
+
+    private MongoAggregation() {
+    }
+
+    static BasicDBObject groupStage(Aggregation aggregation) {
+        final BasicDBObject group = new BasicDBObject("_id", groupKey(aggregation));
+
+        for (Aggregate aggregate : aggregation.getAggregates()) {
+            group.append(aggregate.getName(), accumulator(aggregate));
+        }
+        return new BasicDBObject("$group", group);
+    }
+
+    static BasicDBObject sortStage() {
+        return new BasicDBObject("$sort", new BasicDBObject("_id", 1));
+    }
+
+    private static Object groupKey(Aggregation aggregation) {
+        if (!aggregation.hasGroupBy()) {
+            return null;
+        }
+        final String field = "$" + aggregation.getGroupBy();
+
+        if (aggregation.getDateBucket() == null) {
+            return field;
+        }
+        return new BasicDBObject("$dateToString", new BasicDBObject("format", aggregation.getDateBucket().getMongoFormat()).append("date", field));
+    }
+
+    private static BasicDBObject accumulator(Aggregate aggregate) {
+        switch (aggregate.getFunction()) {
+            case COUNT:
+                return new BasicDBObject("$sum", 1);
+            case SUM:
+                return new BasicDBObject("$sum", "$" + aggregate.getProperty());
+            case AVG:
+                return new BasicDBObject("$avg", "$" + aggregate.getProperty());
+            case MIN:
+                return new BasicDBObject("$min", "$" + aggregate.getProperty());
+            default:
+                return new BasicDBObject("$max", "$" + aggregate.getProperty());
+        }
+    }
+
+    /**
+     * @param results the documents that the pipeline returned
+     */
+    static List<AggregationBucket> buckets(Aggregation aggregation, List<? extends Map<String, Object>> results) {
+        final List<AggregationBucket> buckets = results.stream().map(result -> {
+            final Map<String, Object> values = new LinkedHashMap<>();
+            aggregation.getAggregates().forEach(aggregate -> values.put(aggregate.getName(), value(result.get(aggregate.getName()))));
+
+            return new AggregationBucket(value(result.get("_id")), values);
+        }).collect(Collectors.toList());
+
+        // Without grouping there is always a bucket, like a count of 0
+        if (buckets.isEmpty() && !aggregation.hasGroupBy()) {
+            final Map<String, Object> values = new LinkedHashMap<>();
+            aggregation.getAggregates().forEach(aggregate -> values.put(aggregate.getName(), aggregate.getFunction() == AggregateFunction.COUNT ? 0L : null));
+            buckets.add(new AggregationBucket(null, values));
+        }
+        return buckets;
+    }
+
+    /**
+     * Counts every facet in a single $facet stage, as a sub pipeline named after the index of the facet.
+     */
+    static BasicDBObject facetStage(List<Facet> facets) {
+        final BasicDBObject stage = new BasicDBObject();
+
+        for (int i = 0; i < facets.size(); i++) {
+            stage.append("f" + i, List.of(facetGroup(facets.get(i))));
+        }
+        return new BasicDBObject("$facet", stage);
+    }
+
+    private static BasicDBObject facetGroup(Facet facet) {
+        final BasicDBObject count = new BasicDBObject("$sum", 1);
+        final String field = "$" + facet.getProperty();
+
+        if (!facet.isBucketed()) {
+            return new BasicDBObject("$group", new BasicDBObject("_id", field).append("count", count));
+        }
+        return new BasicDBObject("$bucket", new BasicDBObject("groupBy", field)
+                .append("boundaries", facet.getBoundaries().stream().map(BigDecimal::doubleValue).collect(Collectors.toList()))
+                .append("default", Facet.OTHER)
+                .append("output", new BasicDBObject("count", count)));
+    }
+
+    /**
+     * @param result the document that the $facet stage returned
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Map<String, Long>> facetCounts(List<Facet> facets, Map<String, Object> result) {
+        final Map<String, Map<String, Long>> counts = new LinkedHashMap<>();
+
+        for (int i = 0; i < facets.size(); i++) {
+            final List<Map<String, Object>> groups = (List<Map<String, Object>>) result.getOrDefault("f" + i, List.of());
+
+            final List<AggregationBucket> buckets = groups.stream()
+                    .map(group -> new AggregationBucket(value(group.get("_id")), Map.of("count", group.get("count"))))
+                    .collect(Collectors.toList());
+            counts.put(facets.get(i).getProperty(), facets.get(i).counts(buckets));
+        }
+        return counts;
+    }
+
+    private static Object value(Object value) {
+        return value instanceof Decimal128 ? ((Decimal128) value).bigDecimalValue() : value;
+    }
+}
@@ -0,0 +1,271 @@
+package com.elepy.mongo;
+
+import com.elepy.dao.*;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.exceptions.ElepyPartialWriteException;
+import com.elepy.mongo.querybuilding.MongoQuery;
+import com.google.common.collect.Lists;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import com.mongodb.DBObjectCodecProvider;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.async.SingleResultCallback;
+import com.mongodb.async.client.FindIterable;
+import com.mongodb.async.client.MongoClients;
+import com.mongodb.async.client.MongoCollection;
+import com.mongodb.async.client.MongoDatabase;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.UpdateOneModel;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.jongo.Mapper;
+import org.jongo.bson.Bson;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * An {@link AsyncCrud} on the asynchronous Mongo driver, so that no thread waits while Mongo answers. Items are
+ * (un)marshalled with the Jongo mapper of the {@link MongoDao}, and queries are compiled by the same query planner, so
+ * the items and results are the same as the blocking ones.
+ *
+ * @param <T> The type of the Model
+ * @see MongoDao#setAsyncDatabase(MongoDatabase)
+ */
+public class MongoAsyncCrud<T> implements AsyncCrud<T> {
+
+    private final MongoDao<T> dao;
+    private final MongoCollection<DBObject> collection;
+
+    MongoAsyncCrud(MongoDao<T> dao, MongoDatabase database) {
+        this.dao = dao;
+        this.collection = database.getCollection(dao.mongoCollectionName(), DBObject.class)
+                .withCodecRegistry(CodecRegistries.fromRegistries(
+                        CodecRegistries.fromProviders(new DBObjectCodecProvider()),
+                        MongoClients.getDefaultCodecRegistry()));
+    }
+
+    private static <R> SingleResultCallback<R> completing(CompletableFuture<R> future) {
+        return (result, throwable) -> {
+            if (throwable == null) {
+                future.complete(result);
+            } else {
+                future.completeExceptionally(throwable);
+            }
+        };
+    }
+
+    private static <R> CompletableFuture<R> call(Consumer<SingleResultCallback<R>> call) {
+        final CompletableFuture<R> future = new CompletableFuture<>();
+        try {
+            call.accept(completing(future));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    private Mapper mapper() {
+        return dao.getJongo().getMapper();
+    }
+
+    private T unmarshall(DBObject document) {
+        return mapper().getUnmarshaller().unmarshall(Bson.createDocument(document), dao.getType());
+    }
+
+    private DBObject marshall(T item) {
+        return mapper().getMarshaller().marshall(item).toDBObject();
+    }
+
+    private BasicDBObject query(String template, Object... parameters) {
+        return new BasicDBObject(dao.getJongo().createQuery(template, parameters).toDBObject().toMap());
+    }
+
+    private BasicDBObject byId(Object id) {
+        return new BasicDBObject(dao.getIdKey(), id);
+    }
+
+    /**
+     * Like a Jongo update().with(), every property but the immutable _id is $set.
+     */
+    private BasicDBObject update(T item) {
+        final DBObject document = marshall(item);
+        document.removeField("_id");
+        return new BasicDBObject("$set", document);
+    }
+
+    /**
+     * Turns a duplicate key error into the exception of the integrity checks, like the blocking writes do.
+     */
+    private <R> CompletableFuture<R> translateErrors(List<T> items, CompletableFuture<R> write) {
+        final CompletableFuture<R> translated = new CompletableFuture<>();
+
+        write.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                translated.complete(result);
+            } else if (throwable instanceof MongoWriteException && ((MongoWriteException) throwable).getError().getCode() == MongoDao.DUPLICATE_KEY) {
+                translated.completeExceptionally(dao.uniquenessViolation(items.size() == 1 ? items.get(0) : null, throwable.getMessage(), (MongoWriteException) throwable));
+            } else if (throwable instanceof MongoBulkWriteException) {
+                final MongoBulkWriteException bulkWriteException = (MongoBulkWriteException) throwable;
+                final Optional<BulkWriteError> duplicate = bulkWriteException.getWriteErrors().stream().filter(error -> error.getCode() == MongoDao.DUPLICATE_KEY).findFirst();
+
+                translated.completeExceptionally(duplicate.isPresent() ?
+                        dao.uniquenessViolation(items.get(duplicate.get().getIndex()), duplicate.get().getMessage(), bulkWriteException) :
+                        throwable);
+            } else {
+                translated.completeExceptionally(throwable);
+            }
+        });
+        return translated;
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> getByIdAsync(Serializable id) {
+        return getByIdAsync(id, List.of());
+    }
+
+    @Override
+    public CompletableFuture<Optional<T>> getByIdAsync(Serializable id, List<String> fields) {
+        final FindIterable<DBObject> find = collection.find(byId(id));
+        if (!fields.isEmpty()) {
+            find.projection(query(dao.projection(fields)));
+        }
+        return MongoAsyncCrud.<DBObject>call(find::first).thenApply(document -> Optional.ofNullable(document).map(this::unmarshall));
+    }
+
+    @Override
+    public CompletableFuture<List<T>> getByIdsAsync(Iterable<Serializable> ids) {
+        final List<Serializable> idList = Lists.newArrayList(ids);
+
+        return MongoAsyncCrud.<List<DBObject>>call(callback -> collection.find(new BasicDBObject(dao.getIdKey(), new BasicDBObject("$in", idList))).into(new ArrayList<>(), callback))
+                .thenApply(documents -> documents.stream().map(this::unmarshall).collect(Collectors.toList()));
+    }
+
+    @Override
+    public CompletableFuture<Page<T>> searchAsync(Query query, PageSettings settings) {
+        final MongoQuery mongoQuery = dao.mongoQuery(query);
+        final MongoFind mongoFind = dao.mongoFind(mongoQuery, settings.lookAhead(), query.getFields());
+
+        final FindIterable<DBObject> find = collection.find(query(mongoFind.getQuery(), mongoFind.getParameters()))
+                .sort(query(mongoFind.getSort()))
+                .limit(mongoFind.getLimit())
+                .skip(mongoFind.getSkip());
+        if (mongoFind.getProjection() != null) {
+            find.projection(query(mongoFind.getProjection()));
+        }
+
+        final CompletableFuture<List<T>> values = MongoAsyncCrud.<List<DBObject>>call(callback -> find.into(new ArrayList<>(), callback))
+                .thenApply(documents -> documents.stream().map(this::unmarshall).collect(Collectors.toList()));
+
+        return values.thenCombine(count(mongoQuery, settings.getCountMode()), (found, amount) -> Page.fromLookAhead(dao, found, settings, amount));
+    }
+
+    private CompletableFuture<Long> count(MongoQuery mongoQuery, CountMode countMode) {
+        switch (countMode) {
+            case NONE:
+                return CompletableFuture.completedFuture(-1L);
+            case ESTIMATED:
+                return call(collection::estimatedDocumentCount);
+            default:
+                return call(callback -> collection.countDocuments(query(mongoQuery.compile(), mongoQuery.getParameters()), callback));
+        }
+    }
+
+    @Override
+    public CompletableFuture<Long> countAsync(Query query) {
+        return count(dao.mongoQuery(query), CountMode.EXACT);
+    }
+
+    @Override
+    public CompletableFuture<Void> createAsync(T item) {
+        return translateErrors(List.of(item), call(callback -> collection.insertOne(dao.insertable(item), callback)));
+    }
+
+    @Override
+    public CompletableFuture<Void> createAsync(Iterable<T> items) {
+        final List<T> toCreate = Lists.newArrayList(items);
+        if (toCreate.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final List<DBObject> documents = toCreate.stream().map(dao::insertable).collect(Collectors.toList());
+
+        return translateErrors(toCreate, translatePartialWrite(toCreate, call(callback -> collection.insertMany(documents, new InsertManyOptions().ordered(false), callback))));
+    }
+
+    /**
+     * Reports the items an unordered insert rejected together, like {@link MongoDao#create(Iterable)} does.
+     */
+    private CompletableFuture<Void> translatePartialWrite(List<T> items, CompletableFuture<Void> write) {
+        final CompletableFuture<Void> translated = new CompletableFuture<>();
+
+        write.whenComplete((result, throwable) -> {
+            if (throwable == null) {
+                translated.complete(result);
+            } else if (throwable instanceof MongoBulkWriteException) {
+                final MongoBulkWriteException e = (MongoBulkWriteException) throwable;
+                if (e.getWriteConcernError() != null || e.getWriteErrors().isEmpty()) {
+                    translated.completeExceptionally(new ElepyException(e.getMessage(), 500, e));
+                    return;
+                }
+                final Map<Integer, ElepyException> failures = new HashMap<>();
+                e.getWriteErrors().forEach(error -> failures.put(error.getIndex(), error.getCode() == MongoDao.DUPLICATE_KEY ?
+                        dao.uniquenessViolation(items.get(error.getIndex()), error.getMessage(), e) :
+                        new ElepyException(error.getMessage(), 500, e)));
+
+                translated.completeExceptionally(new ElepyPartialWriteException(failures, items.size(), e));
+            } else {
+                translated.completeExceptionally(throwable);
+            }
+        });
+        return translated;
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAsync(T item) {
+        return translateErrors(List.of(item), MongoAsyncCrud.<Object>call(callback -> collection.updateOne(byId(dao.getId(item)), update(item), callback::onResult))
+                .thenApply(result -> null));
+    }
+
+    @Override
+    public CompletableFuture<Void> updateAsync(Iterable<T> items) {
+        final List<T> toUpdate = Lists.newArrayList(items);
+        if (toUpdate.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        final List<UpdateOneModel<DBObject>> updates = toUpdate.stream()
+                .map(item -> new UpdateOneModel<DBObject>(byId(dao.getId(item)), update(item)))
+                .collect(Collectors.toList());
+
+        return translateErrors(toUpdate, MongoAsyncCrud.<Object>call(callback -> collection.bulkWrite(updates, new BulkWriteOptions().ordered(false), callback::onResult))
+                .thenApply(result -> null));
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteByIdAsync(Serializable id) {
+        return MongoAsyncCrud.<Object>call(callback -> collection.deleteOne(byId(id), callback::onResult)).thenApply(result -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> deleteAsync(Iterable<Serializable> ids) {
+        final List<Serializable> idList = Lists.newArrayList(ids);
+        if (idList.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return MongoAsyncCrud.<Object>call(callback -> collection.deleteMany(new BasicDBObject(dao.getIdKey(), new BasicDBObject("$in", idList)), callback::onResult))
+                .thenApply(result -> null);
+    }
+
+    @Override
+    public Crud<T> blocking() {
+        return dao;
+    }
+}
@@ -0,0 +1,155 @@
+package com.elepy.mongo;
+
+import com.elepy.events.ChangeEvent;
+import com.elepy.events.ChangeEventBus;
+import com.elepy.events.ChangeType;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes the writes to the collections of models from the change stream of their database, so that the writes of
+ * all nodes reach the {@link ChangeEventBus}, not only the writes through this one. Change streams need a replica set
+ * or a sharded cluster.
+ * <p>
+ * The stream is watched on a thread of its own. When it fails, it is resumed after the last published change.
+ *
+ * @see MongoConfiguration#withChangeStream()
+ */
+public class MongoChangeStreamSource implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoChangeStreamSource.class);
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final MongoDatabase database;
+    private final ChangeEventBus changeEvents;
+    private final Map<String, String> slugsByCollection;
+
+    private volatile boolean closed;
+    private volatile MongoCursor<ChangeStreamDocument<Document>> cursor;
+    private Thread thread;
+
+    /**
+     * @param slugsByCollection the slug of the model that is stored in each collection
+     */
+    public MongoChangeStreamSource(MongoDatabase database, ChangeEventBus changeEvents, Map<String, String> slugsByCollection) {
+        this.database = database;
+        this.changeEvents = changeEvents;
+        this.slugsByCollection = Map.copyOf(slugsByCollection);
+    }
+
+    /**
+     * Registers this source for its models and starts watching.
+     */
+    public synchronized void start() {
+        if (thread != null) {
+            return;
+        }
+        slugsByCollection.values().forEach(changeEvents::registerSource);
+
+        thread = new Thread(this::watch, "elepy-mongo-change-stream");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch() {
+        BsonDocument resumeToken = null;
+
+        while (!closed) {
+            try {
+                var stream = database.watch(List.of(Aggregates.match(Filters.in("ns.coll", new ArrayList<>(slugsByCollection.keySet())))));
+                if (resumeToken != null) {
+                    stream = stream.resumeAfter(resumeToken);
+                }
+                try (MongoCursor<ChangeStreamDocument<Document>> changes = stream.iterator()) {
+                    cursor = changes;
+                    while (!closed && changes.hasNext()) {
+                        final ChangeStreamDocument<Document> change = changes.next();
+                        resumeToken = change.getResumeToken();
+                        publish(change);
+                    }
+                }
+            } catch (MongoException | IllegalStateException e) {
+                if (closed) {
+                    return;
+                }
+                logger.warn("The Mongo change stream failed, resuming in {}ms", RETRY_DELAY_MILLIS, e);
+                try {
+                    Thread.sleep(RETRY_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void publish(ChangeStreamDocument<Document> change) {
+        final ChangeType type = changeType(change);
+        if (type == null || change.getNamespace() == null || change.getDocumentKey() == null) {
+            return;
+        }
+        final String slug = slugsByCollection.get(change.getNamespace().getCollectionName());
+        if (slug != null) {
+            changeEvents.publish(new ChangeEvent(slug, id(change.getDocumentKey().get("_id")), type));
+        }
+    }
+
+    private static ChangeType changeType(ChangeStreamDocument<Document> change) {
+        switch (change.getOperationType()) {
+            case INSERT:
+                return ChangeType.CREATED;
+            case UPDATE:
+            case REPLACE:
+                return ChangeType.UPDATED;
+            case DELETE:
+                return ChangeType.DELETED;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Turns an _id into the kind of ID that Elepy uses.
+     */
+    private static Serializable id(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        if (id.isString()) {
+            return id.asString().getValue();
+        }
+        if (id.isNumber()) {
+            return id.asNumber().longValue();
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.toString();
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (cursor != null) {
+            cursor.close();
+        }
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+}
@@ -3,8 +3,15 @@ package com.elepy.mongo;
 import com.elepy.Configuration;
 import com.elepy.ElepyPostConfiguration;
 import com.elepy.ElepyPreConfiguration;
+import com.elepy.annotations.Dao;
+import com.elepy.annotations.DaoFactory;
+import com.elepy.models.Model;
 import com.mongodb.DB;
 import com.mongodb.MongoClient;
+import com.mongodb.client.MongoDatabase;
+
+import java.util.HashMap;
+import java.util.Map;
 
 public class MongoConfiguration implements Configuration {
 
@@ -14,6 +21,12 @@ public class MongoConfiguration implements Configuration {
 
     private final String bucket;
 
+    private com.mongodb.async.client.MongoClient asyncClient;
+
+    private boolean nativeDriver;
+
+    private boolean changeStream;
+
     public MongoConfiguration(MongoClient mongoClient, String databaseName, String bucket) {
         this.mongoClient = mongoClient;
         this.databaseName = databaseName;
@@ -33,10 +46,54 @@ public class MongoConfiguration implements Configuration {
         return of(InMemoryClientFactory.createInMemoryClient(), "in-memory-database", "in-memory-fileservice");
     }
 
+    /**
+     * Lets the Crud's use the asynchronous Mongo driver when they are used asynchronously, instead of running the
+     * blocking driver on a thread pool.
+     *
+     * @param asyncClient a client of the asynchronous driver, connected to the same server
+     * @return this configuration
+     */
+    public MongoConfiguration withAsyncClient(com.mongodb.async.client.MongoClient asyncClient) {
+        this.asyncClient = asyncClient;
+        return this;
+    }
+
+    /**
+     * Uses the {@link NativeMongoDao} instead of the Jongo based {@link MongoDao}. Both store the same documents.
+     *
+     * @return this configuration
+     */
+    public MongoConfiguration withNativeDriver() {
+        this.nativeDriver = true;
+        return this;
+    }
+
+    /**
+     * Publishes the changes of the models from the change stream of the database, so that the writes of other nodes
+     * are published on the change event bus too. Only models that use the default Crud of this configuration are
+     * watched. Needs a replica set or a sharded cluster.
+     *
+     * @return this configuration
+     * @see MongoChangeStreamSource
+     */
+    public MongoConfiguration withChangeStream() {
+        this.changeStream = true;
+        return this;
+    }
+
     @Override
     public void preConfig(ElepyPreConfiguration elepy) {
         elepy.registerDependency(DB.class, mongoClient.getDB(databaseName));
-        elepy.withDefaultCrudFactory(MongoCrudFactory.class);
+
+        if (nativeDriver) {
+            elepy.registerDependency(MongoDatabase.class, mongoClient.getDatabase(databaseName));
+            elepy.withDefaultCrudFactory(NativeMongoCrudFactory.class);
+        } else if (asyncClient == null) {
+            elepy.withDefaultCrudFactory(MongoCrudFactory.class);
+        } else {
+            elepy.registerDependency(com.mongodb.async.client.MongoDatabase.class, asyncClient.getDatabase(databaseName));
+            elepy.withDefaultCrudFactory(AsyncMongoCrudFactory.class);
+        }
 
         if (bucket != null) {
             elepy.withUploads(new MongoFileService(mongoClient.getDatabase(databaseName), null));
@@ -45,6 +102,20 @@ public class MongoConfiguration implements Configuration {
 
     @Override
     public void postConfig(ElepyPostConfiguration elepy) {
+        if (!changeStream) {
+            return;
+        }
+        final Map<String, String> slugsByCollection = new HashMap<>();
+        for (Model<?> model : elepy.models()) {
+            final Class<?> modelType = model.getJavaClass();
+            if (!modelType.isAnnotationPresent(Dao.class) && !modelType.isAnnotationPresent(DaoFactory.class)) {
+                final String[] split = model.getSlug().split("/");
+                slugsByCollection.put(split[split.length - 1], model.getSlug());
+            }
+        }
 
+        final MongoChangeStreamSource source = new MongoChangeStreamSource(mongoClient.getDatabase(databaseName), elepy.getChangeEvents(), slugsByCollection);
+        source.start();
+        elepy.onStop(source::close);
     }
 }
@@ -1,29 +1,61 @@
 package com.elepy.mongo;
 
 import com.elepy.dao.*;
+import com.elepy.evaluators.DefaultIntegrityEvaluator;
+import com.elepy.evaluators.IntegrityMode;
+import com.elepy.exceptions.ElepyConfigException;
 import com.elepy.exceptions.ElepyException;
-import com.elepy.mongo.querybuilding.MongoFilterTemplateFactory;
-import com.elepy.mongo.querybuilding.MongoFilters;
+import com.elepy.exceptions.ElepyPartialWriteException;
+import com.elepy.mongo.querybuilding.MongoKeyset;
 import com.elepy.mongo.querybuilding.MongoQuery;
-import com.elepy.mongo.querybuilding.MongoSearch;
+import com.elepy.mongo.querybuilding.MongoQueryPlanner;
 import com.elepy.utils.ReflectionUtils;
 import com.google.common.collect.Lists;
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteError;
+import com.mongodb.BulkWriteException;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DB;
+import com.mongodb.DBCollection;
+import com.mongodb.DBObject;
+import com.mongodb.MongoException;
+import org.bson.types.ObjectId;
 import org.jongo.Find;
 import org.jongo.Jongo;
 import org.jongo.MongoCollection;
+import org.jongo.MongoCursor;
+import org.jongo.ObjectIdUpdater;
+import org.jongo.marshall.Marshaller;
 import spark.utils.StringUtils;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Field;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public abstract class MongoDao<T> implements Crud<T> {
 
+    static final String TEXT_INDEX_NAME = "elepy_search";
+    static final int DUPLICATE_KEY = 11000;
+    static final Pattern DUPLICATE_KEY_INDEX = Pattern.compile("index: (\\S+) dup key");
+
     private Jongo jongo;
+    private MongoQueryPlanner queryPlanner;
+    private volatile String idKey;
+    private com.mongodb.async.client.MongoDatabase asyncDatabase;
+
+    // The names of the unique indexes and the properties they are on, to translate duplicate key errors
+    private final Map<String, String> uniqueIndexes = new ConcurrentHashMap<>();
+    private volatile boolean enforcesUniqueness;
 
 
     public abstract String mongoCollectionName();
@@ -39,6 +71,190 @@ public abstract class MongoDao<T> implements Crud<T> {
         return jongo;
     }
 
+    MongoQueryPlanner getQueryPlanner() {
+        if (queryPlanner == null) {
+            this.queryPlanner = new MongoQueryPlanner(getType());
+        }
+        return queryPlanner;
+    }
+
+    /**
+     * Creates the indexes that the {@link SearchMode} of the model relies on.
+     *
+     * @see MongoSearchMode
+     */
+    protected void createSearchIndexes() {
+        final MongoQueryPlanner planner = getQueryPlanner();
+        final DBCollection dbCollection = collection().getDBCollection();
+
+        switch (planner.getSearchMode()) {
+            case TEXT:
+                final BasicDBObject textIndex = new BasicDBObject();
+                planner.getSearchableProperties().forEach(property -> textIndex.append(property, "text"));
+
+                if (textIndex.isEmpty()) {
+                    throw new ElepyConfigException(String.format("%s has no searchable String properties to create a text index on", getModel().getName()));
+                }
+                try {
+                    dbCollection.createIndex(textIndex, new BasicDBObject("name", TEXT_INDEX_NAME));
+                } catch (MongoException e) {
+                    throw new ElepyConfigException(String.format("Failed to create the text index of %s, a collection can only have one", getModel().getName()), e);
+                }
+                break;
+            case PREFIX:
+                // Searchable properties are indexed by synchronizeIndexes()
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Creates the missing indexes in the background. An existing index on a property counts, whatever its name.
+     * <p>
+     * With {@link IntegrityMode#DATABASE}, this Crud {@link #enforcesUniqueness() enforces uniqueness} once every
+     * unique property has a unique index. The ID is always unique, because Jongo stores it as _id. Unique indexes only
+     * cover values of the property's type, so that items without a value don't collide, like they don't in the
+     * integrity checks.
+     */
+    @Override
+    public List<String> synchronizeIndexes(List<ModelIndex> modelIndexes) {
+        // Lookups by ID use the _id index when the ID is stored as _id
+        final List<ModelIndex> indexes = modelIndexes.stream()
+                .filter(index -> !(getIdKey().equals("_id") && index.getProperty().equals(getIdFieldProp())))
+                .collect(Collectors.toList());
+        final DBCollection dbCollection = collection().getDBCollection();
+        final List<DBObject> existing = dbCollection.getIndexInfo();
+        final List<String> drift = new ArrayList<>();
+
+        uniqueIndexes.clear();
+        uniqueIndexes.put("_id_", getIdFieldProp());
+
+        boolean allUnique = true;
+        for (ModelIndex index : indexes) {
+            final Optional<DBObject> found = existing.stream().filter(info -> isIndexOn(info, index.getProperty())).findFirst();
+
+            if (found.isEmpty()) {
+                final String name = ModelIndex.NAME_PREFIX + index.getProperty();
+                final BasicDBObject options = new BasicDBObject("name", name)
+                        .append("unique", index.isUnique())
+                        .append("background", true);
+                if (index.isUnique()) {
+                    bsonTypeOf(getType(), index.getProperty()).ifPresent(type -> options.append("partialFilterExpression", new BasicDBObject(index.getProperty(), new BasicDBObject("$type", type))));
+                }
+                try {
+                    dbCollection.createIndex(new BasicDBObject(index.getProperty(), 1), options);
+                    if (index.isUnique()) {
+                        uniqueIndexes.put(name, index.getProperty());
+                    }
+                } catch (MongoException e) {
+                    allUnique &= !index.isUnique();
+                    drift.add(String.format("Failed to create the %s: %s", index, e.getMessage()));
+                }
+            } else if (Boolean.TRUE.equals(found.get().get("unique")) != index.isUnique()) {
+                allUnique &= !index.isUnique();
+                drift.add(String.format("The index '%s' should %sbe unique", found.get().get("name"), index.isUnique() ? "" : "not "));
+            } else if (index.isUnique()) {
+                uniqueIndexes.put(String.valueOf(found.get().get("name")), index.getProperty());
+            }
+        }
+        enforcesUniqueness = allUnique && IntegrityMode.of(getType()).equals(IntegrityMode.DATABASE);
+
+        for (DBObject info : existing) {
+            final String name = String.valueOf(info.get("name"));
+            if (name.startsWith(ModelIndex.NAME_PREFIX) && !name.equals(TEXT_INDEX_NAME)
+                    && indexes.stream().noneMatch(index -> isIndexOn(info, index.getProperty()))) {
+                drift.add(String.format("The index '%s' is no longer needed", name));
+            }
+        }
+        return drift;
+    }
+
+    @Override
+    public boolean enforcesUniqueness() {
+        return enforcesUniqueness;
+    }
+
+    /**
+     * @return the BSON type alias that the values of a property are stored as, if there is a single one
+     */
+    static Optional<String> bsonTypeOf(Class<?> cls, String property) {
+        final Field field = ReflectionUtils.getPropertyField(cls, property);
+        if (field == null) {
+            return Optional.empty();
+        }
+        final Class<?> type = field.getType();
+        if (type.equals(String.class) || type.isEnum()) {
+            return Optional.of("string");
+        } else if (Number.class.isAssignableFrom(type) || (type.isPrimitive() && !type.equals(boolean.class) && !type.equals(char.class))) {
+            return Optional.of("number");
+        } else if (Date.class.isAssignableFrom(type)) {
+            return Optional.of("date");
+        } else if (type.equals(Boolean.class) || type.equals(boolean.class)) {
+            return Optional.of("bool");
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Runs a write, turning a duplicate key error of a unique index into the exception of the integrity checks.
+     *
+     * @param items the items that are written, in the order of the write's operations
+     */
+    private void write(List<T> items, Runnable write) {
+        try {
+            write.run();
+        } catch (BulkWriteException e) {
+            final Optional<BulkWriteError> duplicate = e.getWriteErrors().stream().filter(error -> error.getCode() == DUPLICATE_KEY).findFirst();
+            if (duplicate.isPresent()) {
+                throw uniquenessViolation(items.get(duplicate.get().getIndex()), duplicate.get().getMessage(), e);
+            }
+            throw e;
+        } catch (MongoException e) {
+            if (e.getCode() == DUPLICATE_KEY) {
+                throw uniquenessViolation(items.size() == 1 ? items.get(0) : null, e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Turns a duplicate key error into the exception of the integrity checks.
+     *
+     * @param item the item that was rejected, or null when that is unknown
+     */
+    ElepyException uniquenessViolation(T item, String message, MongoException cause) {
+        final Matcher matcher = DUPLICATE_KEY_INDEX.matcher(String.valueOf(message));
+        final String property = matcher.find() ? uniqueIndexes.get(matcher.group(1)) : null;
+
+        if (property == null) {
+            return new ElepyException(String.format("A %s with the same unique values already exists in the system!", getModel().getName()), 400, cause);
+        }
+        return DefaultIntegrityEvaluator.uniquenessViolation(item, property);
+    }
+
+    private static boolean isIndexOn(DBObject indexInfo, String property) {
+        final DBObject key = (DBObject) indexInfo.get("key");
+        return key.keySet().size() == 1 && key.containsField(property) && !"text".equals(key.get(property));
+    }
+
+    /**
+     * Makes {@link #async(Executor)} use the asynchronous Mongo driver instead of a thread per call.
+     *
+     * @param asyncDatabase the same database, opened with the asynchronous driver
+     */
+    public void setAsyncDatabase(com.mongodb.async.client.MongoDatabase asyncDatabase) {
+        this.asyncDatabase = asyncDatabase;
+    }
+
+    @Override
+    public AsyncCrud<T> async(Executor executor) {
+        if (asyncDatabase == null) {
+            return Crud.super.async(executor);
+        }
+        return new MongoAsyncCrud<>(this, asyncDatabase);
+    }
+
     protected MongoCollection collection() {
         return getJongo().getCollection(mongoCollectionName());
     }
@@ -58,7 +274,28 @@ public abstract class MongoDao<T> implements Crud<T> {
 
     @Override
     public Optional<T> getById(final Serializable id) {
-        return Optional.ofNullable(collection().findOne(String.format("{$or: [{_id: #}, {\"%s\": #}]}", getIdFieldProp()), id, id).as(getType()));
+        return Optional.ofNullable(collection().findOne(idQuery(), id).as(getType()));
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id, List<String> fields) {
+        if (fields.isEmpty()) {
+            return getById(id);
+        }
+        return Optional.ofNullable(collection()
+                .findOne(idQuery(), id)
+                .projection(projection(fields))
+                .as(getType()));
+    }
+
+    @Override
+    public List<T> getByIds(Iterable<Serializable> ids) {
+        final List<Serializable> idList = Lists.newArrayList(ids);
+
+        return Lists.newArrayList(collection()
+                .find(idsQuery(), idList)
+                .as(getType())
+                .iterator());
     }
 
     @Override
@@ -74,22 +311,94 @@ public abstract class MongoDao<T> implements Crud<T> {
         if (query.startsWith("{") && query.endsWith("}")) {
             return collection().count(query);
         } else {
-            String queryCompiled = new MongoSearch(query, getType()).compile();
-
-            return collection().count(queryCompiled);
+            return count(getQueryPlanner().plan(query));
         }
     }
 
     @Override
     public void deleteById(Serializable id) {
-        collection().remove(String.format("{$or: [{_id: #}, {\"%s\": #}]}", getIdFieldProp()), id, id);
+        collection().remove(idQuery(), id);
+    }
+
+    @Override
+    public void delete(Iterable<Serializable> ids) {
+        final List<Serializable> idList = Lists.newArrayList(ids);
+
+        if (!idList.isEmpty()) {
+            collection().remove(idsQuery(), idList);
+        }
+    }
+
+    /**
+     * Sends all the updates to Mongo in a single unordered bulk write.
+     */
+    @Override
+    public void update(Iterable<T> items) {
+        final BulkWriteOperation bulkWrite = collection().getDBCollection().initializeUnorderedBulkOperation();
+        final Marshaller marshaller = getJongo().getMapper().getMarshaller();
+        final String idKey = getIdKey();
+
+        int updates = 0;
+        for (T item : items) {
+            final Object id = getId(item);
+
+            // Like Jongo's update().with(), the immutable _id is left out of the $set
+            final DBObject document = marshaller.marshall(item).toDBObject();
+            document.removeField("_id");
+
+            bulkWrite.find(new BasicDBObject(idKey, id))
+                    .updateOne(new BasicDBObject("$set", document));
+            updates++;
+        }
+
+        if (updates > 0) {
+            write(Lists.newArrayList(items), bulkWrite::execute);
+        }
     }
 
     @Override
     public void update(T item) {
         final Object id = getId(item);
-        collection().update(String.format("{$or: [{_id: #}, {\"%s\": #}]}", getIdFieldProp()), id, id).with(item);
+        write(List.of(item), () -> collection().update(idQuery(), id).with(item));
+
+    }
+
+    /**
+     * Decides which key of the stored documents the ID lookups use. Jongo stores the identifier both as _id and as the
+     * ID property, so _id is used, unless the collection holds documents that weren't written by Jongo, whose _id
+     * differs from their ID property. The decision is made once, on a sample document, so that every lookup is a
+     * single-key equality match instead of an $or over both keys.
+     * <p>
+     * An empty collection can't tell, so the decision waits for the first stored document and lookups use _id until
+     * then.
+     */
+    protected void resolveIdKey() {
+        final String idFieldProp = getIdFieldProp();
+        final DBObject sample = collection().getDBCollection().findOne();
+
+        if (sample == null) {
+            return;
+        }
+        if (sample.get(idFieldProp) == null || Objects.equals(sample.get("_id"), sample.get(idFieldProp))) {
+            this.idKey = "_id";
+        } else {
+            this.idKey = idFieldProp;
+        }
+    }
 
+    String getIdKey() {
+        if (idKey == null) {
+            resolveIdKey();
+        }
+        return idKey == null ? "_id" : idKey;
+    }
+
+    private String idQuery() {
+        return String.format("{'%s': #}", getIdKey());
+    }
+
+    private String idsQuery() {
+        return String.format("{'%s': {$in: #}}", getIdKey());
     }
 
     private String getIdFieldProp() {
@@ -104,13 +413,60 @@ public abstract class MongoDao<T> implements Crud<T> {
     @Override
     public void create(T item) {
         try {
-            collection().save(item);
+            // An insert, unlike a save, doesn't replace an item with the same ID
+            write(List.of(item), () -> collection().insert(item));
+        } catch (ElepyException e) {
+            throw e;
         } catch (Exception e) {
             throw new ElepyException(e.getMessage(), 500, e);
         }
     }
 
 
+    /**
+     * Inserts all the items in a single unordered bulk write, so that a rejected item doesn't stop the others.
+     *
+     * @throws ElepyPartialWriteException with the items that were rejected, when the others were created
+     */
+    @Override
+    public void create(Iterable<T> items) {
+        final List<T> toCreate = Lists.newArrayList(items);
+        if (toCreate.isEmpty()) {
+            return;
+        }
+        final BulkWriteOperation bulkWrite = collection().getDBCollection().initializeUnorderedBulkOperation();
+        toCreate.forEach(item -> bulkWrite.insert(insertable(item)));
+
+        try {
+            bulkWrite.execute();
+        } catch (BulkWriteException e) {
+            if (e.getWriteConcernError() != null || e.getWriteErrors().isEmpty()) {
+                throw new ElepyException(e.getMessage(), 500, e);
+            }
+            final Map<Integer, ElepyException> failures = new HashMap<>();
+            e.getWriteErrors().forEach(error -> failures.put(error.getIndex(), error.getCode() == DUPLICATE_KEY ?
+                    uniquenessViolation(toCreate.get(error.getIndex()), error.getMessage(), e) :
+                    new ElepyException(error.getMessage(), 500, e)));
+
+            throw new ElepyPartialWriteException(failures, toCreate.size(), e);
+        } catch (MongoException e) {
+            throw new ElepyException(e.getMessage(), 500, e);
+        }
+    }
+
+    /**
+     * Like a Jongo insert, the ID is generated if needed and stored as _id.
+     */
+    DBObject insertable(T item) {
+        final ObjectIdUpdater objectIdUpdater = getJongo().getMapper().getObjectIdUpdater();
+        if (objectIdUpdater.mustGenerateObjectId(item)) {
+            objectIdUpdater.setObjectId(item, ObjectId.get());
+        }
+        final DBObject document = getJongo().getMapper().getMarshaller().marshall(item).toDBObject();
+        document.put("_id", objectIdUpdater.getId(item));
+        return document;
+    }
+
     @Override
     public Serializable getId(T item) {
         Optional<Serializable> id = ReflectionUtils.getId(item);
@@ -120,16 +476,6 @@ public abstract class MongoDao<T> implements Crud<T> {
         return id.get();
     }
 
-    private MongoFilters fromQueryFilters(List<Filter> filterQueries) {
-        return new MongoFilters(
-                filterQueries
-                        .stream()
-                        .map(MongoFilterTemplateFactory::fromFilter)
-                        .collect(Collectors.toList()
-                        )
-        );
-    }
-
     private Page<T> toPage(Find find, PageSettings pageSearch, int amountOfResultsWithThatQuery) {
 
 
@@ -145,32 +491,146 @@ public abstract class MongoDao<T> implements Crud<T> {
 
     @Override
     public Page<T> search(Query query, PageSettings settings) {
-        MongoFilters mongoFilters = fromQueryFilters(query.getFilters());
+        final MongoQuery mongoQuery = mongoQuery(query);
+
+        final ArrayList<T> values = Lists.newArrayList(find(mongoQuery, settings.lookAhead(), query.getFields())
+                .as(getType())
+                .iterator());
+
+        return Page.fromLookAhead(this, values, settings, count(query, settings.getCountMode()));
+    }
+
+    @Override
+    public Stream<T> stream(Query query, PageSettings settings) {
+        final MongoCursor<T> cursor = find(mongoQuery(query), settings, query.getFields()).as(getType());
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                .onClose(() -> closeCursor(cursor));
+    }
+
+    @Override
+    public long count(Query query) {
+        return count(mongoQuery(query));
+    }
+
+    /**
+     * Runs the aggregation as an aggregation pipeline, so that only the buckets leave the database.
+     */
+    @Override
+    public List<AggregationBucket> aggregate(Aggregation aggregation) {
+        return MongoAggregation.buckets(aggregation, aggregate(List.of(
+                matchStage(aggregation.getQuery()),
+                MongoAggregation.groupStage(aggregation),
+                MongoAggregation.sortStage())));
+    }
+
+    /**
+     * Counts all facets in a single $facet stage.
+     */
+    @Override
+    public Map<String, Map<String, Long>> facetCounts(Query query, List<Facet> facets) {
+        if (facets.isEmpty()) {
+            return Map.of();
+        }
+        final List<Map<String, Object>> results = aggregate(List.of(matchStage(query), MongoAggregation.facetStage(facets)));
+
+        return MongoAggregation.facetCounts(facets, results.isEmpty() ? Map.of() : results.get(0));
+    }
+
+    private DBObject matchStage(Query query) {
+        final MongoQuery mongoQuery = mongoQuery(query);
+        return new BasicDBObject("$match", getJongo().createQuery(mongoQuery.compile(), mongoQuery.getParameters()).toDBObject());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> aggregate(List<DBObject> pipeline) {
+        final List<Map<String, Object>> results = new ArrayList<>();
+        try (com.mongodb.Cursor cursor = collection().getDBCollection().aggregate(pipeline, AggregationOptions.builder().allowDiskUse(true).build())) {
+            cursor.forEachRemaining(result -> results.add(result.toMap()));
+        }
+        return results;
+    }
+
+    /**
+     * Counts without a query, which Mongo answers from the collection's metadata instead of scanning it.
+     */
+    @Override
+    public long estimatedCount() {
+        return collection().getDBCollection().getCount();
+    }
+
+    private void closeCursor(Closeable cursor) {
+        try {
+            cursor.close();
+        } catch (IOException e) {
+            throw new ElepyException("Failed to close the Mongo cursor", 500, e);
+        }
+    }
+
+    MongoQuery mongoQuery(Query query) {
+        return getQueryPlanner().plan(query);
+    }
 
-        MongoSearch mongoSearch = new MongoSearch(query.getSearchQuery(), getType());
+    private Find find(MongoQuery mongoQuery, PageSettings settings, List<String> fields) {
+        final MongoFind mongoFind = mongoFind(mongoQuery, settings, fields);
 
-        MongoQuery mongoQuery = new MongoQuery(mongoSearch, mongoFilters);
+        final Find find = collection()
+                .find(mongoFind.getQuery(), mongoFind.getParameters())
+                .limit(mongoFind.getLimit())
+                .skip(mongoFind.getSkip());
+        if (mongoFind.getProjection() != null) {
+            find.projection(mongoFind.getProjection());
+        }
+        return find.sort(mongoFind.getSort());
+    }
 
-        String sort = settings.getPropertySortList()
+    MongoFind mongoFind(MongoQuery mongoQuery, PageSettings settings, List<String> fields) {
+        // Sorting on the ID last gives every item a unique position, which cursors rely on. The cursor holds the
+        // ID property, so the sort must be on the key that stores it.
+        final List<PropertySort> propertySorts = new ArrayList<>(settings.getPropertySortList());
+        propertySorts.add(new PropertySort(getIdKey(), SortOption.ASCENDING));
+
+        String sort = propertySorts
                 .stream()
                 .map(propertySort -> String.format("'%s': %d", propertySort.getProperty(), propertySort.getSortOption().getVal()))
                 .collect(Collectors.joining(","));
 
-        final ArrayList<T> values = Lists.newArrayList(collection()
-                .find(mongoQuery.compile(), (Object[]) mongoQuery.getParameters())
-                .limit(settings.getPageSize())
-                .skip((int) ((settings.getPageNumber() - 1) * settings.getPageSize()))
-                .sort(String.format("{%s}", sort))
-                .as(getType())
-                .iterator());
+        String projection = null;
+        if (!fields.isEmpty()) {
+            // The sorted properties are needed to make a cursor from the last item
+            final List<String> projected = new ArrayList<>(fields);
+            settings.getPropertySortList().forEach(propertySort -> projected.add(propertySort.getProperty()));
+            projection = projection(projected);
+        }
 
+        if (settings.hasCursor()) {
+            final List<Object> cursorValues = Cursor.decode(settings.getAfter())
+                    .values(getType(), settings.getPropertySortList(), getIdType(), getObjectMapper());
+            final MongoKeyset keyset = new MongoKeyset(propertySorts, cursorValues);
 
-        long amountOfResultsWithThatQuery = count(mongoQuery);
-        final long remainder = amountOfResultsWithThatQuery % settings.getPageSize();
-        long amountOfPages = amountOfResultsWithThatQuery / settings.getPageSize();
-        if (remainder > 0) amountOfPages++;
+            final String keysetQuery = keyset.compile();
+            final List<Object> parameters = new ArrayList<>(Arrays.asList(mongoQuery.getParameters()));
+            parameters.addAll(Arrays.asList(keyset.getParameters()));
+
+            return new MongoFind(String.format("{$and: [%s, %s]}", mongoQuery.compile(), keysetQuery), parameters.toArray(),
+                    String.format("{%s}", sort), projection, settings.getLimit(), 0);
+        }
+        return new MongoFind(mongoQuery.compile(), mongoQuery.getParameters(), String.format("{%s}", sort), projection,
+                settings.getLimit(), (int) ((settings.getPageNumber() - 1) * settings.getPageSize()));
+    }
+
+    /**
+     * Only the projected properties are sent over the wire and deserialized, the _id is always included.
+     */
+    String projection(List<String> fields) {
+        return fields.stream()
+                .distinct()
+                .map(field -> String.format("'%s': 1", field))
+                .collect(Collectors.joining(", ", "{", "}"));
+    }
 
-        return new Page<>(settings.getPageNumber(), amountOfPages, values);
+    private Class<?> getIdType() {
+        return ReflectionUtils.getIdField(getType()).map(Field::getType).orElse(String.class);
     }
 
     private long count(MongoQuery query) {
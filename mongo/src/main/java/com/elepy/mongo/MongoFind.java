@@ -0,0 +1,51 @@
+package com.elepy.mongo;
+
+/**
+ * Everything that a find needs, as Jongo query templates, so that the blocking and the asynchronous driver can run
+ * the same find.
+ */
+class MongoFind {
+
+    private final String query;
+    private final Object[] parameters;
+    private final String sort;
+    private final String projection;
+    private final int limit;
+    private final int skip;
+
+    MongoFind(String query, Object[] parameters, String sort, String projection, int limit, int skip) {
+        this.query = query;
+        this.parameters = parameters;
+        this.sort = sort;
+        this.projection = projection;
+        this.limit = limit;
+        this.skip = skip;
+    }
+
+    String getQuery() {
+        return query;
+    }
+
+    Object[] getParameters() {
+        return parameters;
+    }
+
+    String getSort() {
+        return sort;
+    }
+
+    /**
+     * @return the projection or null to load whole items
+     */
+    String getProjection() {
+        return projection;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getSkip() {
+        return skip;
+    }
+}
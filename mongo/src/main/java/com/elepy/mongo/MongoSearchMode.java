@@ -0,0 +1,18 @@
+package com.elepy.mongo;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Selects how a {@link com.elepy.annotations.RestModel} stored in Mongo is searched. The default is
+ * {@link SearchMode#CONTAINS}.
+ *
+ * @see SearchMode
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.TYPE})
+public @interface MongoSearchMode {
+    SearchMode value();
+}
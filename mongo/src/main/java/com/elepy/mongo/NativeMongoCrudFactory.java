@@ -0,0 +1,32 @@
+package com.elepy.mongo;
+
+import com.elepy.annotations.Inject;
+import com.elepy.dao.Crud;
+import com.elepy.dao.CrudFactory;
+import com.elepy.models.Model;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoDatabase;
+
+/**
+ * Creates {@link NativeMongoDao}'s.
+ *
+ * @see MongoConfiguration#withNativeDriver()
+ */
+public class NativeMongoCrudFactory implements CrudFactory {
+
+    @Inject
+    private MongoDatabase database;
+
+    @Inject
+    private ObjectMapper objectMapper;
+
+    @Override
+    public <T> Crud<T> crudFor(Model<T> model) {
+
+        final String slug = model.getSlug();
+
+        final String[] split = slug.split("/");
+
+        return new NativeMongoDao<>(database, split[split.length - 1], model, objectMapper);
+    }
+}
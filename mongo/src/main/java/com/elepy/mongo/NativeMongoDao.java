@@ -0,0 +1,472 @@
+package com.elepy.mongo;
+
+import com.elepy.dao.*;
+import com.elepy.evaluators.DefaultIntegrityEvaluator;
+import com.elepy.evaluators.IntegrityMode;
+import com.elepy.exceptions.ElepyConfigException;
+import com.elepy.exceptions.ElepyException;
+import com.elepy.exceptions.ElepyPartialWriteException;
+import com.elepy.models.Model;
+import com.elepy.mongo.querybuilding.MongoKeyset;
+import com.elepy.mongo.querybuilding.MongoQuery;
+import com.elepy.mongo.querybuilding.MongoQueryPlanner;
+import com.elepy.utils.ReflectionUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.MongoWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.*;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.conversions.Bson;
+import spark.utils.StringUtils;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A Crud on the native Mongo driver. Items are (de)serialized straight from and to BSON by a {@link JacksonBsonCodec},
+ * and queries are built with the driver's builders, so nothing is formatted as JSON and parsed again.
+ * <p>
+ * The documents are the same as the ones {@link MongoDao} stores, so a collection can be used by both.
+ *
+ * @param <T> The type of the Model
+ * @see MongoConfiguration#withNativeDriver()
+ */
+public class NativeMongoDao<T> implements Crud<T> {
+
+    private final Model<T> model;
+    private final ObjectMapper objectMapper;
+    private final JacksonBsonCodec<T> codec;
+    private final MongoCollection<T> collection;
+    private final MongoQueryPlanner queryPlanner;
+    private final String idFieldProp;
+    private volatile String idKey;
+
+    // The names of the unique indexes and the properties they are on, to translate duplicate key errors
+    private final Map<String, String> uniqueIndexes = new ConcurrentHashMap<>();
+    private volatile boolean enforcesUniqueness;
+
+    public NativeMongoDao(MongoDatabase database, String collectionName, Model<T> model, ObjectMapper objectMapper) {
+        this.model = model;
+        this.objectMapper = objectMapper;
+        this.queryPlanner = new MongoQueryPlanner(getType());
+        this.idFieldProp = ReflectionUtils.getIdField(getType()).map(ReflectionUtils::getPropertyName).orElse("id");
+        this.codec = new JacksonBsonCodec<>(getType(), idFieldProp, JongoMapperFactory.createBsonObjectMapper());
+        this.collection = database.getCollection(collectionName.replaceAll("/", ""), getType())
+                .withCodecRegistry(CodecRegistries.fromRegistries(
+                        CodecRegistries.fromCodecs(codec),
+                        MongoClientSettings.getDefaultCodecRegistry()));
+
+        resolveIdKey();
+        createSearchIndexes();
+    }
+
+    /**
+     * @see MongoDao#createSearchIndexes()
+     */
+    private void createSearchIndexes() {
+        if (queryPlanner.getSearchMode() != SearchMode.TEXT) {
+            return;
+        }
+        if (queryPlanner.getSearchableProperties().isEmpty()) {
+            throw new ElepyConfigException(String.format("%s has no searchable String properties to create a text index on", model.getName()));
+        }
+        try {
+            collection.createIndex(
+                    Indexes.compoundIndex(queryPlanner.getSearchableProperties().stream().map(Indexes::text).collect(Collectors.toList())),
+                    new IndexOptions().name(MongoDao.TEXT_INDEX_NAME));
+        } catch (MongoException e) {
+            throw new ElepyConfigException(String.format("Failed to create the text index of %s, a collection can only have one", model.getName()), e);
+        }
+    }
+
+    /**
+     * @see MongoDao#resolveIdKey()
+     */
+    private void resolveIdKey() {
+        final BsonDocument sample = collection.withDocumentClass(BsonDocument.class).find().first();
+
+        if (sample == null) {
+            return;
+        }
+        if (sample.get(idFieldProp) == null || Objects.equals(sample.get("_id"), sample.get(idFieldProp))) {
+            this.idKey = "_id";
+        } else {
+            this.idKey = idFieldProp;
+        }
+    }
+
+    private String getIdKey() {
+        if (idKey == null) {
+            resolveIdKey();
+        }
+        return idKey == null ? "_id" : idKey;
+    }
+
+    /**
+     * @see MongoDao#synchronizeIndexes(List)
+     */
+    @Override
+    public List<String> synchronizeIndexes(List<ModelIndex> modelIndexes) {
+        final List<ModelIndex> indexes = modelIndexes.stream()
+                .filter(index -> !(getIdKey().equals("_id") && index.getProperty().equals(idFieldProp)))
+                .collect(Collectors.toList());
+        final List<Document> existing = collection.listIndexes().into(new ArrayList<>());
+        final List<String> drift = new ArrayList<>();
+
+        uniqueIndexes.clear();
+        uniqueIndexes.put("_id_", idFieldProp);
+
+        boolean allUnique = true;
+        for (ModelIndex index : indexes) {
+            final Optional<Document> found = existing.stream().filter(info -> isIndexOn(info, index.getProperty())).findFirst();
+
+            if (found.isEmpty()) {
+                final String name = ModelIndex.NAME_PREFIX + index.getProperty();
+                final IndexOptions options = new IndexOptions()
+                        .name(name)
+                        .unique(index.isUnique())
+                        .background(true);
+                if (index.isUnique()) {
+                    MongoDao.bsonTypeOf(getType(), index.getProperty()).ifPresent(type -> options.partialFilterExpression(Filters.type(index.getProperty(), type)));
+                }
+                try {
+                    collection.createIndex(Indexes.ascending(index.getProperty()), options);
+                    if (index.isUnique()) {
+                        uniqueIndexes.put(name, index.getProperty());
+                    }
+                } catch (MongoException e) {
+                    allUnique &= !index.isUnique();
+                    drift.add(String.format("Failed to create the %s: %s", index, e.getMessage()));
+                }
+            } else if (Boolean.TRUE.equals(found.get().get("unique")) != index.isUnique()) {
+                allUnique &= !index.isUnique();
+                drift.add(String.format("The index '%s' should %sbe unique", found.get().getString("name"), index.isUnique() ? "" : "not "));
+            } else if (index.isUnique()) {
+                uniqueIndexes.put(found.get().getString("name"), index.getProperty());
+            }
+        }
+        enforcesUniqueness = allUnique && IntegrityMode.of(getType()).equals(IntegrityMode.DATABASE);
+
+        for (Document info : existing) {
+            final String name = info.getString("name");
+            if (name.startsWith(ModelIndex.NAME_PREFIX) && !name.equals(MongoDao.TEXT_INDEX_NAME)
+                    && indexes.stream().noneMatch(index -> isIndexOn(info, index.getProperty()))) {
+                drift.add(String.format("The index '%s' is no longer needed", name));
+            }
+        }
+        return drift;
+    }
+
+    @Override
+    public boolean enforcesUniqueness() {
+        return enforcesUniqueness;
+    }
+
+    private static boolean isIndexOn(Document indexInfo, String property) {
+        final Document key = (Document) indexInfo.get("key");
+        return key.size() == 1 && key.containsKey(property) && !"text".equals(key.get(property));
+    }
+
+    /**
+     * Runs a write, turning a duplicate key error of a unique index into the exception of the integrity checks.
+     *
+     * @param items the items that are written, in the order of the write's operations
+     */
+    private void write(List<T> items, Runnable write) {
+        try {
+            write.run();
+        } catch (MongoBulkWriteException e) {
+            final Optional<BulkWriteError> duplicate = e.getWriteErrors().stream().filter(error -> error.getCode() == MongoDao.DUPLICATE_KEY).findFirst();
+            if (duplicate.isPresent()) {
+                throw uniquenessViolation(items.get(duplicate.get().getIndex()), duplicate.get().getMessage(), e);
+            }
+            throw e;
+        } catch (MongoWriteException e) {
+            if (e.getError().getCode() == MongoDao.DUPLICATE_KEY) {
+                throw uniquenessViolation(items.size() == 1 ? items.get(0) : null, e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+
+    private ElepyException uniquenessViolation(T item, String message, MongoException cause) {
+        final Matcher matcher = MongoDao.DUPLICATE_KEY_INDEX.matcher(String.valueOf(message));
+        final String property = matcher.find() ? uniqueIndexes.get(matcher.group(1)) : null;
+
+        if (property == null) {
+            return new ElepyException(String.format("A %s with the same unique values already exists in the system!", model.getName()), 400, cause);
+        }
+        return DefaultIntegrityEvaluator.uniquenessViolation(item, property);
+    }
+
+    private Bson idFilter(Serializable id) {
+        return Filters.eq(getIdKey(), codec.encodeValue(id));
+    }
+
+    private Bson idsFilter(Iterable<Serializable> ids) {
+        final List<BsonValue> values = new ArrayList<>();
+        ids.forEach(id -> values.add(codec.encodeValue(id)));
+        return Filters.in(getIdKey(), values);
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id) {
+        return Optional.ofNullable(collection.find(idFilter(id)).first());
+    }
+
+    @Override
+    public Optional<T> getById(Serializable id, List<String> fields) {
+        if (fields.isEmpty()) {
+            return getById(id);
+        }
+        return Optional.ofNullable(collection.find(idFilter(id)).projection(Projections.include(distinct(fields))).first());
+    }
+
+    @Override
+    public List<T> getByIds(Iterable<Serializable> ids) {
+        return collection.find(idsFilter(ids)).into(new ArrayList<>());
+    }
+
+    @Override
+    public List<T> getAll() {
+        return collection.find().into(new ArrayList<>());
+    }
+
+    @Override
+    public List<T> searchInField(Field field, String qry) {
+        final String propertyName = ReflectionUtils.getPropertyName(field);
+        final Bson defaultSort = model.getDefaultSortDirection().equals(SortOption.ASCENDING) ?
+                Sorts.ascending(model.getDefaultSortField()) :
+                Sorts.descending(model.getDefaultSortField());
+
+        return collection.find(Filters.eq(propertyName, qry)).sort(defaultSort).into(new ArrayList<>());
+    }
+
+    @Override
+    public Page<T> search(Query query, PageSettings settings) {
+        final MongoQuery mongoQuery = queryPlanner.plan(query);
+
+        final List<T> values = find(mongoQuery, settings.lookAhead(), query.getFields()).into(new ArrayList<>());
+
+        return Page.fromLookAhead(this, values, settings, count(query, settings.getCountMode()));
+    }
+
+    @Override
+    public Stream<T> stream(Query query, PageSettings settings) {
+        final MongoCursor<T> cursor = find(queryPlanner.plan(query), settings, query.getFields()).iterator();
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED), false)
+                .onClose(cursor::close);
+    }
+
+    private FindIterable<T> find(MongoQuery mongoQuery, PageSettings settings, List<String> fields) {
+        // Sorting on the ID last gives every item a unique position, which cursors rely on. The cursor holds the
+        // ID property, so the sort must be on the key that stores it.
+        final List<PropertySort> propertySorts = new ArrayList<>(settings.getPropertySortList());
+        propertySorts.add(new PropertySort(getIdKey(), SortOption.ASCENDING));
+
+        final Bson sort = Sorts.orderBy(propertySorts.stream()
+                .map(propertySort -> propertySort.getSortOption().equals(SortOption.ASCENDING) ?
+                        Sorts.ascending(propertySort.getProperty()) :
+                        Sorts.descending(propertySort.getProperty()))
+                .collect(Collectors.toList()));
+
+        final FindIterable<T> find;
+        if (settings.hasCursor()) {
+            final List<Object> cursorValues = Cursor.decode(settings.getAfter())
+                    .values(getType(), settings.getPropertySortList(), getIdType(), getObjectMapper());
+            final MongoKeyset keyset = new MongoKeyset(propertySorts, cursorValues);
+
+            find = collection.find(Filters.and(mongoQuery.toBson(codec::encodeValue), keyset.toBson(codec::encodeValue)));
+        } else {
+            find = collection.find(mongoQuery.toBson(codec::encodeValue))
+                    .skip((int) ((settings.getPageNumber() - 1) * settings.getPageSize()));
+        }
+
+        if (!fields.isEmpty()) {
+            // The sorted properties are needed to make a cursor from the last item
+            final List<String> projected = new ArrayList<>(fields);
+            settings.getPropertySortList().forEach(propertySort -> projected.add(propertySort.getProperty()));
+            find.projection(Projections.include(distinct(projected)));
+        }
+        return find.sort(sort).limit(settings.getLimit());
+    }
+
+    private static List<String> distinct(List<String> fields) {
+        return fields.stream().distinct().collect(Collectors.toList());
+    }
+
+    private Class<?> getIdType() {
+        return ReflectionUtils.getIdField(getType()).map(Field::getType).orElse(String.class);
+    }
+
+    @Override
+    public long count(String query) {
+        if (StringUtils.isEmpty(query)) {
+            return collection.countDocuments();
+        }
+        if (query.startsWith("{") && query.endsWith("}")) {
+            return collection.countDocuments(BsonDocument.parse(query));
+        } else {
+            return count(queryPlanner.plan(query));
+        }
+    }
+
+    @Override
+    public long count(Query query) {
+        return count(queryPlanner.plan(query));
+    }
+
+    /**
+     * @see MongoDao#aggregate(Aggregation)
+     */
+    @Override
+    public List<AggregationBucket> aggregate(Aggregation aggregation) {
+        final List<Bson> pipeline = List.of(
+                Aggregates.match(queryPlanner.plan(aggregation.getQuery()).toBson(codec::encodeValue)),
+                MongoAggregation.groupStage(aggregation),
+                MongoAggregation.sortStage());
+
+        return MongoAggregation.buckets(aggregation, collection.aggregate(pipeline, Document.class)
+                .allowDiskUse(true)
+                .into(new ArrayList<>()));
+    }
+
+    /**
+     * @see MongoDao#facetCounts(Query, List)
+     */
+    @Override
+    public Map<String, Map<String, Long>> facetCounts(Query query, List<Facet> facets) {
+        if (facets.isEmpty()) {
+            return Map.of();
+        }
+        final Document result = collection.aggregate(List.of(
+                Aggregates.match(queryPlanner.plan(query).toBson(codec::encodeValue)),
+                MongoAggregation.facetStage(facets)), Document.class)
+                .allowDiskUse(true)
+                .first();
+
+        return MongoAggregation.facetCounts(facets, result == null ? Map.of() : result);
+    }
+
+    private long count(MongoQuery mongoQuery) {
+        return collection.countDocuments(mongoQuery.toBson(codec::encodeValue));
+    }
+
+    /**
+     * Counts without a query, which Mongo answers from the collection's metadata instead of scanning it.
+     */
+    @Override
+    public long estimatedCount() {
+        return collection.estimatedDocumentCount();
+    }
+
+    @Override
+    public void create(T item) {
+        write(List.of(item), () -> collection.insertOne(item));
+    }
+
+    /**
+     * @throws ElepyPartialWriteException with the items that were rejected, when the others were created
+     * @see MongoDao#create(Iterable)
+     */
+    @Override
+    public void create(Iterable<T> items) {
+        final List<T> toCreate = Lists.newArrayList(items);
+        if (toCreate.isEmpty()) {
+            return;
+        }
+        try {
+            collection.insertMany(toCreate, new InsertManyOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            if (e.getWriteConcernError() != null || e.getWriteErrors().isEmpty()) {
+                throw new ElepyException(e.getMessage(), 500, e);
+            }
+            final Map<Integer, ElepyException> failures = new HashMap<>();
+            e.getWriteErrors().forEach(error -> failures.put(error.getIndex(), error.getCode() == MongoDao.DUPLICATE_KEY ?
+                    uniquenessViolation(toCreate.get(error.getIndex()), error.getMessage(), e) :
+                    new ElepyException(error.getMessage(), 500, e)));
+
+            throw new ElepyPartialWriteException(failures, toCreate.size(), e);
+        }
+    }
+
+    @Override
+    public void update(T item) {
+        write(List.of(item), () -> replacements().replaceOne(idFilter(getId(item)), codec.replacement(item)));
+    }
+
+    /**
+     * Sends all the updates to Mongo in a single unordered bulk write.
+     */
+    @Override
+    public void update(Iterable<T> items) {
+        final List<T> toUpdate = Lists.newArrayList(items);
+        if (toUpdate.isEmpty()) {
+            return;
+        }
+        final List<ReplaceOneModel<RawBsonDocument>> replacements = toUpdate.stream()
+                .map(item -> new ReplaceOneModel<>(idFilter(getId(item)), codec.replacement(item)))
+                .collect(Collectors.toList());
+
+        write(toUpdate, () -> replacements().bulkWrite(replacements, new BulkWriteOptions().ordered(false)));
+    }
+
+    /**
+     * Replaces items with their documents, which keep the _id they were stored with.
+     */
+    private MongoCollection<RawBsonDocument> replacements() {
+        return collection.withDocumentClass(RawBsonDocument.class);
+    }
+
+    @Override
+    public void deleteById(Serializable id) {
+        collection.deleteOne(idFilter(id));
+    }
+
+    @Override
+    public void delete(Iterable<Serializable> ids) {
+        final List<Serializable> idList = Lists.newArrayList(ids);
+
+        if (!idList.isEmpty()) {
+            collection.deleteMany(idsFilter(idList));
+        }
+    }
+
+    @Override
+    public Serializable getId(T item) {
+        Optional<Serializable> id = ReflectionUtils.getId(item);
+        if (!id.isPresent()) {
+            throw new ElepyException("No Identifier provided to the object.");
+        }
+        return id.get();
+    }
+
+    @Override
+    public Model<T> getModel() {
+        return model;
+    }
+
+    @Override
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
@@ -0,0 +1,26 @@
+package com.elepy.mongo;
+
+/**
+ * How the search term of a query is matched against the searchable properties of a model.
+ *
+ * @see MongoSearchMode
+ */
+public enum SearchMode {
+    /**
+     * A case-insensitive regex that matches anywhere in a property. No index can serve it, so every search scans the
+     * whole collection.
+     */
+    CONTAINS,
+
+    /**
+     * A case-sensitive regex anchored to the start of a property, which Mongo serves from an index on the property.
+     * Elepy creates an ascending index on every searchable property.
+     */
+    PREFIX,
+
+    /**
+     * A $text search on the words of the searchable String properties. Elepy creates the text index, a collection can
+     * have only one.
+     */
+    TEXT
+}
@@ -1,9 +1,14 @@
 package com.elepy.mongo.querybuilding;
 
 import com.elepy.dao.FilterableField;
+import com.elepy.exceptions.ElepyException;
 import com.elepy.utils.MapperUtils;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
 
 import java.io.Serializable;
+import java.util.function.Function;
 
 public class MongoFilterTemplate {
     private final String operator;
@@ -22,6 +27,39 @@ public class MongoFilterTemplate {
         return String.format("{%s: {%s: #}}", field.getName(), operator);
     }
 
+    /**
+     * @param values encodes a value the way the property is stored
+     * @return the filter as a Bson for the native driver
+     */
+    public Bson toBson(Function<Object, BsonValue> values) {
+        final String name = field.getName();
+        switch (operator) {
+            case "$eq":
+                return Filters.eq(name, values.apply(value));
+            case "$ne":
+                return Filters.ne(name, values.apply(value));
+            case "$gt":
+                return Filters.gt(name, values.apply(value));
+            case "$gte":
+                return Filters.gte(name, values.apply(value));
+            case "$lt":
+                return Filters.lt(name, values.apply(value));
+            case "$lte":
+                return Filters.lte(name, values.apply(value));
+            case "$regex":
+                return Filters.regex(name, String.valueOf(value));
+            default:
+                throw new ElepyException("Mongo does not support: " + operator);
+        }
+    }
+
+    /**
+     * Filters with the same shape compile to the same query, only their values differ.
+     */
+    public String getShape() {
+        return field.getName() + ":" + operator;
+    }
+
     public Serializable getValue() {
         return value;
     }
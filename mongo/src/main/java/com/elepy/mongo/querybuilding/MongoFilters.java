@@ -1,7 +1,12 @@
 package com.elepy.mongo.querybuilding;
 
+import com.mongodb.client.model.Filters;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+
 import java.io.Serializable;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class MongoFilters {
@@ -24,6 +29,20 @@ public class MongoFilters {
                 "]}";
     }
 
+    public Bson toBson(Function<Object, BsonValue> values) {
+        return Filters.and(mongoFilterTemplates
+                .stream()
+                .map(mongoFilterTemplate -> mongoFilterTemplate.toBson(values))
+                .collect(Collectors.toList()));
+    }
+
+    public String getShape() {
+        return mongoFilterTemplates
+                .stream()
+                .map(MongoFilterTemplate::getShape)
+                .collect(Collectors.joining(","));
+    }
+
     public Serializable[] getParameters() {
         Serializable[] toReturn = new Serializable[mongoFilterTemplates.size()];
 
@@ -0,0 +1,124 @@
+package com.elepy.mongo.querybuilding;
+
+import com.elepy.dao.PropertySort;
+import com.elepy.dao.SortOption;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles a {@link com.elepy.dao.Cursor} into a range query that selects everything after it. Sorting on
+ * (a, b, id) after the values (x, y, z) compiles to:
+ * <p>
+ * {$or: [{a: {$gt: x}}, {a: x, b: {$gt: y}}, {a: x, b: y, id: {$gt: z}}]}
+ * <p>
+ * With an index on the sorted properties every branch is a range scan, unlike skip() that walks all previous pages.
+ * Null sort values are treated as lower than everything, like Mongo sorts them: a descending branch also selects the
+ * nulls, which $lt never matches.
+ */
+public class MongoKeyset {
+
+    private final List<PropertySort> propertySorts;
+    private final List<Object> values;
+
+    private final List<Object> parameters;
+
+    /**
+     * @param propertySorts the sorts, including the sort on the key that stores the ID
+     * @param values        the values of the cursor, one for every sort
+     */
+    public MongoKeyset(List<PropertySort> propertySorts, List<Object> values) {
+        this.propertySorts = propertySorts;
+        this.values = values;
+        this.parameters = new ArrayList<>();
+    }
+
+    public String compile() {
+        parameters.clear();
+
+        final List<String> branches = new ArrayList<>();
+        for (int i = 0; i < propertySorts.size(); i++) {
+            final List<String> conditions = new ArrayList<>();
+            final List<Object> branchParameters = new ArrayList<>();
+
+            for (int j = 0; j < i; j++) {
+                conditions.add(String.format("'%s': #", propertySorts.get(j).getProperty()));
+                branchParameters.add(values.get(j));
+            }
+
+            final PropertySort propertySort = propertySorts.get(i);
+            final Object value = values.get(i);
+            final boolean ascending = propertySort.getSortOption().equals(SortOption.ASCENDING);
+
+            if (value == null) {
+                // Nothing comes before null when descending
+                if (!ascending) {
+                    continue;
+                }
+                conditions.add(String.format("'%s': {$ne: null}", propertySort.getProperty()));
+            } else if (ascending) {
+                conditions.add(String.format("'%s': {$gt: #}", propertySort.getProperty()));
+                branchParameters.add(value);
+            } else {
+                // Nulls are sorted last when descending, so they come after every value
+                conditions.add(String.format("$or: [{'%1$s': {$lt: #}}, {'%1$s': null}]", propertySort.getProperty()));
+                branchParameters.add(value);
+            }
+
+            branches.add(conditions.stream().collect(Collectors.joining(", ", "{", "}")));
+            parameters.addAll(branchParameters);
+        }
+
+        if (branches.isEmpty()) {
+            // Nothing comes after the cursor
+            return "{_id: {$exists: false}}";
+        }
+        return String.format("{$or: [%s]}", String.join(", ", branches));
+    }
+
+    /**
+     * The same range query as {@link #compile()}, for the native driver.
+     *
+     * @param values encodes a cursor value the way the property is stored
+     */
+    public Bson toBson(Function<Object, BsonValue> values) {
+        final List<Bson> branches = new ArrayList<>();
+        for (int i = 0; i < propertySorts.size(); i++) {
+            final List<Bson> conditions = new ArrayList<>();
+
+            for (int j = 0; j < i; j++) {
+                conditions.add(Filters.eq(propertySorts.get(j).getProperty(), values.apply(this.values.get(j))));
+            }
+
+            final PropertySort propertySort = propertySorts.get(i);
+            final Object value = this.values.get(i);
+            final boolean ascending = propertySort.getSortOption().equals(SortOption.ASCENDING);
+
+            if (value == null) {
+                if (!ascending) {
+                    continue;
+                }
+                conditions.add(Filters.ne(propertySort.getProperty(), null));
+            } else if (ascending) {
+                conditions.add(Filters.gt(propertySort.getProperty(), values.apply(value)));
+            } else {
+                conditions.add(Filters.or(Filters.lt(propertySort.getProperty(), values.apply(value)), Filters.eq(propertySort.getProperty(), null)));
+            }
+            branches.add(Filters.and(conditions));
+        }
+
+        if (branches.isEmpty()) {
+            return Filters.exists("_id", false);
+        }
+        return Filters.or(branches);
+    }
+
+    public Object[] getParameters() {
+        return parameters.toArray();
+    }
+}
@@ -1,28 +1,57 @@
 package com.elepy.mongo.querybuilding;
 
-import java.io.Serializable;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
 
 public class MongoQuery {
 
     private final MongoSearch mongoSearch;
     private final MongoFilters mongoFilters;
 
+    private final String compiled;
 
     public MongoQuery(MongoSearch mongoSearch, MongoFilters mongoFilters) {
+        this(mongoSearch, mongoFilters, null);
+    }
+
+    /**
+     * @param compiled the result of {@link #compile()} for a query with the same shape, null to compile it on demand
+     * @see MongoQueryPlanner
+     */
+    MongoQuery(MongoSearch mongoSearch, MongoFilters mongoFilters, String compiled) {
         this.mongoSearch = mongoSearch;
         this.mongoFilters = mongoFilters;
+        this.compiled = compiled;
+    }
+
+    private boolean hasSearch() {
+        return mongoSearch.getQuery() != null && !mongoSearch.getQuery().isEmpty();
+    }
+
+    private boolean hasFilters() {
+        return !mongoFilters.getMongoFilterTemplates().isEmpty();
     }
 
     public String compile() {
+        if (compiled != null) {
+            return compiled;
+        }
 
-        if (mongoFilters.getMongoFilterTemplates().size() == 0 && (mongoSearch.getQuery() == null || mongoSearch.getQuery().isEmpty())) {
+        if (!hasFilters() && !hasSearch()) {
             return "{}";
         }
 
-        if (mongoSearch.getQuery() == null || mongoSearch.getQuery().isEmpty()) {
+        if (!hasSearch()) {
             return mongoFilters.compile();
         }
-        if (mongoFilters.getMongoFilterTemplates().size() == 0) {
+        if (!hasFilters()) {
             return mongoSearch.compile();
         }
         String join = String.join(",", mongoSearch.compile(), mongoFilters.compile());
@@ -31,7 +60,39 @@ public class MongoQuery {
         return String.format("{$and: [%s]}", join);
     }
 
-    public Serializable[] getParameters() {
-        return mongoFilters.getParameters();
+    /**
+     * Builds the query for the native driver, which needs no compiled JSON.
+     *
+     * @param values encodes a filter value the way the property is stored
+     */
+    public Bson toBson(Function<Object, BsonValue> values) {
+        if (!hasFilters() && !hasSearch()) {
+            return new BsonDocument();
+        }
+
+        if (!hasSearch()) {
+            return mongoFilters.toBson(values);
+        }
+        if (!hasFilters()) {
+            return mongoSearch.toBson();
+        }
+        return Filters.and(mongoSearch.toBson(), mongoFilters.toBson(values));
+    }
+
+    /**
+     * Queries with the same shape compile to the same JSON, only their parameters differ.
+     */
+    public String getShape() {
+        return (hasSearch() ? "search;" : ";") + mongoFilters.getShape();
+    }
+
+    public Object[] getParameters() {
+        final List<Object> parameters = new ArrayList<>();
+
+        if (hasSearch()) {
+            parameters.addAll(Arrays.asList(mongoSearch.getParameters()));
+        }
+        parameters.addAll(Arrays.asList(mongoFilters.getParameters()));
+        return parameters.toArray();
     }
 }
@@ -0,0 +1,74 @@
+package com.elepy.mongo.querybuilding;
+
+import com.elepy.dao.Query;
+import com.elepy.mongo.MongoSearchMode;
+import com.elepy.mongo.SearchMode;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Turns queries on a model into {@link MongoQuery}'s. The searchable properties are looked up once, and the JSON of
+ * every query shape (the search and the filtered properties and operators) is compiled once. Searching then only
+ * binds the values of a query as parameters.
+ */
+public class MongoQueryPlanner {
+
+    /**
+     * Filters can be combined in any order, this bounds the amount of shapes that are remembered.
+     */
+    private static final int MAX_COMPILED_QUERIES = 1024;
+
+    private final List<String> searchableProperties;
+    private final SearchMode searchMode;
+    private final Map<String, String> compiledQueries;
+
+    public MongoQueryPlanner(Class<?> cls) {
+        final MongoSearchMode annotation = cls.getAnnotation(MongoSearchMode.class);
+
+        this.searchMode = annotation == null ? SearchMode.CONTAINS : annotation.value();
+        this.searchableProperties = searchMode == SearchMode.TEXT ? MongoSearch.textPropertiesOf(cls) : MongoSearch.searchablePropertiesOf(cls);
+        this.compiledQueries = new ConcurrentHashMap<>();
+    }
+
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * @return the properties that are searched, and indexed for the search mode
+     */
+    public List<String> getSearchableProperties() {
+        return searchableProperties;
+    }
+
+    public MongoQuery plan(Query query) {
+        return plan(query.getSearchQuery(), new MongoFilters(
+                query.getFilters()
+                        .stream()
+                        .map(MongoFilterTemplateFactory::fromFilter)
+                        .collect(Collectors.toList())
+        ));
+    }
+
+    public MongoQuery plan(String searchQuery) {
+        return plan(searchQuery, new MongoFilters(List.of()));
+    }
+
+    private MongoQuery plan(String searchQuery, MongoFilters mongoFilters) {
+        final MongoSearch mongoSearch = new MongoSearch(searchQuery, searchableProperties, searchMode);
+        final MongoQuery mongoQuery = new MongoQuery(mongoSearch, mongoFilters);
+        final String shape = mongoQuery.getShape();
+
+        String compiled = compiledQueries.get(shape);
+        if (compiled == null) {
+            compiled = mongoQuery.compile();
+            if (compiledQueries.size() < MAX_COMPILED_QUERIES) {
+                compiledQueries.putIfAbsent(shape, compiled);
+            }
+        }
+        return new MongoQuery(mongoSearch, mongoFilters, compiled);
+    }
+}
@@ -3,55 +3,118 @@ package com.elepy.mongo.querybuilding;
 import com.elepy.annotations.Searchable;
 import com.elepy.annotations.Unique;
 import com.elepy.exceptions.ElepyConfigException;
+import com.elepy.mongo.SearchMode;
 import com.elepy.utils.ReflectionUtils;
+import com.mongodb.client.model.Filters;
+import org.bson.conversions.Bson;
 import org.jongo.marshall.jackson.oid.MongoId;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
+/**
+ * A search on the searchable properties of a model. The search term is bound as a parameter, so the compiled query
+ * is the same for every search on a model.
+ *
+ * @see SearchMode
+ */
 public class MongoSearch {
 
     private final String qry;
-    private final Class<?> cls;
-
-    private String compiled;
+    private final List<String> searchableProperties;
+    private final SearchMode searchMode;
 
     public MongoSearch(String qry, Class<?> cls) {
-        this.qry = qry;
-        this.cls = cls;
+        this(qry, searchablePropertiesOf(cls), SearchMode.CONTAINS);
     }
 
-    public String getQuery() {
-        return qry;
+    /**
+     * @param searchableProperties the properties to search in, see {@link #searchablePropertiesOf(Class)}
+     */
+    public MongoSearch(String qry, List<String> searchableProperties, SearchMode searchMode) {
+        this.qry = qry;
+        this.searchableProperties = searchableProperties;
+        this.searchMode = searchMode;
     }
 
-    private List<Field> getSearchableFields() {
+    public static List<Field> searchableFieldsOf(Class<?> cls) {
         List<Field> fields = ReflectionUtils.searchForFieldsWithAnnotation(cls, Searchable.class, MongoId.class, Unique.class);
 
         fields.add(ReflectionUtils.getIdField(cls).orElseThrow(() -> new ElepyConfigException("No id field")));
-        return fields;
+        return fields.stream().distinct().collect(Collectors.toList());
     }
 
-    public String compile() {
-        if (compiled == null) {
-            final Pattern pattern = Pattern.compile(".*" + qry + ".*", Pattern.CASE_INSENSITIVE);
+    public static List<String> searchablePropertiesOf(Class<?> cls) {
+        return searchableFieldsOf(cls).stream().map(ReflectionUtils::getPropertyName).distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * A text index only holds Strings.
+     */
+    public static List<String> textPropertiesOf(Class<?> cls) {
+        return searchableFieldsOf(cls).stream()
+                .filter(field -> field.getType().equals(String.class))
+                .map(ReflectionUtils::getPropertyName)
+                .distinct()
+                .collect(Collectors.toList());
+    }
+
+    public String getQuery() {
+        return qry;
+    }
 
-            String patternCompiled = pattern.toString();
-            String searchRegex = getSearchableFields().stream().map(field -> {
+    public String compile() {
+        if (searchMode == SearchMode.TEXT) {
+            return "{$text: {$search: #}}";
+        }
 
-                String propertyName = ReflectionUtils.getPropertyName(field);
+        final String regexTemplate = searchMode == SearchMode.PREFIX ? "{'%s': {$regex: #}}" : "{'%s': {$regex: #, $options: 'i'}}";
 
+        String searchRegex = searchableProperties.stream()
+                .map(propertyName -> String.format(regexTemplate, propertyName))
+                .collect(Collectors.joining(","));
 
-                return String.format("{%s: {$regex: '%s', $options: 'i'}}", propertyName, patternCompiled);
+        return String.format("{$or: [%s]}", searchRegex);
+    }
 
-            }).collect(Collectors.joining(","));
+    /**
+     * @return the search as a Bson for the native driver, with the same semantics as {@link #compile()}
+     */
+    public Bson toBson() {
+        if (searchMode == SearchMode.TEXT) {
+            return Filters.text(qry);
+        }
 
+        final Object[] parameters = getParameters();
+        final List<Bson> regexes = new ArrayList<>();
+        for (int i = 0; i < searchableProperties.size(); i++) {
+            regexes.add(searchMode == SearchMode.PREFIX ?
+                    Filters.regex(searchableProperties.get(i), (String) parameters[i]) :
+                    Filters.regex(searchableProperties.get(i), (String) parameters[i], "i"));
+        }
+        return Filters.or(regexes);
+    }
 
-            compiled = String.format("{$or: [%s]}", searchRegex);
+    public Object[] getParameters() {
+        switch (searchMode) {
+            case TEXT:
+                return new Object[]{qry};
+            case PREFIX:
+                return Collections.nCopies(searchableProperties.size(), "^" + escape(qry)).toArray();
+            default:
+                final String pattern = Pattern.compile(".*" + qry + ".*", Pattern.CASE_INSENSITIVE).toString();
+                return Collections.nCopies(searchableProperties.size(), pattern).toArray();
         }
-        return compiled;
     }
 
-} 
+    /**
+     * Escapes the regex metacharacters, Mongo can only use an index for a plain prefix.
+     */
+    private static String escape(String literal) {
+        return literal.replaceAll("[\\\\^$.|?*+()\\[\\]{}]", "\\\\$0");
+    }
+}
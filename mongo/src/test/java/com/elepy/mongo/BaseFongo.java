@@ -3,6 +3,8 @@ package com.elepy.mongo;
 import com.mongodb.DB;
 import com.mongodb.MongoClient;
 import com.mongodb.ServerAddress;
+import com.mongodb.async.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
 import de.bwaldvogel.mongo.MongoServer;
 import de.bwaldvogel.mongo.backend.memory.MemoryBackend;
 import org.junit.jupiter.api.AfterAll;
@@ -19,21 +21,41 @@ public class BaseFongo extends Base {
     private int port;
 
     private MongoServer mongoServer;
+    private InetSocketAddress serverAddress;
+    private com.mongodb.async.client.MongoClient asyncClient;
 
     public void setUp() throws Exception {
+        if (asyncClient != null) {
+            asyncClient.close();
+            asyncClient = null;
+        }
         mongoServer = new MongoServer(new MemoryBackend());
 
-        InetSocketAddress serverAddress = mongoServer.bind();
+        serverAddress = mongoServer.bind();
 
         client = new MongoClient(new ServerAddress(serverAddress));
     }
 
     @AfterAll
     void tearDown() {
+        if (asyncClient != null) {
+            asyncClient.close();
+        }
         mongoServer.shutdownNow();
     }
 
     public DB getDb() throws IOException {
         return client.getDB("test");
     }
+
+    public MongoDatabase getDatabase() {
+        return client.getDatabase("test");
+    }
+
+    public com.mongodb.async.client.MongoDatabase getAsyncDatabase() {
+        if (asyncClient == null) {
+            asyncClient = MongoClients.create(String.format("mongodb://%s:%d", serverAddress.getHostString(), serverAddress.getPort()));
+        }
+        return asyncClient.getDatabase("test");
+    }
 }
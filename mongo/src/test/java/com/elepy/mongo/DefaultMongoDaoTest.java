@@ -3,11 +3,16 @@ package com.elepy.mongo;
 import com.elepy.dao.Crud;
 import com.elepy.dao.Page;
 import com.elepy.dao.PageSettings;
+import com.elepy.dao.PropertySort;
 import com.elepy.dao.Query;
+import com.elepy.dao.SortOption;
 import com.elepy.di.DefaultElepyContext;
+import com.elepy.exceptions.ElepyPartialWriteException;
 import com.elepy.utils.ModelUtils;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.BasicDBObject;
 import com.mongodb.DB;
+import org.bson.types.ObjectId;
 import org.jongo.Jongo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -17,17 +22,19 @@ import java.util.*;
 
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 public class DefaultMongoDaoTest extends BaseFongo {
 
+    private DefaultElepyContext defaultElepyContext;
     private Crud<Resource> defaultMongoDao;
     private Jongo jongo;
 
     @BeforeEach
     public void setUp() throws Exception {
         super.setUp();
-        DefaultElepyContext defaultElepyContext = new DefaultElepyContext();
+        defaultElepyContext = new DefaultElepyContext();
         defaultElepyContext.registerDependency(DB.class, getDb());
         defaultElepyContext.registerDependency(new ObjectMapper());
 
@@ -101,6 +108,37 @@ public class DefaultMongoDaoTest extends BaseFongo {
 
     }
 
+    @Test
+    void testMultiCreate_createsOthers_when_ItemIsRejected() {
+        testMultiCreate_createsOthers_when_ItemIsRejected(defaultMongoDao);
+    }
+
+    @Test
+    void testNativeMultiCreate_createsOthers_when_ItemIsRejected() {
+        testMultiCreate_createsOthers_when_ItemIsRejected(newNativeMongoDao());
+    }
+
+    private void testMultiCreate_createsOthers_when_ItemIsRejected(Crud<Resource> crud) {
+        final Resource existing = validObject();
+        crud.create(existing);
+
+        final Resource resource = validObject();
+        final Resource sameId = validObject();
+        final Resource resource2 = validObject();
+        resource.setUnique("Unique2");
+        sameId.setUnique("Unique3");
+        resource2.setUnique("Unique4");
+        sameId.setId(existing.getId());
+
+        final ElepyPartialWriteException exception = assertThrows(ElepyPartialWriteException.class,
+                () -> crud.create(List.of(resource, sameId, resource2)));
+
+        assertThat(exception.getFailures().keySet()).containsExactly(1);
+        assertThat(exception.isWritten(0)).isTrue();
+        assertThat(exception.isWritten(2)).isTrue();
+        assertEquals(3, count());
+    }
+
     @Test
     void testUpdateWithPrototype() {
         final Resource resource = validObject();
@@ -128,6 +166,110 @@ public class DefaultMongoDaoTest extends BaseFongo {
 
     }
 
+    @Test
+    void testIdOperations_withOtherIdKey() throws Exception {
+        insertWithObjectId(100, "external");
+        final Crud<Resource> crud = newMongoDao();
+
+        testIdOperations(crud);
+    }
+
+    @Test
+    void testIdOperations_withOtherIdKey_afterEmptyCollection() throws Exception {
+        final Crud<Resource> crud = newMongoDao();
+        assertThat(crud.getById(100)).isEmpty();
+
+        insertWithObjectId(100, "external");
+
+        testIdOperations(crud);
+    }
+
+    @Test
+    void testNativeIdOperations_withOtherIdKey() throws Exception {
+        insertWithObjectId(100, "external");
+
+        testIdOperations(newNativeMongoDao());
+    }
+
+    @Test
+    void testNativeIdOperations_withOtherIdKey_afterEmptyCollection() throws Exception {
+        final Crud<Resource> crud = newNativeMongoDao();
+        assertThat(crud.getById(100)).isEmpty();
+
+        insertWithObjectId(100, "external");
+
+        testIdOperations(crud);
+    }
+
+    @Test
+    void testPageWithCursor_withOtherIdKey() throws Exception {
+        insertInReverseIdOrder();
+
+        testPageWithCursor(newMongoDao());
+    }
+
+    @Test
+    void testNativePageWithCursor_withOtherIdKey() throws Exception {
+        insertInReverseIdOrder();
+
+        testPageWithCursor(newNativeMongoDao());
+    }
+
+    /**
+     * The generated _ids are in the opposite order of the IDs, so only a tiebreaker on the ID pages them by ID.
+     */
+    private void insertInReverseIdOrder() throws Exception {
+        for (int id = 5; id >= 1; id--) {
+            insertWithObjectId(id, "same");
+        }
+    }
+
+    private void testPageWithCursor(Crud<Resource> crud) {
+        final List<PropertySort> sort = List.of(new PropertySort("textField", SortOption.ASCENDING));
+
+        final List<Integer> pagedIds = new ArrayList<>();
+        String after = null;
+        do {
+            final Page<Resource> page = crud.search(new Query("", List.of()), new PageSettings(1, 2, sort, after));
+
+            page.getValues().forEach(resource -> pagedIds.add(resource.getId()));
+            after = page.getAfter();
+        } while (after != null);
+
+        assertThat(pagedIds).containsExactly(1, 2, 3, 4, 5).inOrder();
+    }
+
+    private void testIdOperations(Crud<Resource> crud) {
+        final Resource found = crud.getById(100).orElseThrow();
+        assertThat(found.getTextField()).isEqualTo("external");
+        assertThat(crud.getByIds(List.of(100))).hasSize(1);
+
+        found.setTextField("updated");
+        crud.update(found);
+        assertThat(crud.getById(100).orElseThrow().getTextField()).isEqualTo("updated");
+        assertEquals(1, count());
+
+        crud.deleteById(100);
+        assertEquals(0, count());
+    }
+
+    /**
+     * A document stored by another application, with a generated _id next to the ID property.
+     */
+    private void insertWithObjectId(int id, String textField) throws Exception {
+        getDb().getCollection("resources").insert(new BasicDBObject("_id", new ObjectId())
+                .append("id", id)
+                .append("textField", textField));
+    }
+
+    private Crud<Resource> newMongoDao() {
+        return defaultElepyContext.initializeElepyObject(MongoCrudFactory.class).crudFor(ModelUtils.createModelFromClass(Resource.class));
+    }
+
+    private Crud<Resource> newNativeMongoDao() {
+        return new NativeMongoDao<>(getDatabase(), "resources", ModelUtils.createModelFromClass(Resource.class), new ObjectMapper());
+    }
+
     private long count() {
         return jongo.getCollection("resources").count();
     }
@@ -0,0 +1,170 @@
+package com.elepy.mongo;
+
+import com.elepy.dao.AsyncCrud;
+import com.elepy.dao.Crud;
+import com.elepy.dao.Page;
+import com.elepy.dao.PageSettings;
+import com.elepy.dao.Query;
+import com.elepy.di.DefaultElepyContext;
+import com.elepy.exceptions.ElepyPartialWriteException;
+import com.elepy.utils.ModelUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.DB;
+import com.mongodb.async.client.MongoDatabase;
+import org.jongo.Jongo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class MongoAsyncCrudTest extends BaseFongo {
+
+    private Crud<Resource> crud;
+    private AsyncCrud<Resource> asyncCrud;
+    private Jongo jongo;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        super.setUp();
+        DefaultElepyContext defaultElepyContext = new DefaultElepyContext();
+        defaultElepyContext.registerDependency(DB.class, getDb());
+        defaultElepyContext.registerDependency(MongoDatabase.class, getAsyncDatabase());
+        defaultElepyContext.registerDependency(new ObjectMapper());
+
+        crud = defaultElepyContext.initializeElepyObject(AsyncMongoCrudFactory.class).crudFor(ModelUtils.createModelFromClass(Resource.class));
+
+        // The native driver doesn't need an executor
+        asyncCrud = crud.async(command -> {
+            throw new AssertionError("The executor was used");
+        });
+
+        jongo = new Jongo(getDb());
+    }
+
+    @Test
+    void testAsyncCrud_isNative() {
+        assertThat(asyncCrud).isInstanceOf(MongoAsyncCrud.class);
+        assertThat(asyncCrud.blocking()).isSameInstanceAs(crud);
+    }
+
+    @Test
+    void testCreate() throws Exception {
+        final Resource resource = validObject();
+        resource.setTextField("create");
+
+        asyncCrud.createAsync(resource).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, count());
+        assertThat(crud.getById(resource.getId()).orElseThrow().getTextField()).isEqualTo("create");
+    }
+
+    @Test
+    void testMultiCreate() throws Exception {
+        final Resource resource = validObject();
+        final Resource resource2 = validObject();
+        resource2.setUnique("Unique2");
+
+        asyncCrud.createAsync(List.of(resource, resource2)).get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, count());
+    }
+
+    @Test
+    void testMultiCreate_createsOthers_when_ItemIsRejected() {
+        final Resource existing = validObject();
+        crud.create(existing);
+
+        final Resource resource = validObject();
+        final Resource sameId = validObject();
+        final Resource resource2 = validObject();
+        resource.setUnique("Unique2");
+        sameId.setUnique("Unique3");
+        resource2.setUnique("Unique4");
+        sameId.setId(existing.getId());
+
+        final ElepyPartialWriteException exception = assertThrows(ElepyPartialWriteException.class,
+                () -> AsyncCrud.await(asyncCrud.createAsync(List.of(resource, sameId, resource2))));
+
+        assertThat(exception.getFailures().keySet()).containsExactly(1);
+        assertThat(exception.isWritten(0)).isTrue();
+        assertThat(exception.isWritten(2)).isTrue();
+        assertEquals(3, count());
+    }
+
+    @Test
+    void testGetById() throws Exception {
+        final Resource resource = validObject();
+        crud.create(resource);
+
+        final Optional<Resource> found = asyncCrud.getByIdAsync(resource.getId()).get(10, TimeUnit.SECONDS);
+        final Optional<Resource> missing = asyncCrud.getByIdAsync(resource.getId() + 1000).get(10, TimeUnit.SECONDS);
+
+        assertThat(found.orElseThrow().getTextField()).isEqualTo(resource.getTextField());
+        assertThat(missing).isEmpty();
+    }
+
+    @Test
+    void testGetByIds() throws Exception {
+        final Resource resource = validObject();
+        final Resource resource2 = validObject();
+        resource2.setUnique("Unique2");
+        crud.create(List.of(resource, resource2));
+
+        final List<Resource> found = asyncCrud.getByIdsAsync(List.of(resource.getId(), resource2.getId())).get(10, TimeUnit.SECONDS);
+
+        assertEquals(2, found.size());
+    }
+
+    @Test
+    void testSearch() throws Exception {
+        crud.create(validObject());
+
+        final Page<Resource> page = asyncCrud.searchAsync(new Query("sear", new ArrayList<>()), new PageSettings(1, Integer.MAX_VALUE, new ArrayList<>()))
+                .get(10, TimeUnit.SECONDS);
+        final long amount = asyncCrud.countAsync(new Query("searchab", new ArrayList<>())).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, page.getValues().size());
+        assertEquals(1, amount);
+    }
+
+    @Test
+    void testUpdate() throws Exception {
+        final Resource resource = validObject();
+        crud.create(resource);
+
+        resource.setTextField("updated");
+        asyncCrud.updateAsync(resource).get(10, TimeUnit.SECONDS);
+
+        assertEquals(1, count());
+        assertThat(crud.getById(resource.getId()).orElseThrow().getTextField()).isEqualTo("updated");
+    }
+
+    @Test
+    void testDelete() throws Exception {
+        final Resource resource = validObject();
+        final Resource resource2 = validObject();
+        final Resource resource3 = validObject();
+        resource2.setUnique("Unique2");
+        resource3.setUnique("Unique3");
+        crud.create(List.of(resource, resource2, resource3));
+
+        asyncCrud.deleteByIdAsync(resource.getId()).get(10, TimeUnit.SECONDS);
+        assertEquals(2, count());
+
+        asyncCrud.deleteAsync(List.of(resource2.getId(), resource3.getId())).get(10, TimeUnit.SECONDS);
+        assertEquals(0, count());
+    }
+
+    private long count() {
+        return jongo.getCollection("resources").count();
+    }
+}
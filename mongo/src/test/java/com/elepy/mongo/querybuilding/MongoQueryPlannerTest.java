@@ -0,0 +1,82 @@
+package com.elepy.mongo.querybuilding;
+
+import com.elepy.annotations.Identifier;
+import com.elepy.annotations.Searchable;
+import com.elepy.dao.Filter;
+import com.elepy.dao.FilterType;
+import com.elepy.dao.FilterableField;
+import com.elepy.dao.Query;
+import com.elepy.mongo.MongoSearchMode;
+import com.elepy.mongo.Resource;
+import com.elepy.mongo.SearchMode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+public class MongoQueryPlannerTest {
+
+    private final MongoQueryPlanner planner = new MongoQueryPlanner(Resource.class);
+
+    @Test
+    void can_ReuseCompiledQuery_for_SameShape() {
+        final MongoQuery first = planner.plan(query("first", "a"));
+        final MongoQuery second = planner.plan(query("second", "b"));
+
+        assertThat(second.compile()).isSameInstanceAs(first.compile());
+        assertThat(first.getParameters()).asList().contains("a");
+        assertThat(second.getParameters()).asList().contains("b");
+    }
+
+    @Test
+    void can_BindSearchTerm_as_Parameter() {
+        final MongoQuery mongoQuery = planner.plan("it's");
+
+        assertThat(mongoQuery.compile()).doesNotContain("it's");
+        assertThat(mongoQuery.getParameters()).asList().contains(".*it's.*");
+    }
+
+    @Test
+    void can_SearchOnEscapedPrefix_in_PrefixMode() {
+        final MongoQuery mongoQuery = new MongoQueryPlanner(PrefixSearched.class).plan("a.b");
+
+        assertThat(mongoQuery.compile()).doesNotContain("$options");
+        assertThat(mongoQuery.getParameters()).asList().containsExactly("^a\\.b", "^a\\.b");
+    }
+
+    @Test
+    void can_SearchOnTextIndex_in_TextMode() {
+        final MongoQueryPlanner textPlanner = new MongoQueryPlanner(TextSearched.class);
+        final MongoQuery mongoQuery = textPlanner.plan("coffee beans");
+
+        assertThat(textPlanner.getSearchableProperties()).containsExactly("name", "id");
+        assertThat(mongoQuery.compile()).isEqualTo("{$text: {$search: #}}");
+        assertThat(mongoQuery.getParameters()).asList().containsExactly("coffee beans");
+    }
+
+    @MongoSearchMode(SearchMode.PREFIX)
+    private static class PrefixSearched {
+        @Identifier
+        private String id;
+
+        @Searchable
+        private String name;
+    }
+
+    @MongoSearchMode(SearchMode.TEXT)
+    private static class TextSearched {
+        @Identifier
+        private String id;
+
+        @Searchable
+        private String name;
+
+        @Searchable
+        private int amount;
+    }
+
+    private Query query(String searchQuery, String textField) {
+        return new Query(searchQuery, List.of(new Filter(new FilterableField(Resource.class, "textField"), FilterType.EQUALS, textField)));
+    }
+}
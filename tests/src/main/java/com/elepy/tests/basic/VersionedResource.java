@@ -0,0 +1,54 @@
+package com.elepy.tests.basic;
+
+import com.elepy.annotations.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * A model with a {@link Version} property, whose ETags are made from the IDs and versions of the items.
+ */
+@RestModel(name = "Test Versioned Resource", slug = "/versioned-resources")
+@Delete(requiredPermissions = {})
+@Create(requiredPermissions = {})
+@Update(requiredPermissions = {})
+@Find(requiredPermissions = {})
+@Entity
+@Table(name = "versionedResourceTable")
+public class VersionedResource {
+    @Identifier
+    @Id
+    private int id;
+
+    @Searchable
+    private String textField;
+
+    @Version
+    private Long version;
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getTextField() {
+        return textField;
+    }
+
+    public void setTextField(String textField) {
+        this.textField = textField;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -5,18 +5,34 @@ import com.elepy.Elepy;
 import com.elepy.dao.*;
 import com.elepy.tests.ElepyTest;
 import com.elepy.tests.basic.Resource;
+import com.elepy.tests.basic.VersionedResource;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.google.common.collect.Lists;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
 import org.junit.jupiter.api.*;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Serializable;
 import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static com.google.common.truth.Truth.assertThat;
 
@@ -32,6 +48,7 @@ public abstract class CrudTest implements ElepyTest {
     protected final int port;
     protected Elepy elepy;
     protected Crud<Resource> resourceCrud;
+    protected Crud<VersionedResource> versionedCrud;
 
     public CrudTest(Configuration... configurations) {
         this.configurations = configurations;
@@ -54,6 +71,7 @@ public abstract class CrudTest implements ElepyTest {
 
         elepy = new Elepy()
                 .addModel(Resource.class)
+                .addModel(VersionedResource.class)
                 .onPort(port);
 
         List.of(configurations).forEach(elepy::addConfiguration);
@@ -63,6 +81,7 @@ public abstract class CrudTest implements ElepyTest {
         elepy.start();
 
         resourceCrud = elepy.getCrudFor(Resource.class);
+        versionedCrud = elepy.getCrudFor(VersionedResource.class);
 
     }
 
@@ -78,6 +97,7 @@ public abstract class CrudTest implements ElepyTest {
 
     private void deleteAll() {
         resourceCrud.delete(resourceCrud.getAll().stream().map(Resource::getId).collect(Collectors.toList()));
+        versionedCrud.delete(versionedCrud.getAll().stream().map(VersionedResource::getId).collect(Collectors.toList()));
     }
 
     @Test
@@ -318,6 +338,388 @@ public abstract class CrudTest implements ElepyTest {
 
     }
 
+    @Test
+    void can_PageWithCursor() {
+        final List<Resource> resources = List.of(validObject(), validObject(), validObject(), validObject(), validObject());
+
+        resources.get(0).setTextField("a");
+        resources.get(1).setTextField("b");
+        resources.get(2).setTextField("b");
+        resources.get(3).setTextField("c");
+        resources.get(4).setTextField("d");
+
+        resourceCrud.create(resources);
+
+        final List<PropertySort> sort = List.of(new PropertySort("textField", SortOption.DESCENDING));
+        final List<Integer> expectedIds = resourceCrud.search(new Query("", List.of()), new PageSettings(1, Integer.MAX_VALUE, sort))
+                .getValues().stream().map(Resource::getId).collect(Collectors.toList());
+
+        final List<Integer> pagedIds = new ArrayList<>();
+        String after = null;
+        do {
+            final Page<Resource> page = resourceCrud.search(new Query("", List.of()), new PageSettings(1, 2, sort, after));
+
+            page.getValues().forEach(resource -> pagedIds.add(resource.getId()));
+            after = page.getAfter();
+        } while (after != null);
+
+        assertThat(pagedIds).containsExactlyElementsIn(expectedIds).inOrder();
+    }
+
+    @Test
+    void can_PageWithCursor_over_NullSortValues() {
+        final List<Resource> resources = List.of(validObject(), validObject(), validObject(), validObject(), validObject());
+
+        resources.get(0).setTextField("a");
+        resources.get(1).setTextField(null);
+        resources.get(2).setTextField("b");
+        resources.get(3).setTextField(null);
+        resources.get(4).setTextField("c");
+
+        resourceCrud.create(resources);
+
+        final List<PropertySort> sort = List.of(new PropertySort("textField", SortOption.DESCENDING));
+
+        final List<String> pagedTextFields = new ArrayList<>();
+        String after = null;
+        do {
+            final Page<Resource> page = resourceCrud.search(new Query("", List.of()), new PageSettings(1, 2, sort, after));
+
+            page.getValues().forEach(resource -> pagedTextFields.add(resource.getTextField()));
+            after = page.getAfter();
+        } while (after != null);
+
+        // Nulls are the lowest values, so they come last when descending
+        assertThat(pagedTextFields).containsExactly("c", "b", "a", null, null).inOrder();
+    }
+
+    @Test
+    void can_StreamSearchResults() {
+        final Resource resource1 = validObject();
+        final Resource resource2 = validObject();
+        final Resource resource3 = validObject();
+
+        resource1.setTextField("resource1");
+        resource2.setTextField("resource2");
+        resource3.setTextField("resource3");
+
+        resourceCrud.create(resource1, resource2, resource3);
+
+        final PageSettings settings = new PageSettings(1, 2, List.of(new PropertySort("textField", SortOption.DESCENDING)));
+
+        final List<String> streamed;
+        try (Stream<Resource> stream = resourceCrud.stream(new Query("", List.of()), settings)) {
+            streamed = stream.map(Resource::getTextField).collect(Collectors.toList());
+        }
+
+        assertThat(streamed).containsExactly("resource3", "resource2").inOrder();
+        assertThat(resourceCrud.count(new Query("", List.of()))).isEqualTo(3);
+    }
+
+    @Test
+    void can_TellIfThereIsANextPage_without_Counting() {
+        resourceCrud.create(validObject(), validObject(), validObject());
+
+        final List<PropertySort> sort = List.of(new PropertySort("id", SortOption.ASCENDING));
+
+        final Page<Resource> firstPage = resourceCrud.search(new Query("", List.of()), new PageSettings(1, 2, sort, null, CountMode.NONE));
+        final Page<Resource> secondPage = resourceCrud.search(new Query("", List.of()), new PageSettings(2, 2, sort, null, CountMode.NONE));
+        final Page<Resource> exactPage = resourceCrud.search(new Query("", List.of()), new PageSettings(1, 2, sort, null, CountMode.EXACT));
+
+        assertThat(firstPage.getValues()).hasSize(2);
+        assertThat(firstPage.isHasNext()).isTrue();
+        assertThat(secondPage.getValues()).hasSize(1);
+        assertThat(secondPage.isHasNext()).isFalse();
+        assertThat(exactPage.getLastPageNumber()).isEqualTo(2);
+    }
+
+    @Test
+    void can_ProjectFields() throws IOException, UnirestException {
+        final Resource resource = validObject();
+        resource.setTextField("projected");
+        resourceCrud.create(resource);
+
+        final Page<Resource> page = resourceCrud.search(new Query("", List.of(), List.of("id", "textField")), new PageSettings(1, 10, List.of()));
+        assertThat(page.getValues().get(0).getTextField()).isEqualTo("projected");
+        assertThat(resourceCrud.getById(resource.getId(), List.of("textField")).orElseThrow().getTextField()).isEqualTo("projected");
+
+        final HttpResponse<String> findMany = Unirest.get(url + "/resources?fields=textField").asString();
+        final HttpResponse<String> findOne = Unirest.get(url + "/resources/" + resource.getId() + "?fields=textField").asString();
+
+        Assertions.assertEquals(200, findMany.getStatus(), findMany.getBody());
+        Assertions.assertEquals(200, findOne.getStatus(), findOne.getBody());
+
+        final JsonNode value = elepy.objectMapper().readTree(findMany.getBody()).get("values").get(0);
+        assertThat(Lists.newArrayList(value.fieldNames())).containsExactly("id", "textField");
+        assertThat(Lists.newArrayList(elepy.objectMapper().readTree(findOne.getBody()).fieldNames())).containsExactly("id", "textField");
+    }
+
+    @Test
+    void can_GetUpdateAndDeleteInBulk() {
+        final Resource resource1 = validObject();
+        final Resource resource2 = validObject();
+        final Resource resource3 = validObject();
+
+        resourceCrud.create(resource1, resource2, resource3);
+
+        final List<Resource> found = resourceCrud.getByIds(List.<Serializable>of(resource1.getId(), resource2.getId(), 404404));
+        assertThat(found.stream().map(Resource::getId).collect(Collectors.toList()))
+                .containsExactly(resource1.getId(), resource2.getId());
+
+        found.forEach(resource -> resource.setTextField("updated"));
+        resourceCrud.update(found);
+
+        assertThat(resourceCrud.getById(resource1.getId()).orElseThrow().getTextField()).isEqualTo("updated");
+        assertThat(resourceCrud.getById(resource2.getId()).orElseThrow().getTextField()).isEqualTo("updated");
+        assertThat(resourceCrud.getById(resource3.getId()).orElseThrow().getTextField()).isEqualTo("textfield");
+
+        resourceCrud.delete(resource1.getId(), resource3.getId());
+
+        assertThat(resourceCrud.getAll().stream().map(Resource::getId).collect(Collectors.toList()))
+                .containsExactly(resource2.getId());
+    }
+
+    @Test
+    void can_AggregateItems_perGroup() throws IOException, UnirestException {
+        final Resource resource1 = validObject();
+        final Resource resource2 = validObject();
+        final Resource resource3 = validObject();
+
+        resource1.setTextField("a");
+        resource2.setTextField("a");
+        resource3.setTextField("b");
+
+        resourceCrud.create(resource1, resource2, resource3);
+
+        final HttpResponse<String> aggregate = Unirest.get(url + "/resources/aggregate?groupBy=textField&aggregate=count").asString();
+        Assertions.assertEquals(200, aggregate.getStatus(), aggregate.getBody());
+
+        final JsonNode buckets = elepy.objectMapper().readTree(aggregate.getBody());
+        assertThat(buckets.size()).isEqualTo(2);
+        assertThat(buckets.get(0).get("key").asText()).isEqualTo("a");
+        assertThat(buckets.get(0).get("values").get("count").asLong()).isEqualTo(2);
+        assertThat(buckets.get(1).get("key").asText()).isEqualTo("b");
+        assertThat(buckets.get(1).get("values").get("count").asLong()).isEqualTo(1);
+
+        final List<AggregationBucket> total = resourceCrud.aggregate(new Aggregation(new Query("", List.of()), null, null, List.of(Aggregate.count())));
+        assertThat(total).hasSize(1);
+        assertThat(((Number) total.get(0).getValues().get("count")).longValue()).isEqualTo(3);
+    }
+
+    @Test
+    void can_CountFacets_inBuckets() throws IOException, UnirestException {
+        final Resource resource1 = validObject();
+        final Resource resource2 = validObject();
+        final Resource resource3 = validObject();
+
+        resource1.setNumberMax40(BigDecimal.valueOf(10));
+        resource2.setNumberMax40(BigDecimal.valueOf(30));
+        resource3.setNumberMax40(BigDecimal.valueOf(30));
+
+        resourceCrud.create(resource1, resource2, resource3);
+
+        final HttpResponse<String> response = Unirest.get(url + "/resources?facet=numberMax40:0,20,50").asString();
+        Assertions.assertEquals(200, response.getStatus(), response.getBody());
+
+        final JsonNode page = elepy.objectMapper().readTree(response.getBody());
+        assertThat(page.get("values").size()).isEqualTo(3);
+        assertThat(page.get("facets").get("numberMax40").get("[0,20)").asLong()).isEqualTo(1);
+        assertThat(page.get("facets").get("numberMax40").get("[20,50)").asLong()).isEqualTo(2);
+    }
+
+    @Test
+    void can_ImportNdjson_and_ReportFailedLines() throws IOException, UnirestException {
+        final Resource resource1 = validObject();
+        final Resource resource2 = validObject();
+        resource1.setUniqueField("import1");
+        resource2.setUniqueField("import2");
+
+        final String body = elepy.objectMapper().writeValueAsString(resource1) + "\n"
+                + "{not json\n"
+                + elepy.objectMapper().writeValueAsString(resource2) + "\n";
+
+        final HttpResponse<String> response = Unirest.post(url + "/resources/import?batchSize=2")
+                .header("Content-Type", "application/x-ndjson")
+                .body(body)
+                .asString();
+        Assertions.assertEquals(200, response.getStatus(), response.getBody());
+
+        final JsonNode report = elepy.objectMapper().readTree(response.getBody());
+        assertThat(report.get("created").asLong()).isEqualTo(2);
+        assertThat(report.get("failed").asLong()).isEqualTo(1);
+        assertThat(report.get("errors").get(0).get("line").asLong()).isEqualTo(2);
+        assertThat(resourceCrud.count()).isEqualTo(2);
+    }
+
+    @Test
+    void can_ExportItems_asCsv_and_Ndjson() throws IOException, UnirestException {
+        final Resource resource1 = validObject();
+        final Resource resource2 = validObject();
+        resource1.setUniqueField("export1");
+        resource1.setTextField("a, \"quoted\" value");
+        resource2.setUniqueField("export2");
+
+        resourceCrud.create(resource1, resource2);
+
+        final HttpResponse<String> ndjson = Unirest.get(url + "/resources/export").asString();
+        Assertions.assertEquals(200, ndjson.getStatus(), ndjson.getBody());
+
+        final String[] lines = ndjson.getBody().split("\n");
+        assertThat(lines).hasLength(2);
+        assertThat(elepy.objectMapper().readValue(lines[0], Resource.class).getUniqueField()).isEqualTo("export1");
+
+        final HttpResponse<String> csv = Unirest.get(url + "/resources/export?format=csv&fields=id,textField&uniqueField_equals=export1").asString();
+        Assertions.assertEquals(200, csv.getStatus(), csv.getBody());
+        assertThat(csv.getBody()).isEqualTo("id,textField\r\n" + resource1.getId() + ",\"a, \"\"quoted\"\" value\"\r\n");
+    }
+
+    @Test
+    void can_AnswerIfNoneMatch_withNotModified() throws IOException, UnirestException {
+        final Resource resource = validObject();
+        resourceCrud.create(resource);
+
+        final HttpResponse<String> first = Unirest.get(url + "/resources/" + resource.getId()).asString();
+        Assertions.assertEquals(200, first.getStatus(), first.getBody());
+        final String eTag = first.getHeaders().getFirst("ETag");
+        assertThat(eTag).isNotEmpty();
+
+        final HttpResponse<String> unchanged = Unirest.get(url + "/resources/" + resource.getId()).header("If-None-Match", eTag).asString();
+        assertThat(unchanged.getStatus()).isEqualTo(304);
+
+        resource.setTextField("changed");
+        resourceCrud.update(resource);
+
+        final HttpResponse<String> changed = Unirest.get(url + "/resources/" + resource.getId()).header("If-None-Match", eTag).asString();
+        assertThat(changed.getStatus()).isEqualTo(200);
+        assertThat(changed.getHeaders().getFirst("ETag")).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void can_AnswerIfNoneMatch_withNotModified_forVersionedItem() throws UnirestException {
+        versionedCrud.create(versionedResource(1));
+
+        final String itemUrl = url + "/versioned-resources/1";
+        final HttpResponse<String> first = Unirest.get(itemUrl).asString();
+        Assertions.assertEquals(200, first.getStatus(), first.getBody());
+        final String eTag = first.getHeaders().getFirst("ETag");
+        assertThat(eTag).isNotEmpty();
+
+        assertThat(Unirest.get(itemUrl).header("If-None-Match", eTag).asString().getStatus()).isEqualTo(304);
+        assertThat(Unirest.get(itemUrl).header("If-None-Match", "\"other\"").asString().getStatus()).isEqualTo(200);
+
+        // A projection that includes the version is loaded in one query, with an ETag of its own
+        final String projectionUrl = itemUrl + "?fields=id,version";
+        final String projectionETag = Unirest.get(projectionUrl).asString().getHeaders().getFirst("ETag");
+        assertThat(projectionETag).isNotEqualTo(eTag);
+        assertThat(Unirest.get(projectionUrl).header("If-None-Match", projectionETag).asString().getStatus()).isEqualTo(304);
+    }
+
+    @Test
+    void can_AnswerIfNoneMatch_withNotModified_forVersionedPage() throws UnirestException {
+        versionedCrud.create(versionedResource(1), versionedResource(2));
+
+        final String pageUrl = url + "/versioned-resources?pageSize=10";
+        final HttpResponse<String> first = Unirest.get(pageUrl).asString();
+        Assertions.assertEquals(200, first.getStatus(), first.getBody());
+        final String eTag = first.getHeaders().getFirst("ETag");
+        assertThat(eTag).isNotEmpty();
+
+        final HttpResponse<String> unchanged = Unirest.get(pageUrl).header("If-None-Match", eTag).asString();
+        assertThat(unchanged.getStatus()).isEqualTo(304);
+        assertThat(unchanged.getBody()).isEmpty();
+
+        versionedCrud.create(versionedResource(3));
+
+        final HttpResponse<String> changed = Unirest.get(pageUrl).header("If-None-Match", eTag).asString();
+        assertThat(changed.getStatus()).isEqualTo(200);
+        assertThat(changed.getHeaders().getFirst("ETag")).isNotEqualTo(eTag);
+        assertThat(Unirest.get(pageUrl).header("If-None-Match", changed.getHeaders().getFirst("ETag")).asString().getStatus()).isEqualTo(304);
+
+        // A page without a page size is streamed
+        assertThat(Unirest.get(url + "/versioned-resources").asString().getHeaders().getFirst("ETag")).isNull();
+    }
+
+    private static VersionedResource versionedResource(int id) {
+        final VersionedResource resource = new VersionedResource();
+        resource.setId(id);
+        resource.setTextField("versioned " + id);
+        return resource;
+    }
+
+    @Test
+    void can_PushChanges_to_LiveQuery() throws Exception {
+        final Resource before = validObject();
+        before.setTextField("live");
+        before.setUniqueField("liveBefore");
+        resourceCrud.create(before);
+
+        final java.net.http.HttpResponse<InputStream> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                .uri(URI.create(url + "/resources/live?textField_equals=live"))
+                .build(), java.net.http.HttpResponse.BodyHandlers.ofInputStream());
+        Assertions.assertEquals(200, response.statusCode());
+
+        final BlockingQueue<String[]> events = new LinkedBlockingQueue<>();
+        final Thread reader = new Thread(() -> readEvents(response.body(), events));
+        reader.setDaemon(true);
+        reader.start();
+
+        try {
+            final JsonNode page = nextEvent(events, "page");
+            assertThat(page.get("values")).hasSize(1);
+            assertThat(page.get("values").get(0).get("id").asInt()).isEqualTo(before.getId());
+
+            final Resource created = validObject();
+            created.setTextField("live");
+            created.setUniqueField("liveCreated");
+            resourceCrud.create(created);
+            assertThat(nextEvent(events, "upsert").get("id").asInt()).isEqualTo(created.getId());
+
+            // Doesn't match, so nothing is pushed before the next change
+            final Resource other = validObject();
+            other.setUniqueField("liveOther");
+            resourceCrud.create(other);
+
+            before.setTextField("no longer live");
+            resourceCrud.update(before);
+            assertThat(nextEvent(events, "remove").get("id").asInt()).isEqualTo(before.getId());
+
+            resourceCrud.deleteById(created.getId());
+            assertThat(nextEvent(events, "remove").get("id").asInt()).isEqualTo(created.getId());
+        } finally {
+            response.body().close();
+        }
+    }
+
+    /**
+     * Reads the name and data of every Server-Sent Event, until the stream ends.
+     */
+    private static void readEvents(InputStream body, BlockingQueue<String[]> events) {
+        try (BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String event = null;
+            final StringBuilder data = new StringBuilder();
+            for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+                if (line.startsWith("event: ")) {
+                    event = line.substring(7);
+                } else if (line.startsWith("data: ")) {
+                    data.append(line.substring(6)).append('\n');
+                } else if (line.isEmpty() && event != null) {
+                    events.add(new String[]{event, data.toString()});
+                    event = null;
+                    data.setLength(0);
+                }
+            }
+        } catch (IOException ignored) {
+            // The stream was closed
+        }
+    }
+
+    private JsonNode nextEvent(BlockingQueue<String[]> events, String expectedEvent) throws InterruptedException, IOException {
+        final String[] event = events.poll(10, TimeUnit.SECONDS);
+        Assertions.assertNotNull(event, "No '" + expectedEvent + "' event was pushed");
+        Assertions.assertEquals(expectedEvent, event[0], event[1]);
+        return elepy.objectMapper().readTree(event[1]);
+    }
+
     protected synchronized Resource validObject() {
         Resource resource = new Resource();
 
@@ -3,6 +3,8 @@ package com.elepy.tests.http;
 
 import com.elepy.exceptions.ElepyErrorMessage;
 import com.elepy.exceptions.ElepyException;
+import com.elepy.http.Compression;
+import com.elepy.http.EventStream;
 import com.elepy.http.HttpService;
 import com.elepy.uploads.FileUpload;
 import com.mashape.unirest.http.Unirest;
@@ -20,12 +22,14 @@ import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPInputStream;
 
 import static org.awaitility.Awaitility.await;
 import static org.hamcrest.Matchers.*;
@@ -68,6 +72,106 @@ public abstract class HttpServiceTest {
 
     }
 
+    @Test
+    void can_StreamEvents_until_Closed() throws IOException, InterruptedException {
+        service.get("/events", (request, response) -> {
+            final EventStream events = response.eventStream();
+
+            // Sent after the route is done, like pushed changes are
+            new Thread(() -> {
+                events.send("greeting", "hi\nthere");
+                events.close();
+            }).start();
+        });
+
+        service.ignite();
+
+        final HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:3030/events"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        assertEquals("event: greeting\ndata: hi\ndata: there\n\n", response.body());
+    }
+
+    @Test
+    void can_CompressResponses_thatAreLargeEnough() throws IOException, InterruptedException {
+        final String large = "{\"values\":\"" + "a".repeat(4096) + "\"}";
+
+        service.compression(Compression.gzip().minSize(1024));
+        service.get("/large", context -> {
+            context.response().type("application/json");
+            context.result(large);
+        });
+        service.get("/small", context -> {
+            context.response().type("application/json");
+            context.result("{}");
+        });
+        service.ignite();
+
+        final HttpResponse<InputStream> compressed = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:3030/large"))
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+
+        assertEquals("gzip", compressed.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals(large, new String(new GZIPInputStream(compressed.body()).readAllBytes(), StandardCharsets.UTF_8));
+
+        final HttpResponse<String> small = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:3030/small"))
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertNotEquals("gzip", small.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("{}", small.body());
+    }
+
+    @Test
+    void can_WeakenETag_of_CompressedResponse() throws IOException, InterruptedException {
+        final String large = "{\"values\":\"" + "a".repeat(4096) + "\"}";
+
+        service.compression(Compression.gzip().minSize(1024));
+        service.get("/etag", context -> {
+            context.response().type("application/json");
+            context.response().header("ETag", "\"v1\"");
+
+            final String ifNoneMatch = context.request().headers("If-None-Match");
+            if (ifNoneMatch != null && ifNoneMatch.replace("W/", "").equals("\"v1\"")) {
+                context.response().status(304);
+                context.result("");
+            } else {
+                context.result(large);
+            }
+        });
+        service.ignite();
+
+        final HttpResponse<InputStream> compressed = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:3030/etag"))
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals("gzip", compressed.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("W/\"v1\"", compressed.headers().firstValue("ETag").orElse(null));
+        assertTrue(compressed.headers().allValues("Vary").stream().anyMatch(vary -> vary.contains("Accept-Encoding")));
+        assertEquals(large, new String(new GZIPInputStream(compressed.body()).readAllBytes(), StandardCharsets.UTF_8));
+
+        final HttpResponse<String> notModified = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:3030/etag"))
+                .header("Accept-Encoding", "gzip")
+                .header("If-None-Match", compressed.headers().firstValue("ETag").orElseThrow())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, notModified.statusCode());
+        assertTrue(notModified.headers().allValues("Vary").stream().anyMatch(vary -> vary.contains("Accept-Encoding")));
+
+        final HttpResponse<String> uncompressed = httpClient.send(HttpRequest.newBuilder()
+                .uri(URI.create("http://localhost:3030/etag"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertNotEquals("gzip", uncompressed.headers().firstValue("Content-Encoding").orElse(null));
+        assertEquals("\"v1\"", uncompressed.headers().firstValue("ETag").orElse(null));
+        assertTrue(uncompressed.headers().allValues("Vary").stream().anyMatch(vary -> vary.contains("Accept-Encoding")));
+        assertEquals(large, uncompressed.body());
+    }
+
     @Test
     void can_handleStaticFiles() throws IOException, InterruptedException {
         service.staticFiles("static");
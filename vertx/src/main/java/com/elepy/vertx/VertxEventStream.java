@@ -0,0 +1,74 @@
+package com.elepy.vertx;
+
+import com.elepy.http.EventStream;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An {@link EventStream} on a Vert.x response. Nothing waits for the stream, the response is simply not ended when
+ * the route is done.
+ * <p>
+ * A client that can't keep up would make the write queue grow without bounds, so the stream is closed when the write
+ * queue is full. Clients like EventSource reconnect by themselves.
+ */
+class VertxEventStream implements EventStream {
+
+    static final String EVENT_STREAM_KEY = "eventStream";
+
+    private final HttpServerResponse response;
+    private final List<Runnable> closeHandlers = new ArrayList<>();
+    private boolean open = true;
+
+    VertxEventStream(HttpServerResponse response) {
+        this.response = response;
+
+        response.setStatusCode(200);
+        response.setChunked(true);
+        response.putHeader("Content-Type", "text/event-stream;charset=UTF-8");
+        response.putHeader("Cache-Control", "no-cache");
+        response.closeHandler(v -> close());
+    }
+
+    @Override
+    public synchronized boolean write(String frame) {
+        if (!open || response.ended() || response.closed()) {
+            close();
+            return false;
+        }
+        if (response.writeQueueFull()) {
+            close();
+            return false;
+        }
+        response.write(frame);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void onClose(Runnable handler) {
+        if (open) {
+            closeHandlers.add(handler);
+        } else {
+            handler.run();
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        if (!response.ended() && !response.closed()) {
+            response.end();
+        }
+        closeHandlers.forEach(Runnable::run);
+        closeHandlers.clear();
+    }
+}
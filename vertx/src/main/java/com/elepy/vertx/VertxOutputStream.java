@@ -0,0 +1,95 @@
+package com.elepy.vertx;
+
+import io.vertx.core.Context;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.io.OutputStream;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Writes a response body in chunks. Bytes are buffered and handed to Vert.x one chunk at a time.
+ * <p>
+ * When written to from a worker thread, the stream waits for the write queue to drain before writing more, so a slow
+ * client can't make the response pile up in memory. The event loop can't wait, so it writes through.
+ */
+public class VertxOutputStream extends OutputStream {
+
+    static final String OUTPUT_STREAM_KEY = "outputStream";
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final HttpServerResponse response;
+    private final byte[] chunk;
+    private int count;
+
+    VertxOutputStream(HttpServerResponse response) {
+        this.response = response;
+        this.chunk = new byte[CHUNK_SIZE];
+    }
+
+    @Override
+    public void write(int b) {
+        if (count == chunk.length) {
+            flush();
+        }
+        chunk[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        while (length > 0) {
+            if (count == chunk.length) {
+                flush();
+            }
+            final int toCopy = Math.min(length, chunk.length - count);
+            System.arraycopy(bytes, offset, chunk, count, toCopy);
+
+            count += toCopy;
+            offset += toCopy;
+            length -= toCopy;
+        }
+    }
+
+    @Override
+    public void flush() {
+        if (count == 0 || response.ended() || response.closed()) {
+            count = 0;
+            return;
+        }
+        if (!response.isChunked() && !response.headers().contains("Content-Length")) {
+            response.setChunked(true);
+        }
+        awaitDrain();
+
+        response.write(Buffer.buffer().appendBytes(chunk, 0, count));
+        count = 0;
+    }
+
+    @Override
+    public void close() {
+        flush();
+        if (!response.ended() && !response.closed()) {
+            response.end();
+        }
+    }
+
+    private void awaitDrain() {
+        if (Context.isOnEventLoopThread() || !response.writeQueueFull()) {
+            return;
+        }
+        final CountDownLatch drained = new CountDownLatch(1);
+        response.drainHandler(v -> drained.countDown());
+        response.closeHandler(v -> drained.countDown());
+
+        // The queue might have drained before the handler was set
+        if (!response.writeQueueFull()) {
+            return;
+        }
+        try {
+            drained.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.elepy.vertx;
 
+import com.elepy.http.EventStream;
 import com.elepy.http.Response;
 import io.vertx.core.http.HttpServerResponse;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.impl.CookieImpl;
 
 import javax.servlet.http.HttpServletResponse;
+import java.io.OutputStream;
 
 
 public class VertxResponse implements Response {
@@ -40,6 +42,23 @@ public class VertxResponse implements Response {
         routingContext.put(RESPONSE_KEY, bytes);
     }
 
+    @Override
+    public OutputStream outputStream() {
+        final VertxOutputStream outputStream = new VertxOutputStream(response);
+        routingContext.put(VertxOutputStream.OUTPUT_STREAM_KEY, outputStream);
+        return outputStream;
+    }
+
+    @Override
+    public EventStream eventStream() {
+        VertxEventStream eventStream = routingContext.get(VertxEventStream.EVENT_STREAM_KEY);
+        if (eventStream == null) {
+            eventStream = new VertxEventStream(response);
+            routingContext.put(VertxEventStream.EVENT_STREAM_KEY, eventStream);
+        }
+        return eventStream;
+    }
+
     @Override
     public String result() {
         return routingContext.get(RESPONSE_KEY);
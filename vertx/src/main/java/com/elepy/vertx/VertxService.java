@@ -1,34 +1,58 @@
 package com.elepy.vertx;
 
 import com.elepy.exceptions.ElepyConfigException;
+import com.elepy.exceptions.ElepyException;
 import com.elepy.http.*;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.WorkerExecutor;
 import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
 import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerResponse;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.StaticHandler;
 import org.eclipse.jetty.util.MultiMap;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class VertxService implements HttpService {
-    private final HttpServer server;
+
+    /**
+     * The default amount of worker threads that run blocking routes, the same as Vert.x has by default.
+     */
+    public static final int DEFAULT_WORKER_POOL_SIZE = 20;
+
+    /**
+     * By default there is a server instance for every core.
+     */
+    public static final int DEFAULT_INSTANCES = Runtime.getRuntime().availableProcessors();
+
     private final Vertx vertx;
-    private final Router router;
+    private int instances = DEFAULT_INSTANCES;
     private int port = 1337;
     private String ipAddress = "localhost";
     private Map<RouteKey, Route> routes;
     private int counter;
     private boolean ignitedOnce = false;
+    private Compression compression;
+    private boolean offloadBlockingRoutes = true;
+    private int workerPoolSize = DEFAULT_WORKER_POOL_SIZE;
+    private Executor routeExecutor;
+    private WorkerExecutor workerExecutor;
 
-    private StaticHandler staticHandler = null;
+    private String staticWebRoot = null;
 
     private Map<Class, ExceptionHandler> exceptionHandlers;
     private MultiMap<HttpContextHandler> before;
@@ -37,12 +61,8 @@ public class VertxService implements HttpService {
     public VertxService() {
         this.vertx = Vertx.vertx();
 
-        this.server = vertx.createHttpServer();
-
-
-        this.router = Router.router(vertx);
-
-        this.exceptionHandlers = new HashMap<>();
+        // Exception handlers are looked up, and cached, from every event loop and worker
+        this.exceptionHandlers = Collections.synchronizedMap(new HashMap<>());
 
         this.exceptionHandlers.put(Exception.class, (e, ctx) -> {
             e.printStackTrace();
@@ -50,7 +70,7 @@ public class VertxService implements HttpService {
 
         this.before = new MultiMap<>();
         this.after = new MultiMap<>();
-        this.routes = new HashMap<>();
+        this.routes = new TreeMap<>();
     }
 
     @Override
@@ -68,6 +88,51 @@ public class VertxService implements HttpService {
         return this.port;
     }
 
+    /**
+     * Every server instance has its own event loop and its own copy of the routes, filters and handlers. Vert.x
+     * spreads the connections on the port over the instances.
+     *
+     * @param instances the amount of server instances
+     */
+    public VertxService instances(int instances) {
+        if (instances < 1) {
+            throw new ElepyConfigException("There must be at least one server instance");
+        }
+        this.instances = instances;
+        return this;
+    }
+
+    /**
+     * Routes that block, which are all routes unless they are built with blocking(false), run on a pool of worker
+     * threads so that they don't stall the event loop.
+     *
+     * @param workerPoolSize the amount of worker threads
+     */
+    public VertxService workerPoolSize(int workerPoolSize) {
+        if (workerPoolSize < 1) {
+            throw new ElepyConfigException("The worker pool needs at least one thread");
+        }
+        this.workerPoolSize = workerPoolSize;
+        return this;
+    }
+
+    /**
+     * Runs blocking routes on an executor instead of the worker pool, like a virtual thread per task executor on a JDK
+     * that has virtual threads. The executor is not shut down when the service stops.
+     */
+    public VertxService routeExecutor(Executor routeExecutor) {
+        this.routeExecutor = routeExecutor;
+        return this;
+    }
+
+    /**
+     * @param offloadBlockingRoutes false to run every route on the event loop, when no route blocks
+     */
+    public VertxService offloadBlockingRoutes(boolean offloadBlockingRoutes) {
+        this.offloadBlockingRoutes = offloadBlockingRoutes;
+        return this;
+    }
+
     @Override
     public void stop() {
 
@@ -83,7 +148,16 @@ public class VertxService implements HttpService {
 
     @Override
     public void staticFiles(String path, StaticFileLocation location) {
-        staticHandler = StaticHandler.create().setWebRoot(path);
+        staticWebRoot = path;
+    }
+
+    /**
+     * Vert.x compresses with gzip or deflate, as negotiated with the client. The allowlist and the minimum size turn
+     * compression off per response, with 'Content-Encoding: identity'. The ETag of a compressed response is made weak.
+     */
+    @Override
+    public void compression(Compression compression) {
+        this.compression = compression;
     }
 
     @Override
@@ -123,46 +197,105 @@ public class VertxService implements HttpService {
         if (ignitedOnce) {
             throw new ElepyConfigException("Can't add routes after server has ignited");
         }
-
-        router.route().handler(BodyHandler.create()
-                .setMergeFormAttributes(true)
-                .setUploadsDirectory(System.getProperty("java.io.tmpdir")));
-        igniteBefore();
-        igniteRoutes();
-        igniteAfter();
-        igniteStatic();
-        igniteFinal();
         ignitedOnce = true;
-        server.requestHandler(router);
 
+        if (offloadBlockingRoutes && routeExecutor == null) {
+            workerExecutor = vertx.createSharedWorkerExecutor("elepy-routes", workerPoolSize);
+        }
 
         final CountDownLatch countDownLatch = new CountDownLatch(1);
-        server.listen(port, httpServerAsyncResult -> countDownLatch.countDown());
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        vertx.deployVerticle(ServerVerticle::new, new DeploymentOptions().setInstances(instances), deployment -> {
+            failure.set(deployment.cause());
+            countDownLatch.countDown();
+        });
 
         try {
             countDownLatch.await();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        if (failure.get() != null) {
+            throw new ElepyConfigException(String.format("Failed to listen on port %d", port), failure.get());
+        }
+    }
+
+    /**
+     * Creates the router of a server instance. The routes, filters and handlers are the same for every instance, but a
+     * router and its handlers are only used on the event loop of their instance.
+     */
+    private Router createRouter() {
+        final Router router = Router.router(vertx);
+
+        igniteCompression(router);
+        router.route().handler(BodyHandler.create()
+                .setMergeFormAttributes(true)
+                .setUploadsDirectory(System.getProperty("java.io.tmpdir")));
+        igniteBefore(router);
+        igniteRoutes(router);
+        igniteAfter(router);
+        igniteStatic(router);
+        igniteFinal(router);
+        return router;
+    }
+
+    private HttpServerOptions serverOptions() {
+        final HttpServerOptions options = new HttpServerOptions();
+        if (compression != null) {
+            options.setCompressionSupported(true).setCompressionLevel(compression.getLevel());
+        }
+        return options;
+    }
+
+    private void igniteCompression(Router router) {
+        if (compression == null) {
+            return;
+        }
+        router.route().handler(routingContext -> {
+            final HttpServerResponse response = routingContext.response();
+
+            routingContext.addHeadersEndHandler(v -> {
+                if (!response.headers().contains(HttpHeaders.CONTENT_ENCODING) && !compression.isCompressible(response.headers().get(HttpHeaders.CONTENT_TYPE))) {
+                    response.putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+                }
+                // Whether or not this response is compressed, another one to the same URL may be
+                response.headers().add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+                if (!response.headers().contains(HttpHeaders.CONTENT_ENCODING)
+                        && acceptsCompression(routingContext.request().getHeader(HttpHeaders.ACCEPT_ENCODING))
+                        && response.headers().contains(HttpHeaders.ETAG)) {
+                    response.putHeader(HttpHeaders.ETAG, Compression.weakETag(response.headers().get(HttpHeaders.ETAG)));
+                }
+            });
+            routingContext.next();
+        });
+    }
+
+    /**
+     * @return true if Vert.x will compress the response, with gzip or deflate
+     */
+    private static boolean acceptsCompression(String acceptEncoding) {
+        return Compression.acceptsGzip(acceptEncoding) || (acceptEncoding != null && acceptEncoding.toLowerCase().contains("deflate"));
     }
 
-    private void igniteStatic() {
-        if (staticHandler != null) {
-            router.route().handler(staticHandler);
+    private void igniteStatic(Router router) {
+        if (staticWebRoot != null) {
+            router.route().handler(StaticHandler.create().setWebRoot(staticWebRoot));
         }
     }
 
-    private void igniteFinal() {
+    private void igniteFinal(Router router) {
         router.route().handler(this::endRoute);
 
     }
 
-    private void igniteAfter() {
-        igniteMultiMapContexts(this.after);
+    private void igniteAfter(Router router) {
+        igniteMultiMapContexts(router, this.after);
     }
 
-    private void igniteBefore() {
-        igniteMultiMapContexts(this.before);
+    private void igniteBefore(Router router) {
+        igniteMultiMapContexts(router, this.before);
     }
 
     private Handler<RoutingContext> handleSafely(Handler<RoutingContext> h) {
@@ -170,30 +303,52 @@ public class VertxService implements HttpService {
             try {
                 h.handle(routingContext);
             } catch (Exception e) {
-                final ExceptionHandler exceptionHandler = getExceptionHandler(e.getClass());
-
-                if (exceptionHandler != null)
-                    exceptionHandler.handleException(e, new VertxContext(routingContext));
-
-                endRoute(routingContext);
+                handleException(routingContext, e);
             }
         };
     }
 
+    private void handleException(RoutingContext routingContext, Exception e) {
+        final ExceptionHandler exceptionHandler = getExceptionHandler(e.getClass());
+
+        if (exceptionHandler != null)
+            exceptionHandler.handleException(e, new VertxContext(routingContext));
+
+        endRoute(routingContext);
+    }
+
 
     private void endRoute(RoutingContext routingContext) {
+        // An event stream ends when it is closed
+        if (routingContext.get(VertxEventStream.EVENT_STREAM_KEY) != null) {
+            return;
+        }
+        final VertxOutputStream outputStream = routingContext.get(VertxOutputStream.OUTPUT_STREAM_KEY);
+
+        if (outputStream != null) {
+            outputStream.close();
+            return;
+        }
+
         final Object responseBody = routingContext.get(VertxResponse.RESPONSE_KEY);
 
+        final Buffer body;
         if (responseBody == null) {
-            routingContext.response().end("");
+            body = Buffer.buffer();
         } else if (responseBody instanceof byte[]) {
-            routingContext.response().end(Buffer.buffer((byte[]) responseBody));
+            body = Buffer.buffer((byte[]) responseBody);
         } else {
-            routingContext.response().end(responseBody.toString());
+            body = Buffer.buffer(responseBody.toString());
+        }
+
+        // Too small to get smaller by compressing
+        if (compression != null && body.length() <= compression.getMinSize() && !routingContext.response().headers().contains(HttpHeaders.CONTENT_ENCODING)) {
+            routingContext.response().putHeader(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
         }
+        routingContext.response().end(body);
     }
 
-    private void igniteMultiMapContexts(MultiMap<HttpContextHandler> contexts) {
+    private void igniteMultiMapContexts(Router router, MultiMap<HttpContextHandler> contexts) {
         contexts.forEach((path, contextHandlers) ->
                 //if path is null, use a route without a path
                 Optional.ofNullable(path).map(router::route).orElse(router.route())
@@ -205,13 +360,8 @@ public class VertxService implements HttpService {
     }
 
 
-    private void igniteRoutes() {
-        routes.forEach(((key, route) -> {
-            if (!key.ignited) {
-                key.ignited = true;
-                igniteRoute(route);
-            }
-        }));
+    private void igniteRoutes(Router router) {
+        routes.values().forEach(route -> igniteRoute(router, route));
     }
 
 
@@ -245,30 +395,90 @@ public class VertxService implements HttpService {
         return this.exceptionHandlers.get(exceptionClass);
     }
 
-    private void igniteRoute(Route extraRoute) {
-        router.route(transformToHttpMethod(extraRoute), extraRoute.getPath()).handler(
-                handleSafely(routingContext -> {
-                    final VertxContext vertxContext = new VertxContext(routingContext);
-                    extraRoute.getHttpContextHandler().handleWithExceptions(vertxContext);
+    private void igniteRoute(Router router, Route extraRoute) {
+        final io.vertx.ext.web.Route route = router.route(transformToHttpMethod(extraRoute), extraRoute.getPath());
+
+        if (offloadBlockingRoutes && extraRoute.isBlocking()) {
+            route.handler(routingContext -> dispatch(routingContext, extraRoute));
+        } else {
+            route.handler(handleSafely(routingContext -> {
+                final VertxContext vertxContext = new VertxContext(routingContext);
+                extraRoute.getHttpContextHandler().handleWithExceptions(vertxContext);
+
+                routingContext.next();
+            }));
+        }
+    }
+
+    /**
+     * Runs a blocking route off the event loop. The response is ended back on the event loop, when the route is done.
+     */
+    private void dispatch(RoutingContext routingContext, Route extraRoute) {
+        if (routeExecutor == null) {
+            workerExecutor.<Void>executeBlocking(future -> {
+                extraRoute.getHttpContextHandler().handleWithExceptions(new VertxContext(routingContext));
+                future.complete();
+            }, false, result -> proceed(routingContext, result.cause()));
+            return;
+        }
+
+        final Context context = vertx.getOrCreateContext();
+        try {
+            routeExecutor.execute(() -> {
+                Throwable failure = null;
+                try {
+                    extraRoute.getHttpContextHandler().handleWithExceptions(new VertxContext(routingContext));
+                } catch (Throwable e) {
+                    failure = e;
+                }
+                final Throwable result = failure;
+                context.runOnContext(v -> proceed(routingContext, result));
+            });
+        } catch (RejectedExecutionException e) {
+            handleException(routingContext, new ElepyException("The server is too busy", 503, e));
+        }
+    }
 
-                    routingContext.next();
-                }));
+    private void proceed(RoutingContext routingContext, Throwable failure) {
+        if (failure == null) {
+            routingContext.next();
+        } else if (failure instanceof Exception) {
+            handleException(routingContext, (Exception) failure);
+        } else {
+            handleException(routingContext, new ElepyException(failure.getMessage(), 500, failure));
+        }
     }
 
     private io.vertx.core.http.HttpMethod transformToHttpMethod(Route route) {
         return io.vertx.core.http.HttpMethod.valueOf(route.getMethod().name());
     }
 
+    /**
+     * A server instance, with its own router on its own event loop.
+     */
+    private class ServerVerticle extends AbstractVerticle {
+
+        @Override
+        public void start(Future<Void> startFuture) {
+            final HttpServer server = vertx.createHttpServer(serverOptions());
+
+            server.requestHandler(createRouter()).listen(port, listening -> {
+                if (listening.succeeded()) {
+                    startFuture.complete();
+                } else {
+                    startFuture.fail(listening.cause());
+                }
+            });
+        }
+    }
+
     private class RouteKey implements Comparable<RouteKey> {
 
         private final Integer id;
 
-        private boolean ignited;
-
 
         private RouteKey(Integer id) {
             this.id = id;
-            this.ignited = false;
         }
 
 
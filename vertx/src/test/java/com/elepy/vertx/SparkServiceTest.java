@@ -1,14 +1,62 @@
 package com.elepy.vertx;
 
 import com.elepy.Elepy;
+import com.elepy.http.EventStream;
 import com.elepy.http.HttpService;
 import com.elepy.http.SparkService;
 import com.elepy.tests.http.HttpServiceTest;
+import org.junit.jupiter.api.Test;
 import spark.Service;
 
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 public class SparkServiceTest extends HttpServiceTest {
     @Override
     public HttpService httpService() {
         return new SparkService(Service.ignite(), new Elepy());
     }
+
+    @Test
+    void eventStreams_doNotHold_requestThreads() throws Exception {
+        final int threads = 8;
+        final SparkService service = new SparkService(Service.ignite().threadPool(threads), new Elepy());
+        final List<EventStream> streams = new CopyOnWriteArrayList<>();
+        final HttpClient httpClient = HttpClient.newHttpClient();
+
+        service.port(3031);
+        service.get("/events", (request, response) -> streams.add(response.eventStream()));
+        service.get("/hi", (request, response) -> response.result("hi"));
+        service.ignite();
+
+        try {
+            final List<CompletableFuture<HttpResponse<InputStream>>> opened = new ArrayList<>();
+            for (int i = 0; i < threads * 2; i++) {
+                opened.add(httpClient.sendAsync(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:3031/events"))
+                        .build(), HttpResponse.BodyHandlers.ofInputStream()));
+            }
+            for (CompletableFuture<HttpResponse<InputStream>> stream : opened) {
+                assertEquals(200, stream.get(10, TimeUnit.SECONDS).statusCode());
+            }
+
+            final HttpResponse<String> response = httpClient.sendAsync(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:3031/hi"))
+                    .build(), HttpResponse.BodyHandlers.ofString()).get(10, TimeUnit.SECONDS);
+            assertEquals("hi", response.body());
+        } finally {
+            streams.forEach(EventStream::close);
+            service.stop();
+        }
+    }
 }
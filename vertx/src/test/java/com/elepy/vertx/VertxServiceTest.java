@@ -1,7 +1,23 @@
 package com.elepy.vertx;
 
+import com.elepy.http.HttpMethod;
 import com.elepy.http.HttpService;
+import com.elepy.http.RouteBuilder;
 import com.elepy.tests.http.HttpServiceTest;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class VertxServiceTest extends HttpServiceTest {
 
@@ -9,4 +25,66 @@ public class VertxServiceTest extends HttpServiceTest {
     public HttpService httpService() {
         return new VertxService();
     }
+
+    @Test
+    void blockingRoutes_doNotStall_theEventLoop() throws Exception {
+        final VertxService service = new VertxService().workerPoolSize(2);
+        final CountDownLatch release = new CountDownLatch(1);
+        final HttpClient httpClient = HttpClient.newHttpClient();
+
+        service.port(3031);
+        service.get("/blocking", context -> {
+            release.await(10, TimeUnit.SECONDS);
+            context.result("done");
+        });
+        service.addRoute(RouteBuilder.anElepyRoute()
+                .path("/nonBlocking")
+                .method(HttpMethod.GET)
+                .blocking(false)
+                .route(context -> context.result("hi"))
+                .build());
+        service.ignite();
+
+        try {
+            final CompletableFuture<HttpResponse<String>> blocked = httpClient.sendAsync(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:3031/blocking"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+
+            final HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder()
+                    .uri(URI.create("http://localhost:3031/nonBlocking"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals("hi", response.body());
+
+            release.countDown();
+            assertEquals("done", blocked.get(10, TimeUnit.SECONDS).body());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void connections_areSpread_overServerInstances() throws Exception {
+        final VertxService service = new VertxService().instances(4).offloadBlockingRoutes(false);
+        final Set<String> eventLoops = ConcurrentHashMap.newKeySet();
+
+        service.port(3032);
+        service.get("/thread", context -> {
+            eventLoops.add(Thread.currentThread().getName());
+            context.result("hi");
+        });
+        service.ignite();
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                // A new client for a new connection
+                final HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                        .uri(URI.create("http://localhost:3032/thread"))
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                assertEquals("hi", response.body());
+            }
+            assertTrue(eventLoops.size() > 1, "Every connection was handled by " + eventLoops);
+        } finally {
+            service.stop();
+        }
+    }
 }